@@ -0,0 +1,122 @@
+package edu.wpi.FlashyFrogs;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+/**
+ * The hospital map used by the benchmarks, read from the CSV files in the test resources the same
+ * way CSVParser reads them, but straight into memory instead of into the database
+ */
+public final class BenchmarkData {
+  private static final String DIRECTORY = "/edu/wpi/FlashyFrogs/CSVFiles/"; // Where the CSVs are
+
+  @NonNull private final List<Node> nodes = new ArrayList<>(); // The nodes
+  @NonNull private final List<Edge> edges = new ArrayList<>(); // The edges
+  @NonNull private final List<Move> moves = new ArrayList<>(); // The moves
+
+  /** Reads the nodes, edges, locations, and moves from the CSV files */
+  @SneakyThrows
+  public BenchmarkData() {
+    Map<String, Node> nodeMap = new HashMap<>(); // Node ID to node
+    for (String[] fields : read("nodes.csv")) {
+      Node node =
+          new Node(
+              fields[0], // ID
+              fields.length == 4 ? "" : fields[4], // Building
+              Node.Floor.getEnum(fields[3]), // Floor
+              Integer.parseInt(fields[1]), // X-Coord
+              Integer.parseInt(fields[2])); // Y-Coord
+      nodes.add(node);
+      nodeMap.put(fields[0], node);
+    }
+
+    for (String[] fields : read("edges.csv")) {
+      edges.add(new Edge(nodeMap.get(fields[0]), nodeMap.get(fields[1])));
+    }
+
+    Map<String, LocationName> locations = new HashMap<>(); // Long name to location
+    for (String[] fields : read("locations.csv")) {
+      locations.put(
+          fields[1],
+          new LocationName(fields[1], LocationName.LocationType.valueOf(fields[0]), fields[2]));
+    }
+
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.SSS"); // Move dates
+    for (String[] fields : read("moves.csv")) {
+      moves.add(
+          new Move(nodeMap.get(fields[0]), locations.get(fields[1]), format.parse(fields[2])));
+    }
+  }
+
+  /**
+   * Reads the lines of a CSV file, skipping the header and blank lines
+   *
+   * @param name the name of the file in the CSV directory
+   * @return the fields of each line
+   */
+  @NonNull
+  @SneakyThrows
+  private static List<String[]> read(@NonNull String name) {
+    List<String[]> lines = new ArrayList<>(); // The fields of each line
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                Objects.requireNonNull(BenchmarkData.class.getResourceAsStream(DIRECTORY + name)),
+                StandardCharsets.UTF_8))) {
+      reader.readLine(); // Skip the header
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.replace("\uFEFF", ""); // Some of the files start with a byte order mark
+        if (!line.isBlank()) {
+          lines.add(line.split(","));
+        }
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Creates a snapshot of the map
+   *
+   * @param date the date to resolve which location each node holds at
+   * @return the snapshot
+   */
+  @NonNull
+  public HospitalGraph graph(@NonNull Date date) {
+    return new HospitalGraph(nodes, edges, moves, date);
+  }
+
+  /**
+   * Creates a snapshot of the map with one edge left out, as if it had just been deleted
+   *
+   * @param date the date to resolve which location each node holds at
+   * @param removed the position of the edge to leave out
+   * @return the snapshot
+   */
+  @NonNull
+  public HospitalGraph graphWithout(@NonNull Date date, int removed) {
+    List<Edge> remaining = new ArrayList<>(edges); // The edges that are left
+    remaining.remove(removed);
+    return new HospitalGraph(nodes, remaining, moves, date);
+  }
+
+  /**
+   * Gets the number of edges in the map
+   *
+   * @return the number of edges
+   */
+  public int edgeCount() {
+    return edges.size();
+  }
+}
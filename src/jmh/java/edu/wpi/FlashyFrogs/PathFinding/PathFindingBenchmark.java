@@ -0,0 +1,159 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.BenchmarkData;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks each path finding algorithm on the hospital map. Each call finds one route, cycling
+ * through a fixed set of pairs, either random pairs of locations or the pairs furthest apart. Run
+ * with -prof gc (the default in build.gradle) for the allocation rate, and the sample time mode
+ * gives the latency percentiles
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathFindingBenchmark {
+  private static final int PAIR_COUNT = 256; // Number of pairs to cycle through
+  private static final long SEED = 2023; // Seed for the random pairs, so every run is the same
+
+  @Param({
+    "AStar",
+    "BidirectionalAStar",
+    "LandmarkAStar",
+    "ContractionHierarchies",
+    "BreadthFirst",
+    "DepthFirst"
+  })
+  public String algorithm; // Name of the algorithm to benchmark
+
+  @Param({"random", "worstCase"})
+  public String pairs; // Which pairs to route between
+
+  @Param({"false", "true"})
+  public boolean accessible; // Whether routes must be accessible
+
+  private HospitalGraph graph; // The map
+  private IFindPath finder; // The algorithm
+  private Node[] starts; // Start of each pair
+  private Node[] ends; // End of each pair
+  private int next; // The pair to route next
+
+  /** Loads the map, picks the pairs, and does any preprocessing the algorithm needs */
+  @Setup(Level.Trial)
+  public void setup() {
+    graph = new BenchmarkData().graph(new Date());
+    finder =
+        switch (algorithm) {
+          case "AStar" -> new AStar();
+          case "BidirectionalAStar" -> new BidirectionalAStar();
+          case "LandmarkAStar" -> new LandmarkAStar();
+          case "ContractionHierarchies" -> new ContractionHierarchies();
+          case "BreadthFirst" -> new BreadthFirst();
+          case "DepthFirst" -> new DepthFirst();
+          default -> throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        };
+
+    int[][] chosen = pairs.equals("random") ? randomPairs() : furthestPairs();
+    starts = new Node[chosen.length];
+    ends = new Node[chosen.length];
+    for (int i = 0; i < chosen.length; i++) {
+      starts[i] = graph.getNode(chosen[i][0]);
+      ends[i] = graph.getNode(chosen[i][1]);
+    }
+
+    // Landmarks and hierarchies are built once per graph, that isn't what is being measured
+    finder.findPath(starts[0], ends[0], accessible, graph);
+  }
+
+  /**
+   * Gets the nodes that routes can start or end at
+   *
+   * @return the indices of the nodes that have ever held a non-hallway location
+   */
+  private int[] hosts() {
+    return IntStream.range(0, graph.size()).filter(graph::isNonHallwayHost).toArray();
+  }
+
+  /**
+   * Picks random pairs of locations that can reach each other
+   *
+   * @return the pairs, as start and end indices
+   */
+  private int[][] randomPairs() {
+    int[] hosts = hosts();
+    Random random = new Random(SEED);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Cost from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    int[][] chosen = new int[PAIR_COUNT][];
+    for (int i = 0; i < PAIR_COUNT; ) {
+      int start = hosts[random.nextInt(hosts.length)];
+      int end = hosts[random.nextInt(hosts.length)];
+      dijkstra.shortestPathTree(
+          start, EdgeCostModel.forAccessible(accessible), false, distances, parents);
+
+      if (distances[end] != Double.POSITIVE_INFINITY) {
+        chosen[i++] = new int[] {start, end};
+      }
+    }
+    return chosen;
+  }
+
+  /**
+   * Picks the pairs of locations furthest apart by route cost, which are the slowest routes for
+   * the searches that stop when they reach the end
+   *
+   * @return the pairs, as start and end indices
+   */
+  private int[][] furthestPairs() {
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Cost from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    // Every reachable pair, by cost, keeping only the most expensive ones
+    PriorityQueue<double[]> furthest =
+        new PriorityQueue<>(Comparator.comparingDouble((double[] pair) -> pair[2]));
+    int[] hosts = hosts();
+    for (int start : hosts) {
+      dijkstra.shortestPathTree(
+          start, EdgeCostModel.forAccessible(accessible), false, distances, parents);
+
+      for (int end : hosts) {
+        if (distances[end] != Double.POSITIVE_INFINITY) {
+          furthest.add(new double[] {start, end, distances[end]});
+          if (furthest.size() > PAIR_COUNT) {
+            furthest.poll(); // Drop the cheapest
+          }
+        }
+      }
+    }
+
+    int[][] chosen = new int[furthest.size()][];
+    for (int i = 0; i < chosen.length; i++) {
+      double[] pair = furthest.poll();
+      chosen[i] = new int[] {(int) pair[0], (int) pair[1]};
+    }
+    return chosen;
+  }
+
+  /**
+   * Finds the route for the next pair
+   *
+   * @return the route, returned so the search isn't optimized away
+   */
+  @Benchmark
+  public List<Node> findPath() {
+    int pair = next;
+    next = next + 1 == starts.length ? 0 : next + 1;
+
+    return finder.findPath(starts[pair], ends[pair], accessible, graph);
+  }
+}
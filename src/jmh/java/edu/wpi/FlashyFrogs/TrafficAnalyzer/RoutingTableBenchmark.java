@@ -0,0 +1,60 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.BenchmarkData;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks recomputing the routing table the way FloydWarshallRunner does, both from scratch with
+ * each backend and by patching the previous table after an edge is deleted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RoutingTableBenchmark {
+  private static final long SEED = 2023; // Seed for the deleted edge, so every run is the same
+
+  @Param({"BLOCKED", "PARALLEL_BLOCKED", "DIJKSTRA"})
+  public AllPairsBackend backend; // The backend to compute from scratch with
+
+  private HospitalGraph graph; // The map
+  private RoutingTable previous; // The table before the edge was deleted
+  private HospitalGraph edited; // The map after the edge was deleted
+
+  /** Loads the map, and the table to patch */
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkData data = new BenchmarkData();
+    Date date = new Date();
+    graph = data.graph(date);
+    previous = backend.compute(graph, () -> false);
+    edited = data.graphWithout(date, new Random(SEED).nextInt(data.edgeCount()));
+  }
+
+  /**
+   * Computes the whole table from scratch
+   *
+   * @return the table, returned so the computation isn't optimized away
+   */
+  @Benchmark
+  public RoutingTable compute() {
+    return backend.compute(graph, () -> false);
+  }
+
+  /**
+   * Patches the table after one edge was deleted, which is what happens after most map edits
+   *
+   * @return the patched table, returned so the computation isn't optimized away
+   */
+  @Benchmark
+  public RoutingTable update() {
+    return RoutingTable.update(previous, edited, ForkJoinPool.commonPool(), () -> false);
+  }
+}
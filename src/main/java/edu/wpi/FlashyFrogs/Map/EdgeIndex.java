@@ -0,0 +1,263 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.NonNull;
+
+/**
+ * Undirected index of edges by the nodes they join, so the edge between two nodes can be found in
+ * either order without creating Edge objects to probe with. Each node ID gets a small number the
+ * first time it is seen, and each edge is stored under both numbers packed into a long, in an
+ * open-addressing table with linear probing. A lookup finds the number of each end in a hash map
+ * by node ID first, then probes the table once. Once a node has no edges left its number is freed
+ * and reused, so the numbers only grow with the nodes that have edges. Not thread safe, edits must
+ * all come from one thread
+ */
+public final class EdgeIndex {
+  private static final long EMPTY = -1; // Key of an empty slot, packed keys are never negative
+  private static final int MIN_CAPACITY = 16; // Smallest table, must be a power of two
+
+  @NonNull private final Map<String, Integer> nodeNumbers = new HashMap<>(); // By node ID
+  @NonNull private final Deque<Integer> freeNumbers = new ArrayDeque<>(); // Numbers to reuse
+  @NonNull private int[] edgeCounts = new int[MIN_CAPACITY]; // Edge ends at each node number
+  private int nextNumber = 0; // The number after the highest one ever given out
+  @NonNull private long[] keys; // Packed node numbers of each slot, or EMPTY
+  @NonNull private Edge[] edges; // Edge in each slot
+  private int size = 0; // Number of edges stored
+
+  /** Creates an empty index */
+  public EdgeIndex() {
+    keys = new long[MIN_CAPACITY];
+    edges = new Edge[MIN_CAPACITY];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  /**
+   * Creates an index of some edges
+   *
+   * @param edges the edges to index
+   */
+  public EdgeIndex(@NonNull Collection<Edge> edges) {
+    this();
+    edges.forEach(this::add);
+  }
+
+  /**
+   * Adds an edge, replacing any edge already between the same two nodes in either direction
+   *
+   * @param edge the edge to add
+   */
+  public void add(@NonNull Edge edge) {
+    // Grow before the table is half full, so probes stay short
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+
+    int first = number(edge.getNode1());
+    int second = number(edge.getNode2());
+    long key = key(first, second);
+    int slot = find(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+      edgeCounts[first]++;
+      edgeCounts[second]++;
+    }
+    edges[slot] = edge;
+  }
+
+  /**
+   * Removes the edge between two nodes, in either direction
+   *
+   * @param edge the edge to remove
+   */
+  public void remove(@NonNull Edge edge) {
+    long key = key(edge.getNode1(), edge.getNode2());
+    if (key == EMPTY) {
+      return; // One of the nodes was never seen
+    }
+
+    int slot = find(key);
+    if (keys[slot] == EMPTY) {
+      return; // Not in the index
+    }
+
+    // Shift later entries of the same run back, so no probe stops early at the hole
+    int mask = keys.length - 1;
+    int hole = slot;
+    for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+      int home = home(keys[next]); // Where the entry would like to be
+      // Move it if the hole is between its home and where it is, wrapping around
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        edges[hole] = edges[next];
+        hole = next;
+      }
+    }
+
+    keys[hole] = EMPTY;
+    edges[hole] = null;
+    size--;
+
+    release(edge.getNode1());
+    release(edge.getNode2());
+  }
+
+  /**
+   * Finds the edge between two nodes, in either direction
+   *
+   * @param first one end of the edge
+   * @param second the other end of the edge
+   * @return the edge, as it was added, or null if there is none
+   */
+  public Edge find(@NonNull Node first, @NonNull Node second) {
+    long key = key(first, second);
+    return key == EMPTY ? null : edges[find(key)];
+  }
+
+  /**
+   * Checks whether two nodes are joined by an edge, in either direction
+   *
+   * @param first one end of the edge
+   * @param second the other end of the edge
+   * @return true if there is an edge between them
+   */
+  public boolean contains(@NonNull Node first, @NonNull Node second) {
+    return find(first, second) != null;
+  }
+
+  /**
+   * Gets the number of edges in the index
+   *
+   * @return the number of edges
+   */
+  public int size() {
+    return size;
+  }
+
+  /** Removes every edge */
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    Arrays.fill(edges, null);
+    size = 0;
+
+    nodeNumbers.clear();
+    freeNumbers.clear();
+    Arrays.fill(edgeCounts, 0);
+    nextNumber = 0;
+  }
+
+  /**
+   * Gets the number for a node, giving it a freed or the next one if it doesn't have one yet
+   *
+   * @param node the node
+   * @return the number for the node
+   */
+  private int number(@NonNull Node node) {
+    return nodeNumbers.computeIfAbsent(
+        node.getId(),
+        (id) -> {
+          if (!freeNumbers.isEmpty()) {
+            return freeNumbers.pop();
+          }
+
+          // Make room to count the edges at the new number
+          if (nextNumber == edgeCounts.length) {
+            edgeCounts = Arrays.copyOf(edgeCounts, edgeCounts.length * 2);
+          }
+          return nextNumber++;
+        });
+  }
+
+  /**
+   * Counts one less edge at a node, freeing its number once it has none left
+   *
+   * @param node the node, which must have a number
+   */
+  private void release(@NonNull Node node) {
+    int number = nodeNumbers.get(node.getId()); // The number of the node
+    if (--edgeCounts[number] == 0) {
+      nodeNumbers.remove(node.getId());
+      freeNumbers.push(number);
+    }
+  }
+
+  /**
+   * Gets the key for the edge between two nodes, without numbering new nodes
+   *
+   * @param first one end of the edge
+   * @param second the other end of the edge
+   * @return the key, or EMPTY if either node has no number, so can't have an edge
+   */
+  private long key(@NonNull Node first, @NonNull Node second) {
+    Integer firstNumber = nodeNumbers.get(first.getId());
+    Integer secondNumber = nodeNumbers.get(second.getId());
+    return firstNumber == null || secondNumber == null ? EMPTY : key(firstNumber, secondNumber);
+  }
+
+  /**
+   * Packs the numbers of both ends of an edge into a key, lower number first so that both
+   * directions get the same key
+   *
+   * @param first the number of one end
+   * @param second the number of the other end
+   * @return the key
+   */
+  private static long key(int first, int second) {
+    return ((long) Math.min(first, second) << 32) | Math.max(first, second);
+  }
+
+  /**
+   * Gets the slot a key would like to be in
+   *
+   * @param key the key
+   * @return the slot
+   */
+  private int home(long key) {
+    long mixed = key * 0x9E3779B97F4A7C15L; // Spread the bits, consecutive numbers are common
+    return (int) (mixed >>> 32) & (keys.length - 1);
+  }
+
+  /**
+   * Finds the slot holding a key, or the empty slot it would go in
+   *
+   * @param key the key
+   * @return the slot
+   */
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = home(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Moves every edge into a table of a new size
+   *
+   * @param capacity the new number of slots, a power of two
+   */
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Edge[] oldEdges = edges;
+
+    keys = new long[capacity];
+    edges = new Edge[capacity];
+    Arrays.fill(keys, EMPTY);
+
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != EMPTY) {
+        int newSlot = find(oldKeys[slot]);
+        keys[newSlot] = oldKeys[slot];
+        edges[newSlot] = oldEdges[slot];
+      }
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A single committed change to the hospital graph, as published by the GraphChangeBus. Holds the
+ * graph version the commit produced, and whether everything derived from the graph should be
+ * rebuilt from scratch, as after an import. Consumers that can patch themselves work out what
+ * changed by comparing snapshots, so the change itself doesn't say
+ */
+@AllArgsConstructor
+public final class GraphChange {
+  @Getter private final long version; // The graph version after this change
+
+  @Getter private final boolean fullReload; // Whether everything should be rebuilt
+}
@@ -0,0 +1,76 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.NonNull;
+
+/**
+ * Singleton bus that publishes committed changes to the hospital graph. Every published change
+ * increments the graph version, so that anything derived from the graph can tell whether it is
+ * stale by comparing the version it was built at against the current one
+ */
+public enum GraphChangeBus {
+  BUS; // The bus
+  private final AtomicLong version = new AtomicLong(); // The current graph version
+
+  // Listeners to notify on change
+  private final List<Consumer<GraphChange>> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Gets the current graph version. This only ever increases
+   *
+   * @return the current graph version
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Adds a listener to be called on each change. Listeners are called on the thread that publishes
+   * the change, so anything expensive should be handed off to another thread
+   *
+   * @param listener the listener to add
+   */
+  public void addListener(@NonNull Consumer<GraphChange> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener, so that it is no longer called on changes
+   *
+   * @param listener the listener to remove
+   */
+  public void removeListener(@NonNull Consumer<GraphChange> listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Publishes a committed change, incrementing the version and notifying all listeners
+   *
+   * @param fullReload whether everything should be rebuilt
+   * @return the published change
+   */
+  @NonNull
+  public GraphChange publish(boolean fullReload) {
+    GraphChange change = new GraphChange(version.incrementAndGet(), fullReload);
+
+    // Notify each listener
+    for (Consumer<GraphChange> listener : listeners) {
+      listener.accept(change);
+    }
+
+    return change;
+  }
+
+  /**
+   * Publishes a change that requires everything to be rebuilt, such as an import
+   *
+   * @return the published change
+   */
+  @NonNull
+  public GraphChange publishFullReload() {
+    return publish(true);
+  }
+}
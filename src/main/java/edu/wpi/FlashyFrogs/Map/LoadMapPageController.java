@@ -96,6 +96,8 @@ public class LoadMapPageController implements IController {
     } else {
       // System.out.println("less than or more than four files chosen");
     }
+
+    GraphChangeBus.BUS.publishFullReload(); // The whole graph was replaced, rebuild everything
   }
 
   public void handleBackButton(ActionEvent actionEvent) throws IOException {
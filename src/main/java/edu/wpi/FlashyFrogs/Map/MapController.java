@@ -513,6 +513,17 @@ public class MapController {
     return mapEntity.getEdgeToLineMap();
   }
 
+  /**
+   * Gets the index of the edges on the map by the nodes they join, which finds the edge between two
+   * nodes in either direction
+   *
+   * @return the index of the edges on the map
+   */
+  @NonNull
+  public EdgeIndex getEdgeIndex() {
+    return mapEntity.getEdgeIndex();
+  }
+
   /**
    * Gets the map relating nodes to location names
    *
@@ -620,45 +631,17 @@ public class MapController {
         addNode(node, false); // Add the node
       }
 
-      // Get the moves before now
+      // Index the moves, including ones in this session that aren't committed yet
       List<Move> moves =
-          getMapSession()
-              .createQuery("FROM Move ORDER BY moveDate DESC", Move.class)
-              .setCacheable(true)
-              .stream()
-              .filter((move) -> move.getMoveDate().before(date))
-              .distinct()
-              .toList();
-
-      HashMap<Node, Integer> nodeToLocationCount = new HashMap<>(); // Node to location count map
+          getMapSession().createQuery("FROM Move", Move.class).setCacheable(true).getResultList();
+      MoveIndex moveIndex = new MoveIndex(moves, GraphChangeBus.BUS.getVersion());
       placedLocations = new HashSet<>();
 
-      // For each location belonging to this node
-      for (Move move : moves) {
-        if (nodeToLocationCount.containsKey(move.getNode())
-            && nodeToLocationCount.get(move.getNode()) == 1) {
-          nodeToLocationCount.replace(move.getNode(), nodeToLocationCount.get(move.getNode()) + 1);
-
-          // If we haven't placed this
-          if (!placedLocations.contains(move.getLocation())) {
-            // If this is on the floor
-            if (move.getNode().getFloor().equals(getMapFloorProperty().getValue())) {
-              addLocationName(move.getLocation(), move.getNode()); // Place it
-            }
-            placedLocations.add(move.getLocation()); // Either way, save it
-          }
-        } else if (!nodeToLocationCount.containsKey(move.getNode())) {
-          nodeToLocationCount.put(move.getNode(), 1); // Save the node count initially
-
-          // If we haven't placed this location
-          if (!placedLocations.contains(move.getLocation())) {
-            // If the floor is correct
-            if (move.getNode().getFloor().equals(getMapFloorProperty().getValue())) {
-              // Save this
-              addLocationName(move.getLocation(), move.getNode());
-            }
-            placedLocations.add(move.getLocation());
-          }
+      // Place the locations each node holds at the date
+      for (Node node : nodes) {
+        for (LocationName location : moveIndex.getCurrentLocation(node, date)) {
+          addLocationName(location, node);
+          placedLocations.add(location);
         }
       }
 
@@ -5,7 +5,6 @@ import edu.wpi.FlashyFrogs.ORM.Edge;
 import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Node;
 import edu.wpi.FlashyFrogs.Sound;
-import edu.wpi.FlashyFrogs.TrafficAnalyzer.FloydWarshallRunner;
 import io.github.palexdev.materialfx.utils.others.TriConsumer;
 import java.util.*;
 import java.util.function.BiConsumer;
@@ -33,6 +32,9 @@ class MapEntity {
   @Getter @NonNull
   private final Map<Edge, Line> edgeToLineMap = new HashMap<>(); // Map for edge to lien
 
+  @Getter @NonNull
+  private final EdgeIndex edgeIndex = new EdgeIndex(); // The same edges, by the nodes they join
+
   @Setter private BiConsumer<Node, Circle> nodeCreation; // Callback to be called on node creation
 
   @Setter private BiConsumer<Edge, Line> edgeCreation; // Callback to be called on edge creation
@@ -73,6 +75,7 @@ class MapEntity {
           // on change, clear everything
           nodeToCircleMap.clear();
           edgeToLineMap.clear();
+          edgeIndex.clear();
           locationNameToTextMap.clear();
           nodeToLocationNameMap.clear();
           nodeToLocationBox.clear();
@@ -175,6 +178,7 @@ class MapEntity {
    */
   void addEdge(@NonNull Edge edge, @NonNull Line line) {
     edgeToLineMap.put(edge, line); // Put the edge into the map
+    edgeIndex.add(edge); // Index it by its nodes
 
     // If the edge creation is valid
     if (edgeCreation != null) {
@@ -189,6 +193,7 @@ class MapEntity {
    */
   void removeEdge(@NonNull Edge edge) {
     edgeToLineMap.remove(edge);
+    edgeIndex.remove(edge);
   }
 
   /**
@@ -219,7 +224,8 @@ class MapEntity {
   void commitMapChanges() {
     mapTransaction.commit(); // Commit
 
-    FloydWarshallRunner.reCalculate(); // Trigger FW to recalculate
+    // Publish the change, this triggers anything derived from the graph to update
+    GraphChangeBus.BUS.publish(false);
 
     mapTransaction = getMapSession().beginTransaction(); // Begin a new transaction
   }
@@ -0,0 +1,197 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.NonNull;
+import org.hibernate.Session;
+
+/**
+ * In-memory index of every move, answering which location is in which node at any date without
+ * going to the database. Answers the same as Node.getCurrentLocation and
+ * LocationName.getCurrentNode: a location is in the node it most recently moved to, as long as it
+ * is also one of the two locations that most recently moved into that node. Each node and each
+ * location keeps its moves sorted by date, so each lookup is a binary search
+ */
+public final class MoveIndex {
+  private static MoveIndex current; // The index for the current graph version, if loaded
+
+  @Getter private final long version; // The graph version the index was loaded at
+  @NonNull private final Map<String, History<LocationName>> nodeHistories; // By node ID
+  @NonNull private final Map<LocationName, History<Node>> locationHistories; // By location
+
+  /**
+   * The moves of one node or one location, most recent first. Moves on the same date keep the
+   * order they were given in
+   *
+   * @param <T> what each move moved to, the location for a node or the node for a location
+   */
+  private static final class History<T> {
+    @NonNull private final long[] dates; // Date of each move, as milliseconds, most recent first
+    @NonNull private final List<T> values; // What each move moved to
+
+    /**
+     * Creates a history from moves that are already most recent first
+     *
+     * @param moves the moves
+     * @param value gets what each move moved to
+     */
+    private History(@NonNull List<Move> moves, @NonNull Function<Move, T> value) {
+      dates = new long[moves.size()];
+      values = new ArrayList<>(moves.size());
+      for (int i = 0; i < moves.size(); i++) {
+        dates[i] = moves.get(i).getMoveDate().getTime();
+        values.add(value.apply(moves.get(i)));
+      }
+    }
+
+    /**
+     * Finds the most recent move that isn't after a date
+     *
+     * @param date the date, as milliseconds
+     * @return the position of the move, or the number of moves if every move is after the date
+     */
+    private int latest(long date) {
+      // Dates are descending, so find the first one that is not after the date
+      int low = 0;
+      int high = dates.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (dates[middle] > date) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * Creates an index of moves
+   *
+   * @param moves the moves to index
+   * @param version the graph version the moves were loaded at
+   */
+  public MoveIndex(@NonNull Collection<Move> moves, long version) {
+    this.version = version;
+
+    // Most recent first, the sort is stable so moves on the same date keep their order
+    List<Move> sorted = new ArrayList<>(moves);
+    sorted.sort(Comparator.comparing(Move::getMoveDate).reversed());
+
+    Map<String, List<Move>> nodeMoves = new HashMap<>(); // Moves of each node, by ID
+    Map<LocationName, List<Move>> locationMoves = new HashMap<>(); // Moves of each location
+    for (Move move : sorted) {
+      nodeMoves.computeIfAbsent(move.getNode().getId(), (id) -> new ArrayList<>()).add(move);
+      locationMoves.computeIfAbsent(move.getLocation(), (location) -> new ArrayList<>()).add(move);
+    }
+
+    nodeHistories = new HashMap<>(nodeMoves.size());
+    nodeMoves.forEach(
+        (id, history) -> nodeHistories.put(id, new History<>(history, Move::getLocation)));
+    locationHistories = new HashMap<>(locationMoves.size());
+    locationMoves.forEach(
+        (location, history) ->
+            locationHistories.put(location, new History<>(history, Move::getNode)));
+  }
+
+  /**
+   * Loads an index of every move from the database. This runs exactly one query
+   *
+   * @param session the session to load the moves with
+   * @return the loaded index
+   */
+  @NonNull
+  public static MoveIndex fromSession(@NonNull Session session) {
+    // Read the version first, so that a change committed while loading makes this stale
+    long version = GraphChangeBus.BUS.getVersion();
+
+    return new MoveIndex(session.createQuery("FROM Move", Move.class).getResultList(), version);
+  }
+
+  /**
+   * Gets the index for the current graph version, loading it only if the moves have changed since
+   * it was last loaded. Moves that are persisted but not committed yet aren't in it
+   *
+   * @param session the session to load the moves with, if they need to be loaded
+   * @return the current index
+   */
+  @NonNull
+  public static synchronized MoveIndex getCurrent(@NonNull Session session) {
+    if (current == null || !current.isCurrent()) {
+      current = fromSession(session);
+    }
+    return current;
+  }
+
+  /**
+   * Checks whether any changes have been published since the index was loaded
+   *
+   * @return true if the index is still current
+   */
+  public boolean isCurrent() {
+    return version == GraphChangeBus.BUS.getVersion();
+  }
+
+  /**
+   * Gets the node a location is in at a date, like LocationName.getCurrentNode
+   *
+   * @param location the location to look up
+   * @param date the date to look at
+   * @return the node the location is in, or null if it isn't in one
+   */
+  public Node getCurrentNode(@NonNull LocationName location, @NonNull Date date) {
+    History<Node> history = locationHistories.get(location);
+    if (history == null) {
+      return null; // Never moved anywhere
+    }
+
+    int latest = history.latest(date.getTime());
+    if (latest == history.dates.length) {
+      return null; // Hasn't moved anywhere yet
+    }
+
+    // It is only still there if it is one of the two most recent locations to move there
+    Node node = history.values.get(latest);
+    History<LocationName> nodeHistory = nodeHistories.get(node.getId());
+    int nodeLatest = nodeHistory.latest(date.getTime());
+    for (int i = nodeLatest; i < Math.min(nodeLatest + 2, nodeHistory.dates.length); i++) {
+      if (nodeHistory.values.get(i).equals(location)) {
+        return node;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Gets the locations in a node at a date, like Node.getCurrentLocation
+   *
+   * @param node the node to look up
+   * @param date the date to look at
+   * @return the locations in the node, most recent first. Empty if there are none
+   */
+  @NonNull
+  public List<LocationName> getCurrentLocation(@NonNull Node node, @NonNull Date date) {
+    History<LocationName> history = nodeHistories.get(node.getId());
+    if (history == null) {
+      return new ArrayList<>(); // Nothing ever moved here
+    }
+
+    // The two most recent locations, as long as they haven't since moved somewhere else
+    List<LocationName> locations = new ArrayList<>(2);
+    int latest = history.latest(date.getTime());
+    for (int i = latest; i < Math.min(latest + 2, history.dates.length); i++) {
+      LocationName location = history.values.get(i);
+      if (node.equals(getCurrentNode(location, date))) {
+        locations.add(location);
+      }
+    }
+
+    return locations;
+  }
+}
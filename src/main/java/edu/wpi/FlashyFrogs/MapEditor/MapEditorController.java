@@ -1918,11 +1918,9 @@ public class MapEditorController implements IController {
   private void quickDrawHandleNodeClick(@NonNull Node clickedNode) {
     // If we have a node to create an edge from
     if (lastQuickDrawNode != null) {
-      // Create the edge
-      Edge edge = new Edge(lastQuickDrawNode, clickedNode);
-
-      // Check to make sure this edge is unique
-      if (mapController.getMapSession().find(Edge.class, edge) == null) {
+      // Check to make sure this edge is unique, in either direction
+      if (!mapController.getEdgeIndex().contains(lastQuickDrawNode, clickedNode)) {
+        Edge edge = new Edge(lastQuickDrawNode, clickedNode); // Create the edge
         mapController.getMapSession().persist(edge); // Save the edge
 
         mapController.addEdge(edge); // Draw the edge
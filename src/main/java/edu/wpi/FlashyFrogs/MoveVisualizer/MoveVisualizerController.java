@@ -2,12 +2,14 @@ package edu.wpi.FlashyFrogs.MoveVisualizer;
 
 import edu.wpi.FlashyFrogs.Accounts.LoginController;
 import edu.wpi.FlashyFrogs.Fapp;
+import edu.wpi.FlashyFrogs.Map.MoveIndex;
 import edu.wpi.FlashyFrogs.ORM.Edge;
 import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Move;
 import edu.wpi.FlashyFrogs.ORM.Node;
 import edu.wpi.FlashyFrogs.PathFinding.AStar;
 import edu.wpi.FlashyFrogs.PathVisualizer.AbstractPathVisualizerController;
+import edu.wpi.FlashyFrogs.PathVisualizer.InstructionGenerator;
 import edu.wpi.FlashyFrogs.controllers.IController;
 import java.io.*;
 import java.net.URL;
@@ -365,6 +367,13 @@ public class MoveVisualizerController extends AbstractPathVisualizerController
                                 pathFinder.findPath(
                                     oldLocation, newValue.getNode(), false); // Save the path
 
+                            // Describe the path here, so the UI thread only has to show it
+                            List<Instruction> instructions =
+                                InstructionGenerator.generate(
+                                    currentPath,
+                                    MoveIndex.getCurrent(mapController.getMapSession()),
+                                    new Date());
+
                             colorFloor(); // Redraw
 
                             // In the UI thread
@@ -384,7 +393,7 @@ public class MoveVisualizerController extends AbstractPathVisualizerController
                                       currentPath.get(0).getXCoord(),
                                       currentPath.get(0).getYCoord());
 
-                                  drawTable(new Date()); // Draw the table
+                                  drawTable(instructions); // Draw the table
 
                                   selectedRow = -1; // Clear the selected row
 
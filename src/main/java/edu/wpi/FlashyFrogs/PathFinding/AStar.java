@@ -1,18 +1,28 @@
 package edu.wpi.FlashyFrogs.PathFinding;
 
-import static edu.wpi.FlashyFrogs.PathFinding.PathFinder.getNeighbors;
-
-import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Node;
-import java.time.Instant;
 import java.util.*;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.hibernate.Session;
 
 public class AStar implements IFindPath {
+  /** Estimate of the remaining cost from a node to the goal */
+  @FunctionalInterface
+  interface Heuristic {
+    /**
+     * Estimates the cost from a node to the goal. To find the shortest path, this must never be
+     * more than the actual cost
+     *
+     * @param node the index of the node
+     * @return the estimated cost from the node to the goal
+     */
+    double estimate(int node);
+  }
+
   /**
-   * Private method to find the path between two locations.
+   * Private method to find the path between two locations. Searches a snapshot of the graph taken
+   * from the session, so the database is only queried to load it
    *
    * @param start the start node
    * @param end the end node
@@ -27,72 +37,88 @@ public class AStar implements IFindPath {
 
     if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
 
-    PriorityQueue<PathFinder.NodeWrapper> openList =
-        new PriorityQueue<>(); // create priority queue for nodes to search
-    List<PathFinder.NodeWrapper> closedList =
-        new LinkedList<>(); // create list for nodes that have been visited
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the path between two nodes against a graph snapshot, without touching the database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    // The straight-line distance at the cheapest cost per unit of it is the lowest possible cost
+    double scale = model.getDistanceScale();
+    return search(
+        graph, startIndex, endIndex, model, (node) -> graph.distance(node, endIndex) * scale);
+  }
+
+  /**
+   * Runs A* between two nodes of a graph snapshot. Nodes are tracked purely by index: the open set
+   * is an indexed heap, so each node is in it at most once and improving a node decreases its key
+   * in place, and the closed set is a bit set
+   *
+   * @param graph the graph snapshot to search
+   * @param start the index of the start node
+   * @param goal the index of the goal node
+   * @param model the model to cost the arcs with
+   * @param heuristic the estimate of the remaining cost from each node to the goal
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  static List<Node> search(
+      @NonNull HospitalGraph graph,
+      int start,
+      int goal,
+      @NonNull EdgeCostModel model,
+      @NonNull Heuristic heuristic) {
+    int size = graph.size();
+    double[] costs = graph.arcCosts(model); // Cost of each arc
+    double[] gScores = new double[size]; // Lowest cost found from the start to each node
+    int[] parents = new int[size]; // Previous node on the lowest cost path to each node
+    BitSet closed = new BitSet(size); // Nodes whose lowest cost is final
+    IndexedMinHeap open = new IndexedMinHeap(size); // Nodes to visit, by estimated total cost
+    Arrays.fill(gScores, Double.POSITIVE_INFINITY);
 
-    openList.add(new PathFinder.NodeWrapper(start, null)); // add start node to open list
+    gScores[start] = 0;
+    parents[start] = -1;
+    open.insertOrDecrease(start, heuristic.estimate(start));
 
-    NODE_CHECK:
-    while (!openList.isEmpty()) { // while open list is not empty
-      PathFinder.NodeWrapper q = openList.poll(); // get node with the lowest estimated cost
+    while (!open.isEmpty()) {
+      int current = open.poll(); // Node with the lowest estimated total cost
 
-      for (PathFinder.NodeWrapper closed : closedList) {
-        if (closed.node.equals(q.node)) {
-          continue NODE_CHECK;
-        }
+      if (current == goal) {
+        return graph.walkParents(parents, start, goal); // Follow the path back from the goal
       }
 
-      if (q.node.equals(end)) { // if the current node is the goal
-        List<Node> path = new LinkedList<>(); // create list of nodes to represent the path
-        path.add(q.node); // add the end node
-        while (!q.node.equals(start)) { // follow the path backwards and add nodes in reverse order
-          q = q.parent;
-          path.add(q.node);
-        }
-        Collections.reverse(path); // reverse the path so that it is in the correct order
-        return path;
-      }
+      closed.set(current);
 
-      NODE_LOOP:
-      for (Node node : getNeighbors(q.node, session)) { // get the neighbors of the current node
-        PathFinder.NodeWrapper child =
-            new PathFinder.NodeWrapper(node, q); // create node wrapper out of current node
-        if (q.node.getFloor() != child.node.getFloor()) {
-          List<LocationName> locs =
-              child.node.getCurrentLocation(session, Date.from(Instant.now()));
-          if (locs.size() > 0
-              && locs.get(0).getLocationType().equals(LocationName.LocationType.ELEV)) {
-            child.g = q.g + 50; // cost for elevator
-          } else if (locs.size() > 0
-              && locs.get(0).getLocationType().equals(LocationName.LocationType.STAI)) {
-            if (accessible) continue;
-            child.g = q.g + 100; // cost for stairs
-          }
-        } else {
-          child.g = q.g + euclideanDistance(child.node, q.node); // calculate distance from start
-        }
-        child.h =
-            euclideanDistance(child.node, end); // calculate the lowest possible distance to end
-        child.f = child.g + child.h;
-
-        for (PathFinder.NodeWrapper open :
-            openList) { // check if node is on open list with a lower cost
-          if (open.node.equals(child.node) && open.f < child.f) {
-            continue NODE_LOOP;
-          }
-        }
+      // Check each neighbor of the current node
+      for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+        int neighbor = graph.arcTarget(arc);
+        double gScore = gScores[current] + costs[arc];
 
-        for (PathFinder.NodeWrapper closed :
-            closedList) { // check is node is on closed list ith lower cost
-          if (closed.node.equals(child.node) && closed.f < child.f) {
-            continue NODE_LOOP;
-          }
+        // Only keep going if this is the cheapest way to the neighbor yet, and it's allowed
+        if (!closed.get(neighbor) && gScore < gScores[neighbor]) {
+          gScores[neighbor] = gScore;
+          parents[neighbor] = current;
+          open.insertOrDecrease(neighbor, gScore + heuristic.estimate(neighbor));
         }
-        openList.add(child);
       }
-      closedList.add(q);
     }
     return null;
   }
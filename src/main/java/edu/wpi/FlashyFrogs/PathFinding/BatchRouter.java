@@ -0,0 +1,235 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Finds the costs between many locations at once. Instead of one search per pair, there is one
+ * shortest path tree per source, which gives the cost and route from it to every target at the
+ * same time. The trees are independent, so they are built in parallel
+ */
+public final class BatchRouter {
+  @NonNull private final HospitalGraph graph; // The graph to route in
+  @NonNull private final EdgeCostModel model; // How to cost each arc
+
+  /**
+   * Costs and first hops from a set of sources to a set of targets, stored densely by source row
+   * and target column
+   */
+  public static final class DistanceTable {
+    @Getter @NonNull private final HospitalGraph graph; // The graph the table is for
+    @Getter @NonNull private final List<LocationName> sources; // The sources, in row order
+    @Getter @NonNull private final List<LocationName> targets; // The targets, in column order
+    @NonNull private final Map<LocationName, Integer> rows; // Row of each source
+    @NonNull private final Map<LocationName, Integer> columns; // Column of each target
+    @NonNull private final double[] distances; // Cost from each source to each target
+    @NonNull private final int[] nextHops; // First hop from each source to each target, or -1
+    @NonNull private final int[][] parents; // Shortest path tree of each source, null if unplaced
+
+    /**
+     * Creates an empty table, with every cost infinite
+     *
+     * @param graph the graph the table is for
+     * @param sources the sources, in row order
+     * @param targets the targets, in column order
+     */
+    private DistanceTable(
+        @NonNull HospitalGraph graph,
+        @NonNull List<LocationName> sources,
+        @NonNull List<LocationName> targets) {
+      this.graph = graph;
+      this.sources = Collections.unmodifiableList(sources);
+      this.targets = Collections.unmodifiableList(targets);
+      rows = new HashMap<>(sources.size());
+      for (int row = 0; row < sources.size(); row++) {
+        rows.put(sources.get(row), row);
+      }
+      columns = new HashMap<>(targets.size());
+      for (int column = 0; column < targets.size(); column++) {
+        columns.put(targets.get(column), column);
+      }
+
+      distances = new double[sources.size() * targets.size()];
+      nextHops = new int[sources.size() * targets.size()];
+      parents = new int[sources.size()][];
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+      Arrays.fill(nextHops, -1);
+    }
+
+    /**
+     * Gets the cost from a source to a target by their positions in the table
+     *
+     * @param row the index of the source
+     * @param column the index of the target
+     * @return the cost of the shortest route, or positive infinity if there is none
+     */
+    public double getDistance(int row, int column) {
+      return distances[row * targets.size() + column];
+    }
+
+    /**
+     * Gets the cost from a source to a target
+     *
+     * @param source the source location
+     * @param target the target location
+     * @return the cost of the shortest route, or positive infinity if there is none or either
+     *     location isn't in the table
+     */
+    public double getDistance(@NonNull LocationName source, @NonNull LocationName target) {
+      Integer row = rows.get(source);
+      Integer column = columns.get(target);
+
+      if (row == null || column == null) {
+        return Double.POSITIVE_INFINITY; // Not in the table, so no route
+      }
+
+      return getDistance(row, column);
+    }
+
+    /**
+     * Gets the first hop on the shortest route from a source to a target
+     *
+     * @param source the source location
+     * @param target the target location
+     * @return the node after the source, the source itself if they are the same node, or null if
+     *     there is no route or either location isn't in the table
+     */
+    public Node getNextHop(@NonNull LocationName source, @NonNull LocationName target) {
+      Integer row = rows.get(source);
+      Integer column = columns.get(target);
+
+      if (row == null || column == null || nextHops[row * targets.size() + column] == -1) {
+        return null; // Not in the table or unreachable, so no route
+      }
+
+      return graph.getNode(nextHops[row * targets.size() + column]);
+    }
+
+    /**
+     * Gets the shortest route from a source to a target
+     *
+     * @param source the source location
+     * @param target the target location
+     * @return the route, or null if there is none or either location isn't in the table
+     */
+    public List<Node> getPath(@NonNull LocationName source, @NonNull LocationName target) {
+      if (getNextHop(source, target) == null) {
+        return null; // No route
+      }
+
+      return graph.walkParents(
+          parents[rows.get(source)], graph.indexOf(source), graph.indexOf(target));
+    }
+  }
+
+  /**
+   * Creates a batch router for a graph snapshot
+   *
+   * @param graph the graph to route in
+   * @param accessible whether routes must be accessible
+   */
+  public BatchRouter(@NonNull HospitalGraph graph, boolean accessible) {
+    this(graph, EdgeCostModel.forAccessible(accessible));
+  }
+
+  /**
+   * Creates a batch router for a graph snapshot that costs routes with a model, such as walking
+   * time instead of distance
+   *
+   * @param graph the graph to route in
+   * @param model the model to cost the arcs with
+   */
+  public BatchRouter(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model) {
+    this.graph = graph;
+    this.model = model;
+  }
+
+  /**
+   * Finds the costs from every source to every target, on the common pool
+   *
+   * @param sources the locations to route from, duplicates are only routed once
+   * @param targets the locations to route to, duplicates only get one column
+   * @return the table of costs. Locations that aren't on the map at the graphs date have no routes
+   */
+  @NonNull
+  public DistanceTable route(
+      @NonNull Collection<LocationName> sources, @NonNull Collection<LocationName> targets) {
+    return route(sources, targets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Finds the costs from every source to every target
+   *
+   * @param sources the locations to route from, duplicates are only routed once
+   * @param targets the locations to route to, duplicates only get one column
+   * @param pool the pool to build the trees on
+   * @return the table of costs. Locations that aren't on the map at the graphs date have no routes
+   */
+  @NonNull
+  public DistanceTable route(
+      @NonNull Collection<LocationName> sources,
+      @NonNull Collection<LocationName> targets,
+      @NonNull ForkJoinPool pool) {
+    DistanceTable table =
+        new DistanceTable(
+            graph,
+            new ArrayList<>(new LinkedHashSet<>(sources)),
+            new ArrayList<>(new LinkedHashSet<>(targets)));
+
+    int[] targetIndices = new int[table.targets.size()]; // Node holding each target, or -1
+    for (int column = 0; column < targetIndices.length; column++) {
+      targetIndices[column] = graph.indexOf(table.targets.get(column));
+    }
+
+    // Each tree fills in its own row, so they can be built independently
+    pool.submit(
+            () ->
+                IntStream.range(0, table.sources.size())
+                    .parallel()
+                    .forEach((row) -> fillRow(table, row, targetIndices)))
+        .join();
+
+    return table;
+  }
+
+  /**
+   * Fills one row of a table from the shortest path tree rooted at its source
+   *
+   * @param table the table to fill
+   * @param row the index of the source
+   * @param targetIndices the node holding each target, or -1
+   */
+  private void fillRow(@NonNull DistanceTable table, int row, @NonNull int[] targetIndices) {
+    int source = graph.indexOf(table.sources.get(row));
+    if (source == -1) {
+      return; // Not on the map, so it can't reach anything
+    }
+
+    double[] treeDistances = new double[graph.size()]; // Cost from the source to each node
+    int[] parents = new int[graph.size()]; // Previous node on the way from the source
+    new Dijkstra(graph).shortestPathTree(source, model, false, treeDistances, parents);
+    table.parents[row] = parents;
+
+    int offset = row * targetIndices.length; // Where the row starts
+    for (int column = 0; column < targetIndices.length; column++) {
+      int target = targetIndices[column];
+      if (target == -1 || treeDistances[target] == Double.POSITIVE_INFINITY) {
+        continue; // Not on the map, or can't be reached
+      }
+
+      // Walk back from the target until the node right after the source
+      int hop = target;
+      while (hop != source && parents[hop] != source) {
+        hop = parents[hop];
+      }
+
+      table.distances[offset + column] = treeDistances[target];
+      table.nextHops[offset + column] = hop;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.hibernate.Session;
+
+/**
+ * A* that searches from both ends at once, and stops once the two searches have met along a
+ * shortest path. Each side only has to grow part of the way, so fewer nodes are expanded than by a
+ * one-way search, which matters most for long routes. To make the two searches agree on what
+ * "closest" means, both use the average of the straight-line distances to the end and from the
+ * start as their potential, so that the forward and backward searches are really one search over
+ * the same reduced edge costs
+ */
+public class BidirectionalAStar implements IFindPath {
+  /**
+   * Private method to find the path between two locations. Searches a snapshot of the graph taken
+   * from the session, so the database is only queried to load it
+   *
+   * @param start the start node
+   * @param end the end node
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  @SneakyThrows
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull Boolean accessible,
+      @NonNull Session session) {
+
+    if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
+
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the path between two nodes against a graph snapshot, without touching the database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    int size = graph.size();
+    double scale = model.getDistanceScale(); // Cheapest cost per unit of straight-line distance
+    double[] forwardCosts = graph.arcCosts(model); // Cost along each arc
+    double[] backwardCosts = graph.reversedArcCosts(model); // Cost back along each arc
+    double[] forwardScores = new double[size]; // Lowest cost found from the start to each node
+    double[] backwardScores = new double[size]; // Lowest cost found from each node to the end
+    int[] forwardParents = new int[size]; // Previous node on the path from the start
+    int[] backwardParents = new int[size]; // Next node on the path to the end
+    IndexedMinHeap forward = new IndexedMinHeap(size); // Forward frontier, by key
+    IndexedMinHeap backward = new IndexedMinHeap(size); // Backward frontier, by key
+    Arrays.fill(forwardScores, Double.POSITIVE_INFINITY);
+    Arrays.fill(backwardScores, Double.POSITIVE_INFINITY);
+
+    forwardScores[startIndex] = 0;
+    forwardParents[startIndex] = -1;
+    forward.insertOrDecrease(startIndex, potential(graph, startIndex, startIndex, endIndex, scale));
+    backwardScores[endIndex] = 0;
+    backwardParents[endIndex] = -1;
+    backward.insertOrDecrease(endIndex, -potential(graph, endIndex, startIndex, endIndex, scale));
+
+    double best = startIndex == endIndex ? 0 : Double.POSITIVE_INFINITY; // Cheapest path found
+    int meeting = startIndex == endIndex ? startIndex : -1; // Where that path crosses over
+
+    // Once the frontiers together can't beat the best path, it is the shortest
+    while (!forward.isEmpty()
+        && !backward.isEmpty()
+        && forward.peekKey() + backward.peekKey() < best) {
+      // Grow whichever side has the closer frontier
+      if (forward.peekKey() <= backward.peekKey()) {
+        int current = forward.poll();
+
+        for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+          int neighbor = graph.arcTarget(arc);
+          double score = forwardScores[current] + forwardCosts[arc];
+
+          if (score < forwardScores[neighbor]) {
+            forwardScores[neighbor] = score;
+            forwardParents[neighbor] = current;
+            forward.insertOrDecrease(
+                neighbor, score + potential(graph, neighbor, startIndex, endIndex, scale));
+
+            // If the other side has been here, this is a full path
+            if (score + backwardScores[neighbor] < best) {
+              best = score + backwardScores[neighbor];
+              meeting = neighbor;
+            }
+          }
+        }
+      } else {
+        int current = backward.poll();
+
+        // Arcs are followed in reverse, so the cost is from the neighbor to the current node
+        for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+          int neighbor = graph.arcTarget(arc);
+          double score = backwardScores[current] + backwardCosts[arc];
+
+          if (score < backwardScores[neighbor]) {
+            backwardScores[neighbor] = score;
+            backwardParents[neighbor] = current;
+            backward.insertOrDecrease(
+                neighbor, score - potential(graph, neighbor, startIndex, endIndex, scale));
+
+            // If the other side has been here, this is a full path
+            if (score + forwardScores[neighbor] < best) {
+              best = score + forwardScores[neighbor];
+              meeting = neighbor;
+            }
+          }
+        }
+      }
+    }
+
+    if (meeting == -1) {
+      return null; // The searches never met
+    }
+
+    List<Node> path = graph.walkParents(forwardParents, startIndex, meeting); // Start to meeting
+    for (int next = backwardParents[meeting]; next != -1; next = backwardParents[next]) {
+      path.add(graph.getNode(next)); // Meeting to end
+    }
+    return path;
+  }
+
+  /**
+   * Gets the potential of a node for the forward search, the backward search uses the negation.
+   * This is half of how much closer the node is to the start than to the end, in a straight line
+   * scaled to the model's cheapest cost per unit of distance, so it is the same estimate from both
+   * sides
+   *
+   * @param graph the graph being searched
+   * @param node the index of the node
+   * @param start the index of the start node
+   * @param end the index of the end node
+   * @param scale the lowest cost per unit of straight-line distance
+   * @return the potential of the node
+   */
+  private static double potential(
+      @NonNull HospitalGraph graph, int node, int start, int end, double scale) {
+    return (graph.distance(node, end) - graph.distance(node, start)) * scale / 2;
+  }
+}
@@ -1,16 +1,24 @@
 package edu.wpi.FlashyFrogs.PathFinding;
 
 import edu.wpi.FlashyFrogs.ORM.Node;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.BitSet;
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.hibernate.Session;
 
 public class BreadthFirst implements IFindPath {
-
+  /**
+   * Finds the path with the fewest hops between two nodes. Searches a snapshot of the graph taken
+   * from the session, so the database is only queried to load it
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param accessible whether the path must be accessible, unused for breadth-first
+   * @param session the session to load the graph with
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
   @SneakyThrows
   public List<Node> findPath(
       @NonNull Node start,
@@ -20,51 +28,59 @@ public class BreadthFirst implements IFindPath {
 
     if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
 
-    List<PathFinder.NodeWrapper> queue = new LinkedList<>();
-    List<Node> nodeQueue = new LinkedList<>();
-    List<Node> visited = new LinkedList<>();
-    PathFinder.NodeWrapper currentNodeWrapper = new PathFinder.NodeWrapper(start, null);
-    queue.add(currentNodeWrapper);
-    nodeQueue.add(start);
-    while (!visited.contains(end) && !queue.isEmpty()) {
-      List<Node> neighbors =
-          PathFinder.getNeighbors(currentNodeWrapper.node, session).stream()
-              .collect(Collectors.toList());
-      for (Node node : neighbors) {
-        if (node.equals(end)) {
-          queue.clear();
-          nodeQueue.clear();
-          currentNodeWrapper = new PathFinder.NodeWrapper(node, currentNodeWrapper);
-          queue.add(currentNodeWrapper);
-          nodeQueue.add(node);
-          break;
-        } else if (!visited.contains(node)
-            && !nodeQueue.contains(node)
-            && !node.equals(
-                currentNodeWrapper
-                    .node)) { // if the node wasn't already visited and isn't already queued
-          queue.add(new PathFinder.NodeWrapper(node, currentNodeWrapper));
-          nodeQueue.add(node);
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the path with the fewest hops between two nodes against a graph snapshot, without
+   * touching the database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with, unused for breadth-first
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    // Every node is queued at most once, so the queue is just an array with a read and write end
+    int[] queue = new int[graph.size()]; // nodes to expand, in order
+    int head = 0; // next node to expand
+    int tail = 0; // where the next queued node goes
+    BitSet visited = new BitSet(graph.size()); // nodes that have been queued
+    int[] parents = new int[graph.size()]; // node each node was reached from
+    queue[tail++] = startIndex;
+    visited.set(startIndex);
+
+    while (!visited.get(endIndex) && head < tail) {
+      int current = queue[head++];
+
+      for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+        int neighbor = graph.arcTarget(arc);
+
+        if (!visited.get(neighbor)) { // if the node wasn't already queued
+          visited.set(neighbor);
+          parents[neighbor] = current;
+          queue[tail++] = neighbor;
         }
       }
-      visited.add(currentNodeWrapper.node);
-      queue.remove(currentNodeWrapper);
-      nodeQueue.remove(currentNodeWrapper.node);
-      if (!queue.isEmpty()) {
-        currentNodeWrapper = queue.get(0);
-      }
     }
-    List<Node> path = new LinkedList<>();
-    if (visited.contains(end)) {
-      while (currentNodeWrapper.parent != null) {
-        path.add(currentNodeWrapper.node);
-        currentNodeWrapper = currentNodeWrapper.parent;
-      }
-      path.add(start);
-      Collections.reverse(path);
-      return path;
+
+    if (!visited.get(endIndex)) {
+      return null; // we ended because the queue emptied, not because we found a path
     } else {
-      return null;
+      return graph.walkParents(parents, startIndex, endIndex);
     }
   }
 }
@@ -0,0 +1,61 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.hibernate.Session;
+
+/**
+ * Shortest paths from a contraction hierarchy. The hierarchy is built the first time a graph is
+ * searched, which takes much longer than a single search, but after that each search only looks at
+ * a few dozen nodes however big the hospital is. It is kept with the graph, so this is best for a
+ * graph that is searched many times
+ */
+public class ContractionHierarchies implements IFindPath {
+
+  /**
+   * Private method to find the path between two locations. Searches a snapshot of the graph taken
+   * from the session, so the database is only queried to load it
+   *
+   * @param start the start node
+   * @param end the end node
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  @SneakyThrows
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull Boolean accessible,
+      @NonNull Session session) {
+
+    if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
+
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the path between two nodes against a graph snapshot, without touching the database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    return graph.hierarchy(model).findPath(startIndex, endIndex);
+  }
+}
@@ -0,0 +1,489 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Contraction hierarchy over a graph snapshot, for answering shortest path queries without
+ * searching most of the graph. Preprocessing removes ("contracts") the nodes one at a time, least
+ * important first, adding a shortcut between two neighbors of the removed node whenever the only
+ * shortest way between them was through it. Importance is how many shortcuts removing a node would
+ * add compared to how many arcs it removes, so that nodes in quiet corners go first and busy
+ * hallway junctions last. A query then only ever moves towards more important nodes, from the start
+ * forwards and from the end backwards, and the two searches meet at the most important node of the
+ * shortest path. Both searches stay near the top of the hierarchy, so query time grows very slowly
+ * with the size of the graph. Costs can differ by direction, so arcs are kept for each direction
+ */
+final class ContractionHierarchy {
+  private static final int WITNESS_SETTLE_LIMIT = 64; // Most nodes a witness search settles
+
+  @Getter @NonNull private final HospitalGraph graph; // The graph the hierarchy is for
+  @Getter @NonNull private final EdgeCostModel model; // How the arcs are costed
+  @Getter private final int shortcutCount; // Number of shortcuts added
+
+  // Arcs to more important nodes, by the node they leave, for the forward search
+  @NonNull private final int[] upStart; // Start of each nodes arcs in the arrays below
+  @NonNull private final int[] upTarget; // The node each arc goes to
+  @NonNull private final double[] upCost; // The cost of each arc
+  @NonNull private final int[] upMiddle; // The node each shortcut skips, -1 for a graph arc
+
+  // Arcs from more important nodes, by the node they go to, for the backward search
+  @NonNull private final int[] downStart; // Start of each nodes arcs in the arrays below
+  @NonNull private final int[] downSource; // The node each arc comes from
+  @NonNull private final double[] downCost; // The cost of each arc
+  @NonNull private final int[] downMiddle; // The node each shortcut skips, -1 for a graph arc
+
+  // Search state, shared by every query so that a query only touches what it reaches
+  @NonNull private final double[] forwardScores; // Lowest cost found from the start to each node
+  @NonNull private final double[] backwardScores; // Lowest cost found from each node to the end
+  @NonNull private final int[] forwardParents; // Previous node on the way up from the start
+  @NonNull private final int[] backwardParents; // Next node on the way up from the end
+  @NonNull private final IndexedMinHeap forward; // Forward frontier, by cost
+  @NonNull private final IndexedMinHeap backward; // Backward frontier, by cost
+  @NonNull private final int[] reached; // Nodes either search reached, to reset the scores of
+  private int reachedCount; // Number of nodes reached
+
+  /**
+   * Builds the hierarchy for a graph
+   *
+   * @param graph the graph to build the hierarchy for
+   * @param model the model to cost the arcs with
+   */
+  ContractionHierarchy(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model) {
+    this.graph = graph;
+    this.model = model;
+    int size = graph.size();
+    Map<Long, Integer> middles = new HashMap<>(); // Node each shortcut skips, by its ends
+
+    // The remaining graph, as the arcs out of and into each node, which shrinks as nodes go
+    List<Map<Integer, Double>> out = new ArrayList<>(size);
+    List<Map<Integer, Double>> in = new ArrayList<>(size);
+    for (int node = 0; node < size; node++) {
+      out.add(new HashMap<>());
+      in.add(new HashMap<>());
+    }
+    double[] costs = graph.arcCosts(model); // Cost of each arc
+    for (int node = 0; node < size; node++) {
+      for (int arc = graph.arcsStart(node); arc < graph.arcsEnd(node); arc++) {
+        int target = graph.arcTarget(arc);
+        double cost = costs[arc];
+
+        // Arcs that can never be taken can be left out entirely
+        if (cost != Double.POSITIVE_INFINITY) {
+          out.get(node).put(target, cost);
+          in.get(target).put(node, cost);
+        }
+      }
+    }
+
+    // Contract the least important node until none are left
+    WitnessSearch witnessSearch = new WitnessSearch(out, size);
+    int[] contractedNeighbors = new int[size]; // Neighbors of each node that are gone
+    IndexedMinHeap queue = new IndexedMinHeap(size); // Remaining nodes, by importance
+    for (int node = 0; node < size; node++) {
+      queue.insertOrDecrease(
+          node, importance(node, out, in, contractedNeighbors, witnessSearch, middles));
+    }
+
+    // The arcs left at each node when it is contracted only go to more important nodes
+    List<Map<Integer, Double>> up = new ArrayList<>(Collections.nCopies(size, null));
+    List<Map<Integer, Double>> down = new ArrayList<>(Collections.nCopies(size, null));
+    int shortcuts = 0; // Shortcuts added so far
+
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+
+      // Importance changes as neighbors go, so only contract it if it is still the least
+      double importance = importance(node, out, in, contractedNeighbors, witnessSearch, middles);
+      if (!queue.isEmpty() && importance > queue.peekKey()) {
+        queue.insertOrDecrease(node, importance);
+        continue;
+      }
+
+      up.set(node, out.get(node));
+      down.set(node, in.get(node));
+      shortcuts += contract(node, out, in, witnessSearch, middles, false);
+
+      // Take the node out of the remaining graph
+      for (int neighbor : out.get(node).keySet()) {
+        in.get(neighbor).remove(node);
+        contractedNeighbors[neighbor]++;
+      }
+      for (int neighbor : in.get(node).keySet()) {
+        out.get(neighbor).remove(node);
+        contractedNeighbors[neighbor]++;
+      }
+    }
+    this.shortcutCount = shortcuts;
+
+    // Flatten the arcs into arrays, like the graph itself
+    upStart = new int[size + 1];
+    downStart = new int[size + 1];
+    for (int node = 0; node < size; node++) {
+      upStart[node + 1] = upStart[node] + up.get(node).size();
+      downStart[node + 1] = downStart[node] + down.get(node).size();
+    }
+    upTarget = new int[upStart[size]];
+    upCost = new double[upStart[size]];
+    upMiddle = new int[upStart[size]];
+    downSource = new int[downStart[size]];
+    downCost = new double[downStart[size]];
+    downMiddle = new int[downStart[size]];
+    for (int node = 0; node < size; node++) {
+      int arc = upStart[node];
+      for (Map.Entry<Integer, Double> entry : up.get(node).entrySet()) {
+        upTarget[arc] = entry.getKey();
+        upCost[arc] = entry.getValue();
+        upMiddle[arc++] = middles.getOrDefault(key(node, entry.getKey()), -1);
+      }
+
+      arc = downStart[node];
+      for (Map.Entry<Integer, Double> entry : down.get(node).entrySet()) {
+        downSource[arc] = entry.getKey();
+        downCost[arc] = entry.getValue();
+        downMiddle[arc++] = middles.getOrDefault(key(entry.getKey(), node), -1);
+      }
+    }
+
+    forwardScores = new double[size];
+    backwardScores = new double[size];
+    forwardParents = new int[size];
+    backwardParents = new int[size];
+    forward = new IndexedMinHeap(size);
+    backward = new IndexedMinHeap(size);
+    reached = new int[2 * size]; // Each search can reach every node
+    Arrays.fill(forwardScores, Double.POSITIVE_INFINITY);
+    Arrays.fill(backwardScores, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Gets how important a node is, lower is contracted first. This is the number of shortcuts
+   * contracting it would add, less the number of arcs it would remove, plus the number of its
+   * neighbors that are already gone so that contraction spreads evenly over the graph
+   *
+   * @param node the node to get the importance of
+   * @param out the arcs out of each remaining node
+   * @param in the arcs into each remaining node
+   * @param contractedNeighbors the number of neighbors of each node that are gone
+   * @param witnessSearch the search to look for witnesses with
+   * @param middles the node each shortcut skips, by its ends
+   * @return the importance of the node
+   */
+  private double importance(
+      int node,
+      @NonNull List<Map<Integer, Double>> out,
+      @NonNull List<Map<Integer, Double>> in,
+      @NonNull int[] contractedNeighbors,
+      @NonNull WitnessSearch witnessSearch,
+      @NonNull Map<Long, Integer> middles) {
+    int shortcuts = contract(node, out, in, witnessSearch, middles, true);
+    return shortcuts - out.get(node).size() - in.get(node).size() + contractedNeighbors[node];
+  }
+
+  /**
+   * Adds the shortcuts needed to contract a node. A shortcut from one neighbor to another is needed
+   * unless there is a way between them that avoids the node and is no more expensive (a witness)
+   *
+   * @param node the node to contract
+   * @param out the arcs out of each remaining node
+   * @param in the arcs into each remaining node
+   * @param witnessSearch the search to look for witnesses with
+   * @param middles the node each shortcut skips, by its ends, which new shortcuts are added to
+   * @param simulate if true, only count the shortcuts without adding them
+   * @return the number of shortcuts needed
+   */
+  private int contract(
+      int node,
+      @NonNull List<Map<Integer, Double>> out,
+      @NonNull List<Map<Integer, Double>> in,
+      @NonNull WitnessSearch witnessSearch,
+      @NonNull Map<Long, Integer> middles,
+      boolean simulate) {
+    Map<Integer, Double> targets = out.get(node); // Where the node leads
+    if (targets.isEmpty()) {
+      return 0;
+    }
+    double maxOut = Collections.max(targets.values()); // Most expensive arc out of the node
+
+    int shortcuts = 0; // Shortcuts needed so far
+    for (Map.Entry<Integer, Double> source : in.get(node).entrySet()) {
+      int from = source.getKey();
+      witnessSearch.search(from, node, source.getValue() + maxOut);
+
+      for (Map.Entry<Integer, Double> target : targets.entrySet()) {
+        int to = target.getKey();
+        double viaNode = source.getValue() + target.getValue(); // Cost through the node
+
+        if (from == to || witnessSearch.distance(to) <= viaNode) {
+          continue; // There is a way around, or it would be a loop
+        }
+
+        shortcuts++;
+        if (!simulate && viaNode < out.get(from).getOrDefault(to, Double.POSITIVE_INFINITY)) {
+          out.get(from).put(to, viaNode);
+          in.get(to).put(from, viaNode);
+          middles.put(key(from, to), node);
+        }
+      }
+    }
+
+    return shortcuts;
+  }
+
+  /**
+   * Gets the key of an arc, for looking up shortcuts while building
+   *
+   * @param from the index of the node the arc leaves
+   * @param to the index of the node the arc goes to
+   * @return the key of the arc
+   */
+  private long key(int from, int to) {
+    return (long) from * graph.size() + to;
+  }
+
+  /**
+   * Finds the shortest path between two nodes, by searching up the hierarchy from both ends.
+   * Queries share the search state, so only one runs at a time
+   *
+   * @param start the index of the start node
+   * @param end the index of the end node
+   * @return the path (as a list) between the two nodes, or null if there is no path
+   */
+  synchronized List<Node> findPath(int start, int end) {
+    // Reset what the last query reached
+    for (int i = 0; i < reachedCount; i++) {
+      forwardScores[reached[i]] = Double.POSITIVE_INFINITY;
+      backwardScores[reached[i]] = Double.POSITIVE_INFINITY;
+    }
+    forward.clear();
+    backward.clear();
+    reached[0] = start;
+    reached[1] = end;
+    reachedCount = 2;
+
+    forwardScores[start] = 0;
+    forwardParents[start] = -1;
+    forward.insertOrDecrease(start, 0);
+    backwardScores[end] = 0;
+    backwardParents[end] = -1;
+    backward.insertOrDecrease(end, 0);
+
+    double best = Double.POSITIVE_INFINITY; // Cheapest path found
+    int meeting = -1; // The top of that path
+
+    // Each side can stop once it can't find anything cheaper than the best path
+    while ((!forward.isEmpty() && forward.peekKey() < best)
+        || (!backward.isEmpty() && backward.peekKey() < best)) {
+      boolean forwardTurn =
+          backward.isEmpty()
+              || backward.peekKey() >= best
+              || (!forward.isEmpty() && forward.peekKey() <= backward.peekKey());
+
+      if (forwardTurn) {
+        int current = forward.poll();
+        if (forwardScores[current] + backwardScores[current] < best) {
+          best = forwardScores[current] + backwardScores[current];
+          meeting = current;
+        }
+        if (stalled(current, forwardScores, downStart, downSource, downCost)) {
+          continue;
+        }
+
+        for (int arc = upStart[current]; arc < upStart[current + 1]; arc++) {
+          double score = forwardScores[current] + upCost[arc];
+          if (score < forwardScores[upTarget[arc]]) {
+            if (forwardScores[upTarget[arc]] == Double.POSITIVE_INFINITY) {
+              reached[reachedCount++] = upTarget[arc];
+            }
+            forwardScores[upTarget[arc]] = score;
+            forwardParents[upTarget[arc]] = current;
+            forward.insertOrDecrease(upTarget[arc], score);
+          }
+        }
+      } else {
+        int current = backward.poll();
+        if (forwardScores[current] + backwardScores[current] < best) {
+          best = forwardScores[current] + backwardScores[current];
+          meeting = current;
+        }
+        if (stalled(current, backwardScores, upStart, upTarget, upCost)) {
+          continue;
+        }
+
+        for (int arc = downStart[current]; arc < downStart[current + 1]; arc++) {
+          double score = backwardScores[current] + downCost[arc];
+          if (score < backwardScores[downSource[arc]]) {
+            if (backwardScores[downSource[arc]] == Double.POSITIVE_INFINITY) {
+              reached[reachedCount++] = downSource[arc];
+            }
+            backwardScores[downSource[arc]] = score;
+            backwardParents[downSource[arc]] = current;
+            backward.insertOrDecrease(downSource[arc], score);
+          }
+        }
+      }
+    }
+
+    if (meeting == -1) {
+      return null; // The searches never met
+    }
+
+    // The nodes on the way up from the start, then on the way down to the end
+    List<Integer> tops = new ArrayList<>(); // Path through the hierarchy, with shortcuts
+    for (int node = meeting; node != -1; node = forwardParents[node]) {
+      tops.add(node);
+    }
+    Collections.reverse(tops);
+    for (int node = backwardParents[meeting]; node != -1; node = backwardParents[node]) {
+      tops.add(node);
+    }
+
+    // Replace each shortcut with the arcs it skips
+    List<Node> path = new ArrayList<>();
+    path.add(graph.getNode(start));
+    Deque<Integer> pending = new ArrayDeque<>(); // Nodes still to reach, next first
+    for (int i = 1; i < tops.size(); i++) {
+      int current = tops.get(i - 1); // Last node added to the path
+      pending.push(tops.get(i));
+
+      while (!pending.isEmpty()) {
+        int middle = middle(current, pending.peek());
+        if (middle == -1) {
+          current = pending.pop(); // An arc of the graph, so take it
+          path.add(graph.getNode(current));
+        } else {
+          pending.push(middle); // A shortcut, so get to the node it skips first
+        }
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * Checks whether a node reached by one search can be reached more cheaply through a more
+   * important node that search has already reached. If so, it isn't on a shortest path up the
+   * hierarchy, so there is no need to search on from it
+   *
+   * @param node the node to check
+   * @param scores the lowest cost the search has found to each node
+   * @param start the start of each nodes arcs from more important nodes, in that direction
+   * @param neighbors the more important node at the other end of each arc
+   * @param costs the cost of each arc
+   * @return true if the node can be reached more cheaply
+   */
+  private static boolean stalled(
+      int node,
+      @NonNull double[] scores,
+      @NonNull int[] start,
+      @NonNull int[] neighbors,
+      @NonNull double[] costs) {
+    for (int arc = start[node]; arc < start[node + 1]; arc++) {
+      if (scores[neighbors[arc]] + costs[arc] < scores[node]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the node a shortcut skips. Of the two ends of every arc in the hierarchy, it is kept with
+   * the less important one
+   *
+   * @param from the index of the node the arc leaves
+   * @param to the index of the node the arc goes to
+   * @return the node the arc skips, or -1 if it is an arc of the graph
+   */
+  private int middle(int from, int to) {
+    for (int arc = upStart[from]; arc < upStart[from + 1]; arc++) {
+      if (upTarget[arc] == to) {
+        return upMiddle[arc];
+      }
+    }
+    for (int arc = downStart[to]; arc < downStart[to + 1]; arc++) {
+      if (downSource[arc] == from) {
+        return downMiddle[arc];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Bounded Dijkstra search over the remaining graph, looking for ways between the neighbors of a
+   * node being contracted that avoid it. Gives up after settling a few nodes, which can only add
+   * shortcuts that aren't needed, never leave out one that is
+   */
+  private static final class WitnessSearch {
+    @NonNull private final List<Map<Integer, Double>> out; // The arcs out of each remaining node
+    @NonNull private final double[] distances; // Cost from the source to each node reached
+    @NonNull private final IndexedMinHeap open; // Nodes to settle, by cost
+    @NonNull private final int[] reached; // Nodes reached, to reset the distances of
+    private int reachedCount; // Number of nodes reached
+
+    /**
+     * Creates a witness search over the remaining graph
+     *
+     * @param out the arcs out of each remaining node, which is kept up to date
+     * @param size the number of nodes in the graph
+     */
+    private WitnessSearch(@NonNull List<Map<Integer, Double>> out, int size) {
+      this.out = out;
+      distances = new double[size];
+      open = new IndexedMinHeap(size);
+      reached = new int[size];
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Searches from a source, avoiding a node, up to a maximum cost
+     *
+     * @param source the index of the node to search from
+     * @param avoid the index of the node to avoid
+     * @param maxCost the most a path can cost and still matter
+     */
+    private void search(int source, int avoid, double maxCost) {
+      // Reset the last search
+      for (int i = 0; i < reachedCount; i++) {
+        distances[reached[i]] = Double.POSITIVE_INFINITY;
+      }
+      open.clear();
+
+      distances[source] = 0;
+      reached[0] = source;
+      reachedCount = 1;
+      open.insertOrDecrease(source, 0);
+
+      for (int settled = 0; !open.isEmpty() && settled < WITNESS_SETTLE_LIMIT; settled++) {
+        int current = open.poll();
+        if (distances[current] > maxCost) {
+          break; // Nothing left can be a witness
+        }
+
+        for (Map.Entry<Integer, Double> arc : out.get(current).entrySet()) {
+          int neighbor = arc.getKey();
+          double distance = distances[current] + arc.getValue();
+
+          if (neighbor != avoid && distance < distances[neighbor]) {
+            if (distances[neighbor] == Double.POSITIVE_INFINITY) {
+              reached[reachedCount++] = neighbor;
+            }
+            distances[neighbor] = distance;
+            open.insertOrDecrease(neighbor, distance);
+          }
+        }
+      }
+    }
+
+    /**
+     * Gets the cost of the cheapest path found to a node by the last search
+     *
+     * @param node the index of the node
+     * @return the cost, or positive infinity if no path was found
+     */
+    private double distance(int node) {
+      return distances[node];
+    }
+  }
+}
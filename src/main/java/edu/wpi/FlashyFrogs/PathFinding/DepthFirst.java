@@ -1,17 +1,25 @@
 package edu.wpi.FlashyFrogs.PathFinding;
 
-import static edu.wpi.FlashyFrogs.PathFinding.PathFinder.getNeighbors;
-
 import edu.wpi.FlashyFrogs.ORM.Node;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
 import java.util.List;
-import java.util.Stack;
-import java.util.stream.Collectors;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.hibernate.Session;
 
 public class DepthFirst implements IFindPath {
+  /**
+   * Finds a path between two nodes depth-first. Searches a snapshot of the graph taken from the
+   * session, so the database is only queried to load it
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param accessible whether the path must be accessible, unused for depth-first
+   * @param session the session to load the graph with
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
   @SneakyThrows
   public List<Node> findPath(
       @NonNull Node start,
@@ -21,32 +29,70 @@ public class DepthFirst implements IFindPath {
 
     if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
 
-    Stack<Node> stack = new Stack<>(); // create stack
-    List<Node> visited = new LinkedList<>(); // create list for nodes that have been visited
-    stack.push(start); // push start node to stack
-    visited.add(
-        start); // mark start node as visited: so the while loop won't bother executing if start
-    // node is destination node
-    while (!visited.contains(end) && !stack.isEmpty()) {
-      List<Node> neighbors =
-          getNeighbors(stack.peek(), session).stream().collect(Collectors.toList());
-      boolean noUnvisitedVerticesReachable = true;
-      for (Node node : neighbors) {
-        if (!visited.contains(node)) { // if the node wasn't already visited
-          noUnvisitedVerticesReachable = false;
-          stack.push(node);
-          visited.add(node);
-          break;
-        }
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds a path between two nodes depth-first against a graph snapshot, without touching the
+   * database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with, unused for depth-first
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    // Every node is pushed at most once, so the stack is just an array. Each entry remembers the
+    // next arc to try, so a node's arcs are only ever looked at once
+    int[] stack = new int[graph.size()]; // the path to the current node
+    int[] cursors = new int[graph.size()]; // next arc to try for each node on the stack
+    int depth = 0; // number of nodes on the stack
+    BitSet visited = new BitSet(graph.size()); // nodes that have been visited
+    stack[depth] = startIndex; // push start node to stack
+    cursors[depth++] = graph.arcsStart(startIndex);
+    visited.set(startIndex); // mark start node as visited
+
+    while (!visited.get(endIndex) && depth > 0) {
+      int current = stack[depth - 1];
+
+      // Skip past the neighbors that were already visited
+      int arc = cursors[depth - 1];
+      while (arc < graph.arcsEnd(current) && visited.get(graph.arcTarget(arc))) {
+        arc++;
       }
-      if (noUnvisitedVerticesReachable) {
-        stack.pop();
+
+      if (arc == graph.arcsEnd(current)) {
+        depth--; // no unvisited vertices reachable, so back up
+      } else {
+        int neighbor = graph.arcTarget(arc);
+        cursors[depth - 1] = arc + 1; // pick up after this neighbor when we come back
+        stack[depth] = neighbor;
+        cursors[depth++] = graph.arcsStart(neighbor);
+        visited.set(neighbor);
       }
     }
-    if (!visited.contains(end)) { // we ended because stack empty, not because we found a path
+
+    if (!visited.get(endIndex)) { // we ended because stack empty, not because we found a path
       return null;
     } else {
-      return stack.stream().collect(Collectors.toList());
+      List<Node> path = new ArrayList<>(depth);
+      for (int i = 0; i < depth; i++) {
+        path.add(graph.getNode(stack[i]));
+      }
+      return path;
     }
   }
 }
@@ -0,0 +1,175 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import lombok.NonNull;
+
+/**
+ * Dijkstra's algorithm over a graph snapshot, building the full shortest path tree from a single
+ * source. Uses an indexed heap with decrease-key, so each node is in the heap at most once
+ */
+public final class Dijkstra {
+  @NonNull private final HospitalGraph graph; // The graph to search
+  @NonNull private final IndexedMinHeap heap; // Reused between runs
+
+  /** Cost of travelling directly between two adjacent nodes */
+  @FunctionalInterface
+  public interface ArcCost {
+    /**
+     * Gets the cost of travelling directly between two adjacent nodes
+     *
+     * @param from the index of the node to travel from
+     * @param to the index of the node to travel to
+     * @return the cost, positive infinity if the move is not allowed
+     */
+    double cost(int from, int to);
+  }
+
+  /**
+   * Creates a Dijkstra runner for a graph. The runner keeps scratch space between runs, so it
+   * should not be shared between threads
+   *
+   * @param graph the graph to search
+   */
+  public Dijkstra(@NonNull HospitalGraph graph) {
+    this.graph = graph;
+    this.heap = new IndexedMinHeap(graph.size());
+  }
+
+  /**
+   * Builds the shortest path tree from a source. Since edges are undirected, if the costs are
+   * symmetric, following the parents from any node walks the shortest path back to the source
+   *
+   * @param source the index of the source node
+   * @param arcCost the cost of each arc
+   * @param distances filled with the cost from the source to each node, infinity if unreachable
+   * @param parents filled with the previous node on the path from the source to each node, -1 for
+   *     the source and unreachable nodes
+   */
+  public void shortestPathTree(
+      int source, @NonNull ArcCost arcCost, @NonNull double[] distances, @NonNull int[] parents) {
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(parents, -1);
+    heap.clear();
+
+    distances[source] = 0;
+    heap.insertOrDecrease(source, 0);
+
+    while (!heap.isEmpty()) {
+      int current = heap.poll(); // Closest unsettled node, its distance is now final
+
+      for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+        int neighbor = graph.arcTarget(arc);
+        double distance = distances[current] + arcCost.cost(current, neighbor);
+
+        // If this is a shorter way to the neighbor, use it
+        if (distance < distances[neighbor]) {
+          distances[neighbor] = distance;
+          parents[neighbor] = current;
+          heap.insertOrDecrease(neighbor, distance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the shortest path tree from a source, reading the costs the graph precomputed for a
+   * model instead of working each one out
+   *
+   * @param source the index of the source node
+   * @param model the model to cost the arcs with
+   * @param reversed whether to cost each arc backwards, so that the tree holds the cost from each
+   *     node to the source instead of from the source to each node
+   * @param distances filled with the cost from the source to each node, infinity if unreachable
+   * @param parents filled with the previous node on the path from the source to each node, -1 for
+   *     the source and unreachable nodes
+   */
+  public void shortestPathTree(
+      int source,
+      @NonNull EdgeCostModel model,
+      boolean reversed,
+      @NonNull double[] distances,
+      @NonNull int[] parents) {
+    double[] costs = reversed ? graph.reversedArcCosts(model) : graph.arcCosts(model);
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(parents, -1);
+    heap.clear();
+
+    distances[source] = 0;
+    heap.insertOrDecrease(source, 0);
+
+    while (!heap.isEmpty()) {
+      int current = heap.poll(); // Closest unsettled node, its distance is now final
+
+      for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+        int neighbor = graph.arcTarget(arc);
+        double distance = distances[current] + costs[arc];
+
+        // If this is a shorter way to the neighbor, use it
+        if (distance < distances[neighbor]) {
+          distances[neighbor] = distance;
+          parents[neighbor] = current;
+          heap.insertOrDecrease(neighbor, distance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Repairs a shortest path tree after arcs were removed from the graph. Only the invalid nodes,
+   * those whose path to the source went through a removed arc, are searched again. Each one starts
+   * from its cheapest valid neighbor, and the search only spreads between invalid nodes, since the
+   * valid ones can't have gotten any cheaper
+   *
+   * @param invalid the nodes whose distances and parents are no longer valid
+   * @param arcCost the cost of each arc
+   * @param distances the cost from the source to each node, correct for every valid node. Filled in
+   *     for the invalid nodes, infinity if they are no longer reachable
+   * @param parents the previous node on the path from the source to each node, correct for every
+   *     valid node. Filled in for the invalid nodes, -1 if they are no longer reachable
+   */
+  public void repairTree(
+      @NonNull BitSet invalid,
+      @NonNull ArcCost arcCost,
+      @NonNull double[] distances,
+      @NonNull int[] parents) {
+    heap.clear();
+
+    // Start each invalid node from its cheapest valid neighbor
+    for (int node = invalid.nextSetBit(0); node != -1; node = invalid.nextSetBit(node + 1)) {
+      distances[node] = Double.POSITIVE_INFINITY;
+      parents[node] = -1;
+
+      for (int arc = graph.arcsStart(node); arc < graph.arcsEnd(node); arc++) {
+        int neighbor = graph.arcTarget(arc);
+        double distance = distances[neighbor] + arcCost.cost(neighbor, node);
+
+        if (!invalid.get(neighbor) && distance < distances[node]) {
+          distances[node] = distance;
+          parents[node] = neighbor;
+        }
+      }
+
+      // Only search from nodes that are still reachable
+      if (distances[node] != Double.POSITIVE_INFINITY) {
+        heap.insertOrDecrease(node, distances[node]);
+      }
+    }
+
+    while (!heap.isEmpty()) {
+      int current = heap.poll(); // Closest unsettled node, its distance is now final
+
+      for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+        int neighbor = graph.arcTarget(arc);
+        double distance = distances[current] + arcCost.cost(current, neighbor);
+
+        // If this is a shorter way to an invalid neighbor, use it
+        if (invalid.get(neighbor) && distance < distances[neighbor]) {
+          distances[neighbor] = distance;
+          parents[neighbor] = current;
+          heap.insertOrDecrease(neighbor, distance);
+        }
+      }
+    }
+  }
+}
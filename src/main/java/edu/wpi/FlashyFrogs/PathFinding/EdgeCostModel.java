@@ -0,0 +1,117 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import lombok.NonNull;
+
+/**
+ * The ways of weighing each arc of the graph. A graph snapshot computes the weight of every arc
+ * once per model, the first time it is used, so searches only read an array instead of working out
+ * floors, location types, and square roots on every expansion
+ */
+public enum EdgeCostModel {
+  /** Distance on each floor, with fixed costs for taking an elevator or the stairs */
+  STANDARD(1) {
+    @Override
+    public double cost(@NonNull HospitalGraph graph, int from, int to) {
+      return floorChangeCost(graph, from, to, ELEVATOR_COST, STAIRS_COST);
+    }
+  },
+
+  /** Like the standard model, but the stairs can't be taken */
+  ACCESSIBLE(1) {
+    @Override
+    public double cost(@NonNull HospitalGraph graph, int from, int to) {
+      return floorChangeCost(graph, from, to, ELEVATOR_COST, Double.POSITIVE_INFINITY);
+    }
+  },
+
+  /** Straight-line distance only, floor changes included */
+  DISTANCE(1) {
+    @Override
+    public double cost(@NonNull HospitalGraph graph, int from, int to) {
+      return graph.distance(from, to);
+    }
+  },
+
+  /** Estimated walking time in seconds, including waiting for and riding elevators */
+  WALKING_TIME(1 / EdgeCostModel.WALKING_SPEED) {
+    @Override
+    public double cost(@NonNull HospitalGraph graph, int from, int to) {
+      return floorChangeCost(graph, from, to, ELEVATOR_SECONDS, STAIRS_SECONDS);
+    }
+  };
+
+  private static final double ELEVATOR_COST = 50; // Cost for elevator
+  private static final double STAIRS_COST = 100; // Cost for stairs
+  private static final double WALKING_SPEED = 20; // Map units walked per second, an estimate
+  private static final double ELEVATOR_SECONDS = 60; // Waiting for and riding an elevator
+  private static final double STAIRS_SECONDS = 30; // Walking a flight of stairs
+
+  private final double distanceScale; // Lowest cost per unit of straight-line distance
+
+  /**
+   * Creates a model
+   *
+   * @param distanceScale the lowest cost per unit of straight-line distance
+   */
+  EdgeCostModel(double distanceScale) {
+    this.distanceScale = distanceScale;
+  }
+
+  /**
+   * Gets the cost of travelling from one node directly to an adjacent one under this model
+   *
+   * @param graph the graph the nodes are in
+   * @param from the index of the node to travel from
+   * @param to the index of the node to travel to
+   * @return the cost of the move, or positive infinity if it is not allowed
+   */
+  public abstract double cost(@NonNull HospitalGraph graph, int from, int to);
+
+  /**
+   * Gets the lowest cost per unit of straight-line distance on the same floor. The distance to the
+   * goal scaled by this is the A* heuristic
+   *
+   * @return the lowest cost per unit of distance
+   */
+  public double getDistanceScale() {
+    return distanceScale;
+  }
+
+  /**
+   * Gets the model used for routes that do or don't have to be accessible
+   *
+   * @param accessible whether the route must be accessible
+   * @return the accessible model if it must be, the standard model otherwise
+   */
+  @NonNull
+  public static EdgeCostModel forAccessible(boolean accessible) {
+    return accessible ? ACCESSIBLE : STANDARD;
+  }
+
+  /**
+   * Gets the cost of an arc that is the scaled distance on a floor, or a fixed cost to change
+   * floors. Floor changes to anything but an elevator or the stairs cost their scaled distance
+   *
+   * @param graph the graph the nodes are in
+   * @param from the index of the node to travel from
+   * @param to the index of the node to travel to
+   * @param elevator the cost of changing floors by elevator
+   * @param stairs the cost of changing floors by stairs
+   * @return the cost of the arc
+   */
+  double floorChangeCost(
+      @NonNull HospitalGraph graph, int from, int to, double elevator, double stairs) {
+    if (graph.getFloor(from) != graph.getFloor(to)) {
+      LocationName.LocationType type = graph.getLocationType(to);
+
+      if (type == LocationName.LocationType.ELEV) {
+        return elevator;
+      } else if (type == LocationName.LocationType.STAI) {
+        return stairs;
+      }
+    }
+
+    return graph.distance(from, to) * distanceScale; // Exact for a scale of 1
+  }
+}
@@ -0,0 +1,545 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.Map.GraphChangeBus;
+import edu.wpi.FlashyFrogs.Map.MoveIndex;
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.NonNull;
+import org.hibernate.Session;
+
+/**
+ * Immutable, in-memory snapshot of the hospital graph. Nodes are mapped to dense integer indices,
+ * and the adjacency is stored in compressed sparse row (CSR) form, so that the neighbors of node i
+ * are the arc targets in [arcsStart(i), arcsEnd(i)). Coordinates, floors, and the location each
+ * node holds at the snapshot date are precomputed, so that path finding against the snapshot never
+ * needs to touch the database
+ */
+public final class HospitalGraph {
+  @NonNull private final Node[] nodes; // Index to node
+  @NonNull private final Map<String, Integer> idToIndex; // Node ID to index
+  @NonNull private final int[] xCoords; // X-Coordinate for each node
+  @NonNull private final int[] yCoords; // Y-Coordinate for each node
+  @NonNull private final Node.Floor[] floors; // Floor for each node
+  @NonNull private final LocationName[] locations; // Location each node holds, may contain nulls
+  @NonNull private final Map<LocationName, Integer> locationToIndex; // Location to holding node
+  @NonNull private final BitSet nonHallwayHosts; // Nodes that have ever held a non-hallway
+  @NonNull private final int[] arcStarts; // Start of each nodes arcs, n + 1 long
+  @NonNull private final int[] arcTargets; // Target of each arc
+  @NonNull private final int[] reverseArcs; // The arc going the other way, for each arc
+  @NonNull private final double[][] arcCosts; // Cost of each arc by model, null until used
+  @NonNull private final double[][] reversedArcCosts; // Cost back along each arc, by model
+  @NonNull private final Landmarks[] landmarks; // Landmarks by model, null until used
+  @NonNull private final ContractionHierarchy[] hierarchies; // Same, for contraction hierarchies
+  @NonNull private final Date date; // Date the locations were resolved at
+  private final long version; // Graph version the snapshot was taken at
+
+  /**
+   * Creates a snapshot from the given nodes, edges, and moves. Edges are treated as undirected, and
+   * self-referential or duplicate edges are ignored. Edges referencing nodes that are not in the
+   * node collection are ignored as well
+   *
+   * @param nodes the nodes in the graph
+   * @param edges the edges in the graph
+   * @param moves the moves, used to determine the location each node holds at the given date
+   * @param date the date to resolve the locations at
+   */
+  public HospitalGraph(
+      @NonNull Collection<Node> nodes,
+      @NonNull Collection<Edge> edges,
+      @NonNull Collection<Move> moves,
+      @NonNull Date date) {
+    this(nodes, edges, moves, date, GraphChangeBus.BUS.getVersion());
+  }
+
+  /**
+   * Creates a snapshot from the given nodes, edges, and moves, taken at the given graph version
+   *
+   * @param nodes the nodes in the graph
+   * @param edges the edges in the graph
+   * @param moves the moves, used to determine the location each node holds at the given date
+   * @param date the date to resolve the locations at
+   * @param version the graph version the nodes, edges, and moves were read at
+   */
+  private HospitalGraph(
+      @NonNull Collection<Node> nodes,
+      @NonNull Collection<Edge> edges,
+      @NonNull Collection<Move> moves,
+      @NonNull Date date,
+      long version) {
+    int size = nodes.size(); // Number of nodes
+
+    this.nodes = nodes.toArray(new Node[0]);
+    this.idToIndex = new HashMap<>(size * 2);
+    this.xCoords = new int[size];
+    this.yCoords = new int[size];
+    this.floors = new Node.Floor[size];
+    this.locations = new LocationName[size];
+    this.locationToIndex = new HashMap<>();
+    this.nonHallwayHosts = new BitSet(size);
+    this.date = date;
+    this.version = version;
+
+    // Save the per-node information
+    for (int i = 0; i < size; i++) {
+      idToIndex.put(this.nodes[i].getId(), i);
+      xCoords[i] = this.nodes[i].getXCoord();
+      yCoords[i] = this.nodes[i].getYCoord();
+      floors[i] = this.nodes[i].getFloor();
+    }
+
+    // Collect the (de-duplicated) undirected arcs, two per edge
+    long[] arcs = new long[edges.size() * 2]; // Packed (source, target) pairs, so they sort
+    int arcCount = 0;
+    for (Edge edge : edges) {
+      Integer first = idToIndex.get(edge.getNode1().getId());
+      Integer second = idToIndex.get(edge.getNode2().getId());
+
+      // Skip edges to unknown nodes, and edges from a node to itself
+      if (first == null || second == null || first.equals(second)) {
+        continue;
+      }
+
+      arcs[arcCount++] = ((long) first << 32) | second;
+      arcs[arcCount++] = ((long) second << 32) | first;
+    }
+    Arrays.sort(arcs, 0, arcCount); // Group by source, ordered by target
+
+    // Build the CSR arrays, skipping duplicates (which are adjacent after sorting)
+    arcStarts = new int[size + 1];
+    int[] targets = new int[arcCount];
+    int uniqueArcs = 0;
+    for (int i = 0; i < arcCount; i++) {
+      if (i > 0 && arcs[i] == arcs[i - 1]) {
+        continue; // Duplicate, skip
+      }
+
+      arcStarts[(int) (arcs[i] >>> 32) + 1]++; // Count this arc for its source
+      targets[uniqueArcs++] = (int) arcs[i]; // Save the target
+    }
+
+    // Prefix-sum the counts into starts
+    for (int i = 0; i < size; i++) {
+      arcStarts[i + 1] += arcStarts[i];
+    }
+
+    arcTargets = Arrays.copyOf(targets, uniqueArcs);
+
+    // Every arc has a twin going the other way, since edges are undirected
+    reverseArcs = new int[uniqueArcs];
+    for (int i = 0; i < size; i++) {
+      for (int arc = arcStarts[i]; arc < arcStarts[i + 1]; arc++) {
+        int target = arcTargets[arc];
+        reverseArcs[arc] =
+            Arrays.binarySearch(arcTargets, arcStarts[target], arcStarts[target + 1], i);
+      }
+    }
+    arcCosts = new double[EdgeCostModel.values().length][];
+    reversedArcCosts = new double[EdgeCostModel.values().length][];
+    landmarks = new Landmarks[EdgeCostModel.values().length];
+    hierarchies = new ContractionHierarchy[EdgeCostModel.values().length];
+
+    resolveLocations(moves);
+  }
+
+  /**
+   * Loads a snapshot of the entire graph from the database. This runs exactly three queries, no
+   * matter the size of the graph. Nodes are ordered by ID, so the same graph always gets the same
+   * indices
+   *
+   * @param session the session to load the graph with
+   * @param date the date to resolve which location each node holds at
+   * @return the loaded snapshot
+   */
+  @NonNull
+  public static HospitalGraph fromSession(@NonNull Session session, @NonNull Date date) {
+    // Read the version first, so that a change committed while loading makes this stale
+    long version = GraphChangeBus.BUS.getVersion();
+
+    return new HospitalGraph(
+        session.createQuery("FROM Node ORDER BY id", Node.class).getResultList(),
+        session.createQuery("FROM Edge", Edge.class).getResultList(),
+        session.createQuery("FROM Move", Move.class).getResultList(),
+        date,
+        version);
+  }
+
+  /**
+   * Resolves the location each node holds at the snapshot date, with the same rules as
+   * Node.getCurrentLocation and LocationName.getCurrentNode
+   *
+   * @param moves the moves to resolve from
+   */
+  private void resolveLocations(@NonNull Collection<Move> moves) {
+    // Track the nodes that hold a non-hallway location at any point
+    for (Move move : moves) {
+      Integer index = idToIndex.get(move.getNode().getId());
+
+      if (index != null && move.getLocation().getLocationType() != LocationName.LocationType.HALL) {
+        nonHallwayHosts.set(index);
+      }
+    }
+
+    // Keep every location each node holds, the most recent is the nodes location
+    MoveIndex moveIndex = new MoveIndex(moves, version);
+    for (int i = 0; i < nodes.length; i++) {
+      List<LocationName> held = moveIndex.getCurrentLocation(nodes[i], date);
+
+      for (LocationName location : held) {
+        locationToIndex.put(location, i);
+      }
+      if (!held.isEmpty()) {
+        locations[i] = held.get(0);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of nodes in the graph
+   *
+   * @return the number of nodes in the graph
+   */
+  public int size() {
+    return nodes.length;
+  }
+
+  /**
+   * Gets the index of a node in the graph
+   *
+   * @param node the node to look up
+   * @return the index of the node, or -1 if the node is not in the graph
+   */
+  public int indexOf(@NonNull Node node) {
+    if (node.getId() == null) {
+      return -1; // Nodes without IDs can't be in the graph
+    }
+
+    return idToIndex.getOrDefault(node.getId(), -1);
+  }
+
+  /**
+   * Gets the index of the node holding a location at the snapshot date
+   *
+   * @param location the location to look up
+   * @return the index of the node holding the location, or -1 if no node holds it
+   */
+  public int indexOf(@NonNull LocationName location) {
+    return locationToIndex.getOrDefault(location, -1);
+  }
+
+  /**
+   * Gets the node at a given index
+   *
+   * @param index the index of the node
+   * @return the node
+   */
+  @NonNull
+  public Node getNode(int index) {
+    return nodes[index];
+  }
+
+  /**
+   * Gets the first arc belonging to a node
+   *
+   * @param index the index of the node
+   * @return the index of the nodes first arc
+   */
+  public int arcsStart(int index) {
+    return arcStarts[index];
+  }
+
+  /**
+   * Gets the arc after the last arc belonging to a node
+   *
+   * @param index the index of the node
+   * @return the index one past the nodes last arc
+   */
+  public int arcsEnd(int index) {
+    return arcStarts[index + 1];
+  }
+
+  /**
+   * Gets the node an arc points to
+   *
+   * @param arc the arc
+   * @return the index of the node the arc points to
+   */
+  public int arcTarget(int arc) {
+    return arcTargets[arc];
+  }
+
+  /**
+   * Checks whether there is an arc directly between two nodes
+   *
+   * @param from the index of the node the arc starts at
+   * @param to the index of the node the arc points to
+   * @return true if the nodes are adjacent
+   */
+  public boolean hasArc(int from, int to) {
+    return findArc(from, to) != -1;
+  }
+
+  /**
+   * Finds the arc directly between two nodes
+   *
+   * @param from the index of the node the arc starts at
+   * @param to the index of the node the arc points to
+   * @return the index of the arc, or -1 if the nodes aren't adjacent
+   */
+  public int findArc(int from, int to) {
+    // Each nodes arcs are sorted by target
+    int arc = Arrays.binarySearch(arcTargets, arcStarts[from], arcStarts[from + 1], to);
+    return arc < 0 ? -1 : arc;
+  }
+
+  /**
+   * Gets the total number of arcs in the graph. This is twice the number of (unique) edges
+   *
+   * @return the number of arcs
+   */
+  public int arcCount() {
+    return arcTargets.length;
+  }
+
+  /**
+   * Gets the x-coordinate of a node
+   *
+   * @param index the index of the node
+   * @return the x-coordinate of the node
+   */
+  public int getX(int index) {
+    return xCoords[index];
+  }
+
+  /**
+   * Gets the y-coordinate of a node
+   *
+   * @param index the index of the node
+   * @return the y-coordinate of the node
+   */
+  public int getY(int index) {
+    return yCoords[index];
+  }
+
+  /**
+   * Gets the floor of a node
+   *
+   * @param index the index of the node
+   * @return the floor of the node
+   */
+  @NonNull
+  public Node.Floor getFloor(int index) {
+    return floors[index];
+  }
+
+  /**
+   * Gets the location a node holds at the snapshot date
+   *
+   * @param index the index of the node
+   * @return the location the node holds, or null if it holds none
+   */
+  public LocationName getLocation(int index) {
+    return locations[index];
+  }
+
+  /**
+   * Gets the type of the location a node holds at the snapshot date
+   *
+   * @param index the index of the node
+   * @return the type of the location the node holds, or null if it holds none
+   */
+  public LocationName.LocationType getLocationType(int index) {
+    return locations[index] == null ? null : locations[index].getLocationType();
+  }
+
+  /**
+   * Checks whether a node has held a location other than a hallway at any date, past or future.
+   * These are the only nodes that can be the start or end of a route between locations
+   *
+   * @param index the index of the node
+   * @return true if the node has ever held a non-hallway location
+   */
+  public boolean isNonHallwayHost(int index) {
+    return nonHallwayHosts.get(index);
+  }
+
+  /**
+   * Gets the date the locations in this snapshot were resolved at
+   *
+   * @return the date the snapshot was resolved at
+   */
+  @NonNull
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Gets the graph version this snapshot was taken at
+   *
+   * @return the graph version of the snapshot
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Checks whether this snapshot is still current, that is, no graph change has been committed
+   * since it was taken
+   *
+   * @return whether the snapshot is current
+   */
+  public boolean isCurrent() {
+    return version == GraphChangeBus.BUS.getVersion();
+  }
+
+  /**
+   * Gets the straight-line distance between two nodes, ignoring floors
+   *
+   * @param first the index of the first node
+   * @param second the index of the second node
+   * @return the distance between the two nodes
+   */
+  public double distance(int first, int second) {
+    double dx = xCoords[first] - xCoords[second];
+    double dy = yCoords[first] - yCoords[second];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * Gets the cost of travelling from one node directly to an adjacent one. On the same floor this
+   * is the distance between them. Changing floors costs 50 by elevator and 100 by stairs, and
+   * stairs are impassable for accessible routes. Any other floor change costs its distance. This
+   * is the standard or accessible EdgeCostModel, searches should read arcCosts instead
+   *
+   * @param from the index of the node to travel from
+   * @param to the index of the node to travel to
+   * @param accessible whether the route must be accessible
+   * @return the cost of the move, or positive infinity if it is not allowed
+   */
+  public double cost(int from, int to, boolean accessible) {
+    return EdgeCostModel.forAccessible(accessible).cost(this, from, to);
+  }
+
+  /**
+   * Gets the cost of every arc under a model, indexed by arc. The costs are computed the first time
+   * a model is used, and shared by every search of the snapshot after that, so the array must not
+   * be modified
+   *
+   * @param model the model to cost the arcs with
+   * @return the cost of travelling along each arc, from its source to its target
+   */
+  @NonNull
+  synchronized double[] arcCosts(@NonNull EdgeCostModel model) {
+    if (arcCosts[model.ordinal()] == null) {
+      double[] costs = new double[arcTargets.length]; // The cost of each arc
+      for (int i = 0; i < nodes.length; i++) {
+        for (int arc = arcStarts[i]; arc < arcStarts[i + 1]; arc++) {
+          costs[arc] = model.cost(this, i, arcTargets[arc]);
+        }
+      }
+      arcCosts[model.ordinal()] = costs;
+    }
+
+    return arcCosts[model.ordinal()];
+  }
+
+  /**
+   * Gets the cost of travelling every arc backwards under a model, indexed by arc. This is what a
+   * search walking back from a goal needs, since costs aren't always symmetric (stairs and
+   * elevators are costed by the node they lead to). Computed once per model, like arcCosts
+   *
+   * @param model the model to cost the arcs with
+   * @return the cost of travelling along each arc, from its target to its source
+   */
+  @NonNull
+  synchronized double[] reversedArcCosts(@NonNull EdgeCostModel model) {
+    if (reversedArcCosts[model.ordinal()] == null) {
+      double[] forward = arcCosts(model); // The costs the other way
+      double[] costs = new double[arcTargets.length]; // The cost of each arc, backwards
+      for (int arc = 0; arc < costs.length; arc++) {
+        costs[arc] = forward[reverseArcs[arc]];
+      }
+      reversedArcCosts[model.ordinal()] = costs;
+    }
+
+    return reversedArcCosts[model.ordinal()];
+  }
+
+  /**
+   * Gets the landmarks for searching the snapshot. They are picked the first time they are asked
+   * for, and kept with the snapshot, so they go once it is no longer used. Picking them takes a
+   * while, so this only locks the landmarks, not the whole snapshot
+   *
+   * @param model the model the landmark costs should be under
+   * @return the landmarks
+   */
+  @NonNull
+  Landmarks landmarks(@NonNull EdgeCostModel model) {
+    synchronized (landmarks) {
+      if (landmarks[model.ordinal()] == null) {
+        landmarks[model.ordinal()] = new Landmarks(this, model, Landmarks.DEFAULT_COUNT);
+      }
+      return landmarks[model.ordinal()];
+    }
+  }
+
+  /**
+   * Gets the contraction hierarchy for searching the snapshot. It is built the first time it is
+   * asked for, and kept with the snapshot like the landmarks
+   *
+   * @param model the model the hierarchy costs should be under
+   * @return the hierarchy
+   */
+  @NonNull
+  ContractionHierarchy hierarchy(@NonNull EdgeCostModel model) {
+    synchronized (hierarchies) {
+      if (hierarchies[model.ordinal()] == null) {
+        hierarchies[model.ordinal()] = new ContractionHierarchy(this, model);
+      }
+      return hierarchies[model.ordinal()];
+    }
+  }
+
+  /**
+   * Converts a list of node indices to the list of nodes they represent
+   *
+   * @param indices the indices, in order
+   * @param count the number of indices to use
+   * @return the nodes
+   */
+  @NonNull
+  List<Node> toNodes(@NonNull int[] indices, int count) {
+    List<Node> path = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      path.add(nodes[indices[i]]);
+    }
+    return path;
+  }
+
+  /**
+   * Walks a parent array back from the end to the start, and returns the resulting path
+   *
+   * @param parents the parent of each node, as indices
+   * @param start the index of the start node
+   * @param end the index of the end node
+   * @return the path from the start to the end
+   */
+  @NonNull
+  List<Node> walkParents(@NonNull int[] parents, int start, int end) {
+    int length = 1;
+    for (int current = end; current != start; current = parents[current]) {
+      length++; // Count the length first, so the path can be filled in-place
+    }
+
+    int[] indices = new int[length];
+    int current = end;
+    for (int i = length - 1; i >= 0; i--) {
+      indices[i] = current;
+      current = i > 0 ? parents[current] : current;
+    }
+
+    return toNodes(indices, length);
+  }
+}
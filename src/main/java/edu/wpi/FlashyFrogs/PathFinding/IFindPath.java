@@ -9,4 +9,38 @@ public interface IFindPath {
   public List<Node> findPath(
       @NonNull Node start, @NonNull Node end, @NonNull Boolean accessible, @NonNull Session session)
       throws Exception;
+
+  /**
+   * Finds a path between two nodes using only an in-memory graph snapshot, without touching the
+   * database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param accessible whether the path must be accessible
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public default List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull Boolean accessible,
+      @NonNull HospitalGraph graph) {
+    return findPath(start, end, EdgeCostModel.forAccessible(accessible), graph);
+  }
+
+  /**
+   * Finds the cheapest path between two nodes under a cost model, using only an in-memory graph
+   * snapshot
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph);
 }
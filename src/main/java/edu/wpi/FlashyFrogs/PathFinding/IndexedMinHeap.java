@@ -0,0 +1,166 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over the integers [0, capacity), each with a double key. Tracks the position of
+ * each item in the heap, so that an items key can be decreased in place in O(log n) instead of
+ * inserting a duplicate entry. Does not allocate after construction
+ */
+final class IndexedMinHeap {
+  private final int[] heap; // Items, in heap order
+  private final double[] keys; // Key of each item, indexed by item
+  private final int[] positions; // Position of each item in the heap, -1 if it isn't in it
+  private int size; // Number of items in the heap
+
+  /**
+   * Creates an empty heap that can hold the items [0, capacity)
+   *
+   * @param capacity the number of possible items
+   */
+  IndexedMinHeap(int capacity) {
+    heap = new int[capacity];
+    keys = new double[capacity];
+    positions = new int[capacity];
+    Arrays.fill(positions, -1); // Nothing is in the heap
+  }
+
+  /**
+   * Checks whether the heap is empty
+   *
+   * @return true if the heap is empty
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Checks whether an item is currently in the heap
+   *
+   * @param item the item to check
+   * @return true if the item is in the heap
+   */
+  boolean contains(int item) {
+    return positions[item] != -1;
+  }
+
+  /**
+   * Gets the smallest key in the heap
+   *
+   * @return the smallest key. Undefined if the heap is empty
+   */
+  double peekKey() {
+    return keys[heap[0]];
+  }
+
+  /**
+   * Adds an item with the given key, or lowers its key if it is already in the heap. Does nothing
+   * if the item is already in the heap with a key no larger than the given one
+   *
+   * @param item the item to add or update
+   * @param key the key to give the item
+   * @return true if the heap was changed
+   */
+  boolean insertOrDecrease(int item, double key) {
+    if (positions[item] == -1) {
+      // Not in the heap, add it at the end
+      positions[item] = size;
+      heap[size++] = item;
+    } else if (key >= keys[item]) {
+      return false; // Already there with a better key
+    }
+
+    keys[item] = key;
+    siftUp(positions[item]); // Move it to where it belongs
+    return true;
+  }
+
+  /**
+   * Removes the item with the smallest key
+   *
+   * @return the item with the smallest key. Undefined if the heap is empty
+   */
+  int poll() {
+    int top = heap[0]; // The item to return
+    positions[top] = -1;
+
+    // Move the last item to the top, and let it sink
+    size--;
+    if (size > 0) {
+      heap[0] = heap[size];
+      positions[heap[0]] = 0;
+      siftDown(0);
+    }
+
+    return top;
+  }
+
+  /** Removes every item from the heap */
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  /**
+   * Moves the item at a position up until its parent is no larger than it
+   *
+   * @param position the position of the item to move
+   */
+  private void siftUp(int position) {
+    int item = heap[position];
+    double key = keys[item];
+
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+
+      if (keys[heap[parent]] <= key) {
+        break; // Parent is smaller, done
+      }
+
+      // Move the parent down
+      heap[position] = heap[parent];
+      positions[heap[position]] = position;
+      position = parent;
+    }
+
+    heap[position] = item;
+    positions[item] = position;
+  }
+
+  /**
+   * Moves the item at a position down until neither child is smaller than it
+   *
+   * @param position the position of the item to move
+   */
+  private void siftDown(int position) {
+    int item = heap[position];
+    double key = keys[item];
+
+    while (true) {
+      int child = 2 * position + 1; // Left child
+
+      if (child >= size) {
+        break; // No children, done
+      }
+
+      // Use the smaller of the two children
+      if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+        child++;
+      }
+
+      if (keys[heap[child]] >= key) {
+        break; // Children are larger, done
+      }
+
+      // Move the child up
+      heap[position] = heap[child];
+      positions[heap[position]] = position;
+      position = child;
+    }
+
+    heap[position] = item;
+    positions[item] = position;
+  }
+}
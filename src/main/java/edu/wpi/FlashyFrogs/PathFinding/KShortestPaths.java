@@ -0,0 +1,294 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Finds the shortest few routes between two nodes that never visit a node twice, using Yen's
+ * algorithm. Each route after the first branches off an earlier one at some spur node, and takes
+ * the shortest way from there to the end that avoids the nodes before the spur, and the arcs the
+ * earlier routes took out of it. Only one shortest path tree is ever built, towards the end. It
+ * gives each spur its route directly whenever the tree route from the spur avoids what is blocked,
+ * and otherwise is the exact remaining cost in the unblocked graph, so the A* search for the spur
+ * route goes almost straight to the end
+ */
+public final class KShortestPaths {
+  @NonNull private final HospitalGraph graph; // The graph to search
+  @NonNull private final EdgeCostModel model; // How to cost each arc
+
+  /** A route between two nodes, with its cost */
+  @AllArgsConstructor
+  public static final class Route {
+    @Getter @NonNull private final List<Node> path; // The nodes in the route
+    @Getter private final double cost; // The cost of the route
+  }
+
+  /**
+   * Creates a k-shortest paths finder for a graph snapshot
+   *
+   * @param graph the graph to search
+   * @param accessible whether routes must be accessible
+   */
+  public KShortestPaths(@NonNull HospitalGraph graph, boolean accessible) {
+    this(graph, EdgeCostModel.forAccessible(accessible));
+  }
+
+  /**
+   * Creates a k-shortest paths finder for a graph snapshot that costs routes with a model
+   *
+   * @param graph the graph to search
+   * @param model the model to cost the arcs with
+   */
+  public KShortestPaths(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model) {
+    this.graph = graph;
+    this.model = model;
+  }
+
+  /**
+   * Finds the shortest routes between two nodes, no two of which are the same
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param count the most routes to find
+   * @return the routes, cheapest first. Empty if there is no route, and shorter than the count if
+   *     there aren't that many routes
+   */
+  @NonNull
+  public List<Route> find(@NonNull Node start, @NonNull Node end, int count) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1 || count <= 0) {
+      return List.of();
+    }
+
+    // The cost from every node to the end, and the next node on the way there
+    int size = graph.size();
+    double[] toEnd = new double[size];
+    int[] towardEnd = new int[size];
+    Dijkstra dijkstra = new Dijkstra(graph);
+    dijkstra.shortestPathTree(endIndex, model, true, toEnd, towardEnd);
+
+    if (toEnd[startIndex] == Double.POSITIVE_INFINITY) {
+      return List.of(); // The end can't be reached at all
+    }
+
+    SpurSearch spurSearch = new SpurSearch(endIndex, toEnd, towardEnd);
+    List<int[]> accepted = new ArrayList<>(); // The routes found, cheapest first
+    List<Double> acceptedCosts = new ArrayList<>(); // The cost of each route found
+    accepted.add(spurSearch.treePath(startIndex));
+    acceptedCosts.add(toEnd[startIndex]);
+
+    // Candidates for the next route, cheapest first, and every route ever seen so none repeat
+    PriorityQueue<Map.Entry<int[], Double>> candidates =
+        new PriorityQueue<>(Map.Entry.comparingByValue());
+    Set<List<Integer>> seen = new HashSet<>();
+    seen.add(key(accepted.get(0)));
+
+    BitSet blockedNodes = new BitSet(size); // The route before the spur
+    BitSet blockedTargets = new BitSet(size); // Where the earlier routes went from the spur
+
+    while (accepted.size() < count) {
+      int[] previous = accepted.get(accepted.size() - 1); // Route to branch off of
+      double rootCost = 0; // Cost from the start to the spur
+      blockedNodes.clear();
+
+      for (int spur = 0; spur < previous.length - 1; spur++) {
+        // Block the arcs out of the spur that earlier routes with the same root took
+        blockedTargets.clear();
+        for (int[] route : accepted) {
+          if (route.length > spur + 1 && Arrays.equals(route, 0, spur + 1, previous, 0, spur + 1)) {
+            blockedTargets.set(route[spur + 1]);
+          }
+        }
+
+        int[] spurPath = spurSearch.search(previous[spur], blockedNodes, blockedTargets);
+        if (spurPath != null) {
+          // The root, then the spur route, which starts at the spur
+          int[] route = Arrays.copyOf(previous, spur + spurPath.length);
+          System.arraycopy(spurPath, 0, route, spur, spurPath.length);
+
+          if (seen.add(key(route))) {
+            candidates.add(Map.entry(route, rootCost + pathCost(spurPath)));
+          }
+        }
+
+        // The spur is part of the root for the next spur
+        blockedNodes.set(previous[spur]);
+        rootCost += model.cost(graph, previous[spur], previous[spur + 1]);
+      }
+
+      if (candidates.isEmpty()) {
+        break; // There are no more routes
+      }
+
+      Map.Entry<int[], Double> next = candidates.poll(); // The cheapest candidate
+      accepted.add(next.getKey());
+      acceptedCosts.add(next.getValue());
+    }
+
+    List<Route> routes = new ArrayList<>(accepted.size());
+    for (int i = 0; i < accepted.size(); i++) {
+      routes.add(
+          new Route(graph.toNodes(accepted.get(i), accepted.get(i).length), acceptedCosts.get(i)));
+    }
+    return routes;
+  }
+
+  /**
+   * Gets the cost of following a route
+   *
+   * @param path the indices of the nodes in the route
+   * @return the cost of the route
+   */
+  private double pathCost(@NonNull int[] path) {
+    double cost = 0;
+    for (int i = 1; i < path.length; i++) {
+      cost += model.cost(graph, path[i - 1], path[i]);
+    }
+    return cost;
+  }
+
+  /**
+   * Creates a key for a route, so that routes can be compared by their contents
+   *
+   * @param path the indices of the nodes in the route
+   * @return the key of the route
+   */
+  @NonNull
+  private static List<Integer> key(@NonNull int[] path) {
+    return Arrays.stream(path).boxed().toList();
+  }
+
+  /**
+   * Finds shortest routes to the end that avoid some nodes and arcs, sharing its arrays across
+   * searches
+   */
+  private final class SpurSearch {
+    private final int end; // The index of the end node
+    @NonNull private final double[] toEnd; // The unblocked cost from each node to the end
+    @NonNull private final int[] towardEnd; // The next node on the unblocked way to the end
+    @NonNull private final double[] costs; // Cost of each arc
+    @NonNull private final double[] gScores; // Lowest cost found from the spur to each node
+    @NonNull private final int[] parents; // Previous node on the lowest cost path to each node
+    @NonNull private final BitSet closed; // Nodes whose lowest cost is final
+    @NonNull private final IndexedMinHeap open; // Nodes to visit, by estimated total cost
+
+    /**
+     * Creates a spur search towards an end node
+     *
+     * @param end the index of the end node
+     * @param toEnd the unblocked cost from each node to the end
+     * @param towardEnd the next node on the unblocked way to the end from each node
+     */
+    private SpurSearch(int end, @NonNull double[] toEnd, @NonNull int[] towardEnd) {
+      this.end = end;
+      this.toEnd = toEnd;
+      this.towardEnd = towardEnd;
+      costs = graph.arcCosts(model);
+      gScores = new double[graph.size()];
+      parents = new int[graph.size()];
+      closed = new BitSet(graph.size());
+      open = new IndexedMinHeap(graph.size());
+    }
+
+    /**
+     * Gets the unblocked shortest route from a node to the end, by following the tree
+     *
+     * @param from the index of the node to start at, which must be able to reach the end
+     * @return the indices of the nodes in the route
+     */
+    @NonNull
+    private int[] treePath(int from) {
+      int length = 1;
+      for (int current = from; current != end; current = towardEnd[current]) {
+        length++;
+      }
+
+      int[] path = new int[length];
+      path[0] = from;
+      for (int i = 1; i < length; i++) {
+        path[i] = towardEnd[path[i - 1]];
+      }
+      return path;
+    }
+
+    /**
+     * Finds the shortest route from a spur to the end that avoids the blocked nodes, and doesn't
+     * take the blocked arcs out of the spur
+     *
+     * @param spur the index of the node to start at
+     * @param blockedNodes the nodes the route can't visit
+     * @param blockedTargets the nodes the route can't go to directly from the spur
+     * @return the indices of the nodes in the route, or null if there is no route
+     */
+    private int[] search(int spur, @NonNull BitSet blockedNodes, @NonNull BitSet blockedTargets) {
+      if (toEnd[spur] == Double.POSITIVE_INFINITY) {
+        return null; // Blocking things only makes the end harder to reach
+      }
+
+      // If the unblocked route avoids everything blocked, it is still the shortest
+      boolean treeClear = !blockedTargets.get(towardEnd[spur]);
+      for (int current = spur; treeClear && current != end; current = towardEnd[current]) {
+        treeClear = !blockedNodes.get(towardEnd[current]);
+      }
+      if (treeClear) {
+        return treePath(spur);
+      }
+
+      // Otherwise search, the unblocked cost to the end never overestimates the blocked one
+      Arrays.fill(gScores, Double.POSITIVE_INFINITY);
+      closed.clear();
+      open.clear();
+      gScores[spur] = 0;
+      parents[spur] = -1;
+      open.insertOrDecrease(spur, toEnd[spur]);
+
+      while (!open.isEmpty()) {
+        int current = open.poll();
+
+        if (current == end) {
+          int length = 1;
+          for (int node = end; node != spur; node = parents[node]) {
+            length++;
+          }
+
+          int[] path = new int[length];
+          int node = end; // Node to fill in next, walking back from the end
+          for (int i = length - 1; i >= 0; i--) {
+            path[i] = node;
+            node = parents[node];
+          }
+          return path;
+        }
+
+        closed.set(current);
+
+        for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+          int neighbor = graph.arcTarget(arc);
+
+          // Skip the blocked nodes, the blocked arcs out of the spur, and dead ends
+          if (closed.get(neighbor)
+              || toEnd[neighbor] == Double.POSITIVE_INFINITY
+              || blockedNodes.get(neighbor)
+              || (current == spur && blockedTargets.get(neighbor))) {
+            continue;
+          }
+
+          double gScore = gScores[current] + costs[arc];
+          if (gScore < gScores[neighbor]) {
+            gScores[neighbor] = gScore;
+            parents[neighbor] = current;
+            open.insertOrDecrease(neighbor, gScore + toEnd[neighbor]);
+          }
+        }
+      }
+
+      return null;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.hibernate.Session;
+
+/**
+ * A* guided by landmarks instead of the straight-line distance. The landmark bound knows about
+ * elevator and stair costs and about walls, so far fewer nodes are expanded on routes that change
+ * floors or go around things, and unlike the straight-line distance it never overestimates a floor
+ * change, so the path found is always the shortest. Landmarks are picked the first time a graph is
+ * searched, and kept with the graph, so searching the same snapshot again reuses them
+ */
+public class LandmarkAStar implements IFindPath {
+
+  /**
+   * Private method to find the path between two locations. Searches a snapshot of the graph taken
+   * from the session, so the database is only queried to load it
+   *
+   * @param start the start node
+   * @param end the end node
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  @SneakyThrows
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull Boolean accessible,
+      @NonNull Session session) {
+
+    if (start.getId().equals(null) || end.getId().equals(null)) throw new Exception();
+
+    return findPath(start, end, accessible, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the path between two nodes against a graph snapshot, without touching the database
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    int startIndex = graph.indexOf(start);
+    int endIndex = graph.indexOf(end);
+
+    // If either node isn't in the graph, there can't be a path
+    if (startIndex == -1 || endIndex == -1) {
+      return null;
+    }
+
+    Landmarks landmarks = graph.landmarks(model);
+    return AStar.search(
+        graph, startIndex, endIndex, model, (node) -> landmarks.lowerBound(node, endIndex));
+  }
+}
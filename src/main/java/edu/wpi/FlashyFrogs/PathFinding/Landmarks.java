@@ -0,0 +1,128 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import java.util.Arrays;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Precomputed shortest path costs to and from a handful of landmark nodes, used as an A* heuristic
+ * (ALT: A*, landmarks, and the triangle inequality). For any landmark L, the cost from a node v to
+ * a target t is at least d(L, t) - d(L, v) and at least d(v, L) - d(t, L), so the largest of these
+ * over all landmarks is a lower bound that, unlike the straight-line distance, accounts for floor
+ * changes and walls. Landmarks are picked to be as far from each other as possible, which puts them
+ * around the edges of the map where their bounds are tightest
+ */
+public final class Landmarks {
+  static final int DEFAULT_COUNT = 8; // Number of landmarks picked for searching a snapshot
+
+  @Getter @NonNull private final HospitalGraph graph; // The graph the landmarks are in
+  @Getter @NonNull private final EdgeCostModel model; // How the arcs are costed
+  @NonNull private final int[] landmarks; // Index of each landmark node
+  @NonNull private final double[][] fromLandmark; // Cost from each landmark to each node
+  @NonNull private final double[][] toLandmark; // Cost from each node to each landmark
+
+  /**
+   * Picks landmarks in a graph, and computes the costs to and from them
+   *
+   * @param graph the graph to pick the landmarks in
+   * @param model the model to cost the arcs with
+   * @param count the most landmarks to pick, fewer are picked if the graph doesn't have enough
+   *     connected nodes
+   */
+  public Landmarks(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model, int count) {
+    this.graph = graph;
+    this.model = model;
+
+    int size = graph.size();
+    Dijkstra dijkstra = new Dijkstra(graph);
+    int[] parents = new int[size]; // Unused shortest path trees
+    int[] picked = new int[count]; // The landmarks picked so far
+    double[][] from = new double[count][size];
+    double[][] to = new double[count][size];
+
+    // Cost from the closest landmark to each node, starting from an arbitrary node instead
+    double[] nearest = new double[size];
+    if (size > 0) {
+      dijkstra.shortestPathTree(0, model, false, nearest, parents);
+    }
+
+    int found = 0; // Number of landmarks found
+    while (found < count) {
+      // Pick the connected node furthest from all landmarks, unreachable ones first
+      int landmark = -1;
+      for (int node = 0; node < size; node++) {
+        if (graph.arcsStart(node) != graph.arcsEnd(node)
+            && (landmark == -1 || nearest[node] > nearest[landmark])
+            && nearest[node] != 0) {
+          landmark = node;
+        }
+      }
+
+      if (landmark == -1) {
+        break; // Every connected node is already a landmark
+      }
+
+      // Costs from the landmark, and to it by following the arcs in reverse
+      dijkstra.shortestPathTree(landmark, model, false, from[found], parents);
+      dijkstra.shortestPathTree(landmark, model, true, to[found], parents);
+      picked[found] = landmark;
+      found++;
+
+      for (int node = 0; node < size; node++) {
+        nearest[node] = found == 1 ? from[0][node] : Math.min(nearest[node], from[found - 1][node]);
+      }
+    }
+
+    this.landmarks = Arrays.copyOf(picked, found);
+    this.fromLandmark = Arrays.copyOf(from, found);
+    this.toLandmark = Arrays.copyOf(to, found);
+  }
+
+  /**
+   * Gets the number of landmarks
+   *
+   * @return the number of landmarks
+   */
+  public int count() {
+    return landmarks.length;
+  }
+
+  /**
+   * Gets a landmark
+   *
+   * @param landmark which landmark to get
+   * @return the index of the landmark node
+   */
+  public int getLandmark(int landmark) {
+    return landmarks[landmark];
+  }
+
+  /**
+   * Gets a lower bound on the cost from one node to another
+   *
+   * @param node the index of the node to start at
+   * @param target the index of the node to end at
+   * @return the lower bound, positive infinity if the landmarks show the target can't be reached
+   */
+  public double lowerBound(int node, int target) {
+    double bound = 0;
+
+    for (int landmark = 0; landmark < landmarks.length; landmark++) {
+      double[] from = fromLandmark[landmark];
+      double[] to = toLandmark[landmark];
+
+      // Getting to the target through the node can't be cheaper than getting there directly. If the
+      // landmark reaches the node but not the target, the node can't reach the target either
+      if (from[node] != Double.POSITIVE_INFINITY) {
+        bound = Math.max(bound, from[target] - from[node]);
+      }
+
+      // And likewise for getting to the landmark through the target
+      if (to[target] != Double.POSITIVE_INFINITY) {
+        bound = Math.max(bound, to[node] - to[target]);
+      }
+    }
+
+    return bound;
+  }
+}
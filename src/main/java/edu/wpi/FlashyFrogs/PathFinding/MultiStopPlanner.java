@@ -0,0 +1,254 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Plans a single route that visits several stops, such as every service request assigned to a staff
+ * member. The costs between every pair of stops come from one shortest path tree per stop, which
+ * also give the route between each pair, so no matter how many stops there are, the graph is only
+ * searched once per stop. The order starts out as nearest-neighbor, and is then improved by
+ * reversing parts of it (2-opt) and moving short runs of stops elsewhere (Or-opt) until neither
+ * helps any more. This is not guaranteed to be the best order, but is usually very close to it
+ */
+public final class MultiStopPlanner {
+  private static final int MAX_RUN = 3; // Longest run of stops Or-opt tries to move
+
+  @NonNull private final HospitalGraph graph; // The graph to plan in
+  @NonNull private final EdgeCostModel model; // How to cost each arc
+
+  /** A planned route */
+  @AllArgsConstructor
+  public static final class Plan {
+    @Getter @NonNull private final List<Node> stops; // The reachable stops, in visiting order
+    @Getter @NonNull private final List<Node> unreachable; // The stops that can't be reached
+    @Getter @NonNull private final List<Node> path; // The route, from the start through each stop
+    @Getter private final double cost; // The cost of the route
+  }
+
+  /**
+   * Creates a planner for a graph snapshot
+   *
+   * @param graph the graph to plan in
+   * @param accessible whether routes must be accessible
+   */
+  public MultiStopPlanner(@NonNull HospitalGraph graph, boolean accessible) {
+    this(graph, EdgeCostModel.forAccessible(accessible));
+  }
+
+  /**
+   * Creates a planner for a graph snapshot that costs routes with a model
+   *
+   * @param graph the graph to plan in
+   * @param model the model to cost the arcs with
+   */
+  public MultiStopPlanner(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model) {
+    this.graph = graph;
+    this.model = model;
+  }
+
+  /**
+   * Plans a route from a start node through every stop, ending at whichever stop is last. Stops
+   * that appear more than once, or are the start, are only visited once
+   *
+   * @param start the node to start at
+   * @param stops the nodes to visit, in any order
+   * @return the plan, or null if the start isn't in the graph
+   */
+  public Plan plan(@NonNull Node start, @NonNull Collection<Node> stops) {
+    int startIndex = graph.indexOf(start);
+    if (startIndex == -1) {
+      return null;
+    }
+
+    // Number the points, the start is 0 and each distinct stop follows
+    List<Node> unreachable = new ArrayList<>(); // Stops that can't be reached
+    Set<Integer> indices = new LinkedHashSet<>(); // Graph index of each point
+    indices.add(startIndex);
+    for (Node stop : stops) {
+      int index = graph.indexOf(stop);
+      if (index == -1) {
+        unreachable.add(stop); // Not on the map
+      } else {
+        indices.add(index);
+      }
+    }
+    int[] points = indices.stream().mapToInt(Integer::intValue).toArray();
+
+    // One shortest path tree from each point gives the costs and routes between all of them
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[][] distances = new double[points.length][graph.size()];
+    int[][] parents = new int[points.length][graph.size()];
+    for (int point = 0; point < points.length; point++) {
+      dijkstra.shortestPathTree(points[point], model, false, distances[point], parents[point]);
+    }
+
+    // Only plan for the stops that can be reached from the start
+    List<Integer> reachable = new ArrayList<>(); // Points that can be reached
+    for (int point = 1; point < points.length; point++) {
+      if (distances[0][points[point]] == Double.POSITIVE_INFINITY) {
+        unreachable.add(graph.getNode(points[point]));
+      } else {
+        reachable.add(point);
+      }
+    }
+
+    double[][] costs = new double[points.length][points.length]; // Cost between each two points
+    for (int from = 0; from < points.length; from++) {
+      for (int to = 0; to < points.length; to++) {
+        costs[from][to] = distances[from][points[to]];
+      }
+    }
+
+    int[] order = nearestNeighbor(costs, reachable); // The order to visit the points in
+    while (twoOpt(costs, order) || orOpt(costs, order)) {
+      // Keep improving until neither move helps
+    }
+
+    // Stitch the route together out of the route from each point to the next
+    List<Node> orderedStops = new ArrayList<>(order.length - 1); // The stops, in order
+    List<Node> path = new ArrayList<>(); // The route
+    path.add(start);
+    for (int i = 1; i < order.length; i++) {
+      List<Node> leg =
+          graph.walkParents(parents[order[i - 1]], points[order[i - 1]], points[order[i]]);
+      path.addAll(leg.subList(1, leg.size())); // The first node is already the end of the route
+      orderedStops.add(graph.getNode(points[order[i]]));
+    }
+
+    return new Plan(orderedStops, unreachable, path, routeCost(costs, order));
+  }
+
+  /**
+   * Orders the points by always going to the closest point that hasn't been visited yet
+   *
+   * @param costs the cost between each two points
+   * @param reachable the points to visit, other than the start
+   * @return the order to visit the points in, starting with the start
+   */
+  @NonNull
+  private static int[] nearestNeighbor(
+      @NonNull double[][] costs, @NonNull List<Integer> reachable) {
+    int[] order = new int[reachable.size() + 1]; // The order, the start is already first
+    List<Integer> remaining = new ArrayList<>(reachable); // Points not visited yet
+
+    for (int i = 1; i < order.length; i++) {
+      int closest = 0; // Position in remaining of the closest point
+      for (int j = 1; j < remaining.size(); j++) {
+        if (costs[order[i - 1]][remaining.get(j)] < costs[order[i - 1]][remaining.get(closest)]) {
+          closest = j;
+        }
+      }
+      order[i] = remaining.remove(closest);
+    }
+
+    return order;
+  }
+
+  /**
+   * Gets the cost of visiting the points in an order
+   *
+   * @param costs the cost between each two points
+   * @param order the order to visit the points in
+   * @return the total cost
+   */
+  private static double routeCost(@NonNull double[][] costs, @NonNull int[] order) {
+    double cost = 0;
+    for (int i = 1; i < order.length; i++) {
+      cost += costs[order[i - 1]][order[i]];
+    }
+    return cost;
+  }
+
+  /**
+   * Applies the first reversal of a run of stops that makes the route cheaper. Costs may differ by
+   * direction, so the whole route is re-costed for each reversal
+   *
+   * @param costs the cost between each two points
+   * @param order the order to improve, in place
+   * @return true if the order was improved
+   */
+  private static boolean twoOpt(@NonNull double[][] costs, @NonNull int[] order) {
+    double best = routeCost(costs, order); // Cost to beat
+
+    for (int first = 1; first < order.length - 1; first++) {
+      for (int last = first + 1; last < order.length; last++) {
+        reverse(order, first, last);
+
+        if (routeCost(costs, order) < best - 1e-9) {
+          return true; // Keep the reversal
+        }
+
+        reverse(order, first, last); // Undo it
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Applies the first move of a short run of stops to somewhere else in the route that makes the
+   * route cheaper
+   *
+   * @param costs the cost between each two points
+   * @param order the order to improve, in place
+   * @return true if the order was improved
+   */
+  private static boolean orOpt(@NonNull double[][] costs, @NonNull int[] order) {
+    double best = routeCost(costs, order); // Cost to beat
+    int[] moved = new int[order.length]; // The order with the run moved
+
+    for (int length = 1; length <= MAX_RUN; length++) {
+      for (int first = 1; first + length <= order.length; first++) {
+        // Put the run between each other pair of stops, or at the end
+        for (int target = 1; target <= order.length - length; target++) {
+          if (target == first) {
+            continue; // Already there
+          }
+
+          // Take the run out, then put it back in at the target
+          int size = 0; // Number of points copied so far
+          for (int i = 0; i < order.length && size < target; i++) {
+            if (i < first || i >= first + length) {
+              moved[size++] = order[i];
+            }
+          }
+          System.arraycopy(order, first, moved, size, length);
+          size += length;
+          for (int i = 0, skipped = 0; i < order.length; i++) {
+            if (i < first || i >= first + length) {
+              if (skipped++ >= target) {
+                moved[size++] = order[i];
+              }
+            }
+          }
+
+          if (routeCost(costs, moved) < best - 1e-9) {
+            System.arraycopy(moved, 0, order, 0, order.length);
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Reverses part of an array in place
+   *
+   * @param array the array to reverse part of
+   * @param first the first index to reverse
+   * @param last the last index to reverse
+   */
+  private static void reverse(@NonNull int[] array, int first, int last) {
+    for (; first < last; first++, last--) {
+      int temporary = array[first];
+      array[first] = array[last];
+      array[last] = temporary;
+    }
+  }
+}
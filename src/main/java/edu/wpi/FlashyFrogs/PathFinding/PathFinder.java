@@ -1,10 +1,10 @@
 package edu.wpi.FlashyFrogs.PathFinding;
 
+import edu.wpi.FlashyFrogs.Map.MoveIndex;
 import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Node;
 import java.util.*;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import org.hibernate.Session;
 
 public class PathFinder {
@@ -12,6 +12,8 @@ public class PathFinder {
 
   private IFindPath algorithm;
 
+  private HospitalGraph graph; // Snapshot to path find against, null to use the session
+
   /**
    * Creates a path finder with the given session
    *
@@ -28,43 +30,25 @@ public class PathFinder {
   public List<LocationName> nodeListToLocation(
       @NonNull List<Node> nodes, @NonNull Session session, Date date) {
     List<LocationName> locations = new ArrayList<>(nodes.size());
+    MoveIndex moveIndex = MoveIndex.getCurrent(session); // Where each location is
     for (Node node : nodes) {
-      locations.add(node.getCurrentLocation(session, date).get(0));
+      locations.add(moveIndex.getCurrentLocation(node, date).get(0));
     }
     return locations;
   }
 
+  public void setAlgorithm(IFindPath algorithm) {
+    this.algorithm = algorithm;
+  }
+
   /**
-   * Gets the neighbors of a Node, by means of their edges
+   * Sets the graph snapshot to path find against. While a graph is set, paths are found purely in
+   * memory. If it is null, paths are found against the database through the session instead
    *
-   * @param node the node to get the neighbors of
-   * @param session the session to use to get the results
-   * @return the Set of Nodes that represent the Edges of a given Node
+   * @param graph the graph snapshot to use, or null to use the session
    */
-  @NonNull
-  static Set<Node> getNeighbors(@NonNull Node node, @NonNull Session session) {
-    // Gets the Set of Nodes that represents the union (combination with no duplicates)
-    // of Nodes that this Node starts or ends. Select the opposite end in both cases.
-    // Sets the parameter, and gets the result list as well
-    return new HashSet<>(
-        session
-            .createQuery(
-                """
-                                        SELECT node1
-                                        FROM Edge
-                                        WHERE node2 = :node
-                                        UNION
-                                        SELECT node2
-                                        FROM Edge
-                                        WHERE node1 = :node""",
-                Node.class)
-            .setParameter("node", node)
-            .setCacheable(true)
-            .getResultList());
-  }
-
-  public void setAlgorithm(IFindPath algorithm) {
-    this.algorithm = algorithm;
+  public void setGraph(HospitalGraph graph) {
+    this.graph = graph;
   }
 
   /**
@@ -76,41 +60,48 @@ public class PathFinder {
    * @throws NullPointerException if the lookup for a location (or node associated with the
    *     location) fails
    */
-  @SneakyThrows
   public List<Node> findPath(@NonNull Node start, @NonNull Node end, @NonNull Boolean accessible) {
-
-    // Find the path with the algorithm
-    return algorithm.findPath(start, end, accessible, session); // Return the path
+    return findPath(start, end, EdgeCostModel.forAccessible(accessible));
   }
 
-  static class NodeWrapper implements Comparable<NodeWrapper> {
-    Node node;
-    NodeWrapper parent;
-    double g;
-    double h;
-    double f;
+  /**
+   * Finds the cheapest path between two nodes under a cost model, so routes can be the shortest
+   * walk or the quickest one instead of the standard costs
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @return the path (as a list) between the two nodes, or null if it could not find a path
+   */
+  public List<Node> findPath(
+      @NonNull Node start, @NonNull Node end, @NonNull EdgeCostModel model) {
 
-    /**
-     * Generates a node wrapper that contains a node with values to calculate cost
-     *
-     * @param node the node to wrap
-     * @param parent the parent node
-     */
-    NodeWrapper(@NonNull Node node, NodeWrapper parent) {
-      this.node = node;
-      this.parent = parent;
-      this.f = 0;
-      this.g = 0;
-      this.h = 0;
+    // If there is a snapshot, find the path purely in memory, reusing it if it was found before
+    if (graph != null) {
+      return RouteCache.CACHE.findPath(algorithm, start, end, model, graph); // Return the path
     }
 
-    /**
-     * @param nodeWrapper the object to be compared.
-     * @return the comparison of node costs
-     */
-    @Override
-    public int compareTo(NodeWrapper nodeWrapper) {
-      return Double.compare(f, nodeWrapper.f);
-    }
+    // Find the path with the algorithm, in a snapshot taken from the session
+    return algorithm.findPath(start, end, model, HospitalGraph.fromSession(session, new Date()));
+  }
+
+  /**
+   * Finds the costs between many locations at once, with one search per source instead of one per
+   * pair. Uses the graph snapshot if one is set, otherwise takes one from the session
+   *
+   * @param sources the locations to route from
+   * @param targets the locations to route to
+   * @param accessible whether routes must be accessible
+   * @return the table of costs from each source to each target
+   */
+  @NonNull
+  public BatchRouter.DistanceTable findDistances(
+      @NonNull Collection<LocationName> sources,
+      @NonNull Collection<LocationName> targets,
+      @NonNull Boolean accessible) {
+    HospitalGraph routingGraph =
+        graph != null ? graph : HospitalGraph.fromSession(session, new Date()); // Graph to use
+
+    return new BatchRouter(routingGraph, accessible).route(sources, targets);
   }
 }
@@ -10,6 +10,7 @@ import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Node;
 import edu.wpi.FlashyFrogs.ORM.ServiceRequest;
 import edu.wpi.FlashyFrogs.PathVisualizer.AbstractPathVisualizerController;
+import edu.wpi.FlashyFrogs.PathVisualizer.InstructionGenerator;
 import edu.wpi.FlashyFrogs.Sound;
 import edu.wpi.FlashyFrogs.controllers.HelpController;
 import edu.wpi.FlashyFrogs.controllers.IController;
@@ -53,6 +54,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
   @FXML private SearchableComboBox<LocationName> startingBox;
   @FXML private SearchableComboBox<LocationName> destinationBox;
   @FXML private SearchableComboBox<String> algorithmBox;
+  @FXML private SearchableComboBox<String> costBox;
   @FXML private SearchableComboBox<String> serviceRequestBox;
   @FXML private CheckBox accessibleBox;
   @FXML private AnchorPane mapPane;
@@ -67,9 +69,16 @@ public class PathfindingController extends AbstractPathVisualizerController impl
   @FXML Text h5;
   @FXML Text h6;
   @FXML Text h7;
+  @FXML Text h8;
+
+  private static final String ALL_REQUESTS = "All Requests"; // Plans a route through every request
+
+  private EdgeCostModel costModel = EdgeCostModel.STANDARD; // How the next path is costed
 
   boolean hDone = false;
   List<ServiceRequest> serviceRequests;
+  private HospitalGraph graph; // Snapshot of the map at the selected date, null until needed
+  private List<Instruction> instructions; // Instructions for the current path, null if none
 
   /**
    * Initializes the path finder, sets up the floor selector, and the map including default behavior
@@ -96,6 +105,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
     h5.setVisible(false);
     h6.setVisible(false);
     h7.setVisible(false);
+    h8.setVisible(false);
 
     // set resizing behavior
     Fapp.getPrimaryStage().widthProperty().addListener((observable, oldValue, newValue) -> {});
@@ -121,9 +131,18 @@ public class PathfindingController extends AbstractPathVisualizerController impl
     // make the list of algorithms
     List<String> algorithms = new LinkedList<>();
     algorithms.add("A*");
+    algorithms.add("Bidirectional A*");
+    algorithms.add("Landmark A*");
+    algorithms.add("Contraction hierarchies");
     algorithms.add("Breadth-first");
     algorithms.add("Depth-first");
 
+    // make the list of what paths can be shortest in
+    List<String> costs = new LinkedList<>();
+    costs.add("Standard");
+    costs.add("Shortest distance");
+    costs.add("Quickest walk");
+
     // make the list of User's service requests
     long userID = CURRENT_USER.getCurrentUser().getId();
     serviceRequests =
@@ -135,6 +154,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
             .getResultList();
 
     List<String> serviceRequestsStrings = new ArrayList<>();
+    serviceRequestsStrings.add(ALL_REQUESTS);
     for (ServiceRequest request : serviceRequests) {
       serviceRequestsStrings.add(request.toString());
     }
@@ -143,12 +163,14 @@ public class PathfindingController extends AbstractPathVisualizerController impl
     startingBox.setItems(FXCollections.observableList(objects));
     destinationBox.setItems(FXCollections.observableList(objects));
     algorithmBox.setItems(FXCollections.observableList(algorithms));
+    costBox.setItems(FXCollections.observableList(costs));
     if (serviceRequests.isEmpty()) {
       serviceRequestBox.setVisible(false);
     } else {
       serviceRequestBox.setItems(FXCollections.observableList(serviceRequestsStrings));
     }
     algorithmBox.setValue("A*");
+    costBox.setValue("Standard");
 
     // Get whether the user is an admin
     boolean isAdmin = CURRENT_USER.getAdmin();
@@ -168,6 +190,11 @@ public class PathfindingController extends AbstractPathVisualizerController impl
         .valueProperty()
         .addListener(
             (observable, oldValue, newValue) -> {
+              // Visiting every request doesn't have a single destination
+              if (newValue == null || newValue.equals(ALL_REQUESTS)) {
+                return;
+              }
+
               long selectedRequestId = -1;
               String srText = serviceRequestBox.getValue();
               for (ServiceRequest serviceRequest : serviceRequests) {
@@ -185,9 +212,10 @@ public class PathfindingController extends AbstractPathVisualizerController impl
     // destinationBox
     ChangeListener<Object> listener =
         (observable, oldValue, newValue) -> {
-          // Check if both ComboBoxes have a selected value
+          // Check if both ComboBoxes have a selected value, every request counts as a destination
           boolean isComboBox1Selected = startingBox.getValue() != null;
-          boolean isComboBox2Selected = destinationBox.getValue() != null;
+          boolean isComboBox2Selected =
+              destinationBox.getValue() != null || isAllRequestsSelected();
 
           // If both ComboBoxes have a selected value, enable the button, otherwise disable it
           generatePathButton.setDisable(!isComboBox1Selected || !isComboBox2Selected);
@@ -196,12 +224,22 @@ public class PathfindingController extends AbstractPathVisualizerController impl
     // Add the ChangeListener to both ComboBoxes
     startingBox.valueProperty().addListener(listener);
     destinationBox.valueProperty().addListener(listener);
+    serviceRequestBox.valueProperty().addListener(listener);
 
     // Initially disable the button if either ComboBox is not selected
     generatePathButton.setDisable(
         startingBox.getValue() == null || destinationBox.getValue() == null);
   }
 
+  /**
+   * Gets whether the route should visit every open request, instead of going to the destination
+   *
+   * @return whether all requests are selected
+   */
+  private boolean isAllRequestsSelected() {
+    return ALL_REQUESTS.equals(serviceRequestBox.getValue());
+  }
+
   /** Callback to handle the back button being pressed */
   @SneakyThrows
   @FXML
@@ -213,7 +251,9 @@ public class PathfindingController extends AbstractPathVisualizerController impl
   public void handleGetPath() {
     //    System.out.println("getting path");
     try {
-      if (destinationBox.getValue().equals("") && (startingBox.getValue().equals(""))) {
+      if (!isAllRequestsSelected()
+          && destinationBox.getValue().equals("")
+          && (startingBox.getValue().equals(""))) {
         generatePathButton.setDisable(true);
         throw new NullPointerException();
       }
@@ -226,12 +266,27 @@ public class PathfindingController extends AbstractPathVisualizerController impl
         // get algorithm to use in pathfinding from algorithmBox
         if (algorithmBox.getValue() != null) {
           switch (algorithmBox.getValue()) {
+            case "Bidirectional A*" -> pathFinder.setAlgorithm(new BidirectionalAStar());
+            case "Landmark A*" -> pathFinder.setAlgorithm(new LandmarkAStar());
+            case "Contraction hierarchies" -> pathFinder.setAlgorithm(new ContractionHierarchies());
             case "Breadth-first" -> pathFinder.setAlgorithm(new BreadthFirst());
             case "Depth-first" -> pathFinder.setAlgorithm(new DepthFirst());
             default -> pathFinder.setAlgorithm(new AStar());
           }
         }
 
+        // get the costs to route by from costBox, no stairs always uses the accessible costs
+        String costs = costBox.getValue() == null ? "" : costBox.getValue(); // Profile picked
+        if (accessibleBox.isSelected()) {
+          costModel = EdgeCostModel.ACCESSIBLE;
+        } else {
+          switch (costs) {
+            case "Shortest distance" -> costModel = EdgeCostModel.DISTANCE;
+            case "Quickest walk" -> costModel = EdgeCostModel.WALKING_TIME;
+            default -> costModel = EdgeCostModel.STANDARD;
+          }
+        }
+
         unColorFloor(); // hide the last drawn path
         //        System.out.println("last path hidden");
         // acquire the lock
@@ -268,8 +323,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
           5, currentPath.get(0).getXCoord(), currentPath.get(0).getYCoord());
       colorFloor(); // Draw the path
       mapController.getMapFloorProperty().setValue(currentPath.get(0).getFloor());
-      drawTable(
-          Date.from(moveDatePicker.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant()));
+      drawTable(instructions);
     }
 
     mapController.stopAnimation();
@@ -353,6 +407,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
       h5.setVisible(true);
       h6.setVisible(true);
       h7.setVisible(true);
+      h8.setVisible(true);
       hDone = true;
     } else if (hDone) {
       h1.setVisible(false);
@@ -362,6 +417,7 @@ public class PathfindingController extends AbstractPathVisualizerController impl
       h5.setVisible(false);
       h6.setVisible(false);
       h7.setVisible(false);
+      h8.setVisible(false);
       hDone = false;
     }
   }
@@ -369,22 +425,44 @@ public class PathfindingController extends AbstractPathVisualizerController impl
   class MyRunnable implements Runnable {
 
     public void run() {
+      Date date =
+          Date.from(moveDatePicker.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+      // Take a new snapshot if the date or map changed, so path finding stays in memory
+      if (graph == null || !graph.isCurrent() || !graph.getDate().equals(date)) {
+        graph = HospitalGraph.fromSession(mapController.getMapSession(), date);
+        pathFinder.setGraph(graph);
+      }
+
       // Get the new path from the PathFinder
-      Node startNode =
-          startingBox
-              .getValue()
-              .getCurrentNode(
-                  mapController.getMapSession(),
-                  Date.from(
-                      moveDatePicker.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant()));
-      Node endNode =
-          destinationBox
-              .getValue()
-              .getCurrentNode(
-                  mapController.getMapSession(),
-                  Date.from(
-                      moveDatePicker.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant()));
-      currentPath = pathFinder.findPath(startNode, endNode, accessibleBox.isSelected());
+      int startIndex = graph.indexOf(startingBox.getValue());
+      int endIndex = isAllRequestsSelected() ? -1 : graph.indexOf(destinationBox.getValue());
+      if (isAllRequestsSelected() && startIndex != -1) {
+        // Visit every open request that is on the map at this date, in the best order found
+        List<Node> stops = new ArrayList<>(); // Where the requests are
+        for (ServiceRequest request : serviceRequests) {
+          int requestIndex = graph.indexOf(request.getLocation());
+          if (request.getStatus() != ServiceRequest.Status.DONE && requestIndex != -1) {
+            stops.add(graph.getNode(requestIndex));
+          }
+        }
+
+        MultiStopPlanner.Plan plan =
+            new MultiStopPlanner(graph, costModel).plan(graph.getNode(startIndex), stops);
+        currentPath = plan.getStops().isEmpty() ? null : plan.getPath();
+        alternatePaths = List.of(); // A multi-stop route has no alternates
+      } else if (startIndex == -1 || endIndex == -1) {
+        currentPath = null; // One of the locations isn't on the map at this date
+        alternatePaths = List.of();
+      } else {
+        currentPath =
+            pathFinder.findPath(graph.getNode(startIndex), graph.getNode(endIndex), costModel);
+        findAlternatePaths(graph, costModel); // Other ways to get there
+      }
+
+      // Describe the path here, so the UI thread only has to show it
+      instructions =
+          currentPath == null ? null : InstructionGenerator.generate(currentPath, graph);
 
       //        SerialPort[] ports = SerialPort.getCommPorts();
       //
@@ -0,0 +1,198 @@
+package edu.wpi.FlashyFrogs.PathFinding;
+
+import edu.wpi.FlashyFrogs.Map.GraphChangeBus;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.NonNull;
+
+/**
+ * Singleton cache of recently found routes, so asking for the same route again is just a lookup.
+ * Routes are keyed by their end points, the cost model they were found under, the algorithm that
+ * found them, and the graph snapshot they were found in, compared by identity since two snapshots
+ * with the same date and version can still hold different nodes and edges. Once the cache is full,
+ * the least recently used route is evicted. Every committed change to the graph empties the cache
+ */
+public enum RouteCache {
+  CACHE; // The cache
+  private static final int CAPACITY = 256; // Most routes to keep
+
+  private final LongAdder hits = new LongAdder(); // Lookups that found a cached route
+  private final LongAdder misses = new LongAdder(); // Lookups that had to find the route
+  private final LongAdder evictions = new LongAdder(); // Routes dropped to make room
+
+  // Routes, in order from least to most recently used. An empty route means there is no path
+  private final Map<Key, List<Node>> routes =
+      new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Node>> eldest) {
+          if (size() > CAPACITY) {
+            evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+
+  /** Creates the cache, which empties itself whenever the graph changes */
+  RouteCache() {
+    GraphChangeBus.BUS.addListener((change) -> clear());
+  }
+
+  /**
+   * Finds the path between two nodes against a graph snapshot, returning the cached route if the
+   * same one was found before. The search itself runs outside the lock, so lookups never wait on
+   * another search
+   *
+   * @param algorithm the algorithm to find the path with
+   * @param start the start node
+   * @param end the end node
+   * @param model the model to cost the arcs with
+   * @param graph the graph snapshot to search
+   * @return the path (as a list) between the two nodes, or null if there is no path
+   */
+  public List<Node> findPath(
+      @NonNull IFindPath algorithm,
+      @NonNull Node start,
+      @NonNull Node end,
+      @NonNull EdgeCostModel model,
+      @NonNull HospitalGraph graph) {
+    Key key = new Key(algorithm.getClass(), start.getId(), end.getId(), model, graph);
+
+    List<Node> route; // The route, if it is cached
+    synchronized (routes) {
+      route = routes.get(key);
+    }
+
+    if (route != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      List<Node> path = algorithm.findPath(start, end, model, graph);
+      route = path == null ? List.of() : List.copyOf(path);
+
+      synchronized (routes) {
+        routes.put(key, route);
+      }
+    }
+
+    // Callers get their own copy, so changing it can't change the cached route
+    return route.isEmpty() ? null : new ArrayList<>(route);
+  }
+
+  /** Empties the cache, the counts are kept */
+  public void clear() {
+    synchronized (routes) {
+      routes.clear();
+    }
+  }
+
+  /**
+   * Gets the number of cached routes
+   *
+   * @return the number of cached routes
+   */
+  public int size() {
+    synchronized (routes) {
+      return routes.size();
+    }
+  }
+
+  /**
+   * Gets the number of lookups that found a cached route
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of lookups that had to find the route
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of routes that were dropped to make room for newer ones
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Gets the fraction of lookups that found a cached route
+   *
+   * @return the hit rate, from 0 to 1, or 0 if there haven't been any lookups
+   */
+  public double getHitRate() {
+    long hitCount = hits.sum(); // Hits so far
+    long total = hitCount + misses.sum(); // Lookups so far
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  /** Identifies a route, by everything that can change it */
+  private static final class Key {
+    @NonNull private final Class<?> algorithm; // The algorithm that finds the route
+    @NonNull private final String startID; // The ID of the start node
+    @NonNull private final String endID; // The ID of the end node
+    @NonNull private final EdgeCostModel model; // The model the route is costed under
+    @NonNull private final HospitalGraph graph; // The snapshot the route was found in
+
+    /**
+     * Creates a key for a route
+     *
+     * @param algorithm the algorithm that finds the route
+     * @param startID the ID of the start node
+     * @param endID the ID of the end node
+     * @param model the model the route is costed under
+     * @param graph the graph snapshot the route is found in
+     */
+    private Key(
+        @NonNull Class<?> algorithm,
+        @NonNull String startID,
+        @NonNull String endID,
+        @NonNull EdgeCostModel model,
+        @NonNull HospitalGraph graph) {
+      this.algorithm = algorithm;
+      this.startID = startID;
+      this.endID = endID;
+      this.model = model;
+      this.graph = graph;
+    }
+
+    /**
+     * Compares two keys by every field, and the snapshots by identity
+     *
+     * @param obj the key to compare against
+     * @return whether the keys identify the same route
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (this.getClass() != obj.getClass()) return false;
+      Key other = (Key) obj;
+      return algorithm.equals(other.algorithm)
+          && startID.equals(other.startID)
+          && endID.equals(other.endID)
+          && model == other.model
+          && graph == other.graph;
+    }
+
+    /**
+     * Combines the hash codes of every field, using the identity hash code of the snapshot
+     *
+     * @return the hash code of the key
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(algorithm, startID, endID, model, System.identityHashCode(graph));
+    }
+  }
+}
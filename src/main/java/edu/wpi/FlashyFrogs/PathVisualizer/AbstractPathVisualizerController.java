@@ -5,12 +5,14 @@ import edu.wpi.FlashyFrogs.Map.MapController;
 import edu.wpi.FlashyFrogs.ORM.Edge;
 import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.EdgeCostModel;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import edu.wpi.FlashyFrogs.PathFinding.KShortestPaths;
 import edu.wpi.FlashyFrogs.PathFinding.PathFinder;
 import edu.wpi.FlashyFrogs.PathFinding.PathfindingController;
 import edu.wpi.FlashyFrogs.controllers.IController;
 import java.util.*;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
@@ -25,7 +27,6 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.SneakyThrows;
-import org.apache.commons.math3.util.MathUtils;
 import org.controlsfx.control.PopOver;
 
 /**
@@ -33,6 +34,8 @@ import org.controlsfx.control.PopOver;
  * the map controller, and enables classes that extend this to easily visualize paths
  */
 public abstract class AbstractPathVisualizerController implements IController {
+  private static final int ALTERNATE_COUNT = 2; // Most alternate routes to draw
+
   protected int selectedIndex = -1;
   @FXML protected TableView<PathfindingController.Instruction> pathTable;
   @FXML protected TableColumn<PathfindingController.Instruction, String> pathCol;
@@ -44,6 +47,8 @@ public abstract class AbstractPathVisualizerController implements IController {
 
   @NonNull protected final Pane map; // Pane representing the map
   protected List<Node> currentPath; // Node list, may be null
+  // Other routes between the ends of the current path, drawn behind it, may be empty
+  @NonNull protected List<List<Node>> alternatePaths = List.of();
   @NonNull protected final PathFinder pathFinder; // The path finder to use
   // List of pop-overs that are the floor changers, so they can be cleared
   protected Collection<PopOver> changeFloorPopOvers = new LinkedList<>();
@@ -170,27 +175,7 @@ public abstract class AbstractPathVisualizerController implements IController {
           circle.setVisible(true);
         }
 
-        // If both nodes are on this floor
-        if (thisNode.getFloor().equals(mapController.getMapFloorProperty().getValue())
-            && lastNode.getFloor().equals(mapController.getMapFloorProperty().getValue())) {
-          Edge edge; // The edge we will get
-
-          edge = new Edge(thisNode, lastNode); // Try the first direction
-
-          // If that edge is invalid
-          if (!mapController.getEdgeToLineMap().containsKey(edge)) {
-            edge = new Edge(lastNode, thisNode); // Try the other direction
-          }
-
-          // The line to color
-          Line lineToColor = mapController.getEdgeToLineMap().get(edge);
-
-          // Set the line color
-          lineToColor.setFill(lineColor);
-          lineToColor.setStroke(lineColor);
-          lineToColor.setStrokeWidth(5);
-          lineToColor.setVisible(visible);
-        }
+        colorEdge(lastNode, thisNode, visible, lineColor, 5); // Color the line between them
       }
 
       // Set the allowed floors
@@ -200,11 +185,92 @@ public abstract class AbstractPathVisualizerController implements IController {
     }
   }
 
+  /**
+   * Handles coloring the alternate routes on a given floor. Only the lines are colored, the ends
+   * are the same as the current path
+   *
+   * @param visible the visibility
+   * @param lineColor the line color
+   */
+  protected void handleAlternateColoring(boolean visible, Color lineColor) {
+    for (List<Node> path : alternatePaths) {
+      for (int i = 1; i < path.size(); i++) {
+        colorEdge(path.get(i - 1), path.get(i), visible, lineColor, 3);
+      }
+    }
+  }
+
+  /**
+   * Colors the line for the edge between two nodes, if both are on the floor that we are on
+   *
+   * @param lastNode the node the edge starts at
+   * @param thisNode the node the edge ends at
+   * @param visible the visibility
+   * @param lineColor the line color
+   * @param width the line width
+   */
+  private void colorEdge(
+      @NonNull Node lastNode,
+      @NonNull Node thisNode,
+      boolean visible,
+      @NonNull Color lineColor,
+      double width) {
+    // If both nodes are on this floor
+    if (thisNode.getFloor().equals(mapController.getMapFloorProperty().getValue())
+        && lastNode.getFloor().equals(mapController.getMapFloorProperty().getValue())) {
+      // The edge between the nodes, in whichever direction it was drawn
+      Edge edge = mapController.getEdgeIndex().find(lastNode, thisNode);
+      if (edge == null) {
+        return; // Not drawn, nothing to color
+      }
+
+      // The line to color
+      Line lineToColor = mapController.getEdgeToLineMap().get(edge);
+
+      // Set the line color
+      lineToColor.setFill(lineColor);
+      lineToColor.setStroke(lineColor);
+      lineToColor.setStrokeWidth(width);
+      lineToColor.setVisible(visible);
+    }
+  }
+
+  /**
+   * Finds alternate routes between the ends of the current path, to be drawn behind it. Only uses
+   * the graph snapshot, so the database isn't touched
+   *
+   * @param graph the graph snapshot the current path was found in
+   * @param model the model the current path was costed under
+   */
+  protected void findAlternatePaths(@NonNull HospitalGraph graph, @NonNull EdgeCostModel model) {
+    List<List<Node>> alternates = new ArrayList<>(); // The routes that aren't the current path
+
+    if (currentPath != null) {
+      List<KShortestPaths.Route> routes =
+          new KShortestPaths(graph, model)
+              .find(
+                  currentPath.get(0),
+                  currentPath.get(currentPath.size() - 1),
+                  ALTERNATE_COUNT + 1); // One more, in case the current path is one of them
+
+      for (KShortestPaths.Route route : routes) {
+        if (alternates.size() < ALTERNATE_COUNT && !route.getPath().equals(currentPath)) {
+          alternates.add(route.getPath());
+        }
+      }
+    }
+
+    alternatePaths = alternates;
+  }
+
   /**
    * Colors the edges on the floor that we are on based on the currently drawn path. Handles cases
    * where the current path doesn't exist
    */
   protected void colorFloor() {
+    // Draw the alternates first, so the current path is drawn over them where they overlap
+    handleAlternateColoring(true, Color.GRAY);
+
     // Handle floor coloring
     handleFloorColoring(true, Color.BLUE, Color.GREEN, Color.BLUE);
   }
@@ -218,6 +284,7 @@ public abstract class AbstractPathVisualizerController implements IController {
     changeFloorPopOvers.clear(); // Clear the pop overs
 
     // Handle floor un-coloring
+    handleAlternateColoring(false, Color.BLACK);
     handleFloorColoring(false, Color.BLACK, Color.BLACK, Color.BLACK);
   }
 
@@ -227,97 +294,18 @@ public abstract class AbstractPathVisualizerController implements IController {
     mapController.exit();
   }
 
-  /** Method that generates table for textual path instructions */
-  protected void drawTable(@NonNull Date date) {
-    int continueCounter = 0;
+  /**
+   * Shows the turn-by-turn instructions for the current path. The instructions are generated with
+   * the path, off the UI thread, so this only fills in the table
+   *
+   * @param instructions the instructions to show, from InstructionGenerator
+   */
+  protected void drawTable(@NonNull List<Instruction> instructions) {
     pathTable.setVisible(true);
     next.setVisible(true);
     back.setVisible(true);
 
-    ObservableList<Instruction> instructions = FXCollections.observableArrayList();
-    double curAngle = 0;
-
-    pathTable.setItems(instructions);
-    for (int i = 0; i < currentPath.size() - 1; i++) { // For each line in the path
-
-      Node thisNode = currentPath.get(i);
-      Node nextNode = currentPath.get(i + 1);
-
-      double target =
-          Math.atan2(
-              (nextNode.getYCoord() - thisNode.getYCoord()),
-              (nextNode.getXCoord() - thisNode.getXCoord()));
-      double errorTheta = target - curAngle;
-      curAngle = target;
-
-      errorTheta = MathUtils.normalizeAngle(errorTheta, 0.0);
-
-      int errorDeg = (int) Math.toDegrees(errorTheta);
-
-      String nodeName =
-          thisNode.getCurrentLocation(mapController.getMapSession(), date).stream()
-              .findFirst()
-              .orElse(new LocationName("", LocationName.LocationType.HALL, ""))
-              .getShortName();
-
-      if (i == 0) {
-        String newFloor = "Starting at floor " + currentPath.get(i).getFloor() + ":";
-        instructions.add(new Instruction(newFloor, thisNode));
-      } else if (currentPath.get(i).getFloor() != currentPath.get(i - 1).getFloor()) {
-        String newFloor = "Going to floor " + currentPath.get(i).getFloor() + ":";
-        instructions.add(new Instruction(newFloor, thisNode));
-      }
-
-      if (nodeName.equals("")) {
-        if (errorDeg < -70) {
-          instructions.add(new Instruction("\t\u2190 Turn left", thisNode));
-          continueCounter = 0;
-        } else if ((errorDeg > -70) && (errorDeg < -45)) {
-          instructions.add(new Instruction("\t\u2196 Take a slight left", thisNode));
-          continueCounter = 0;
-        } else if (errorDeg > 70) {
-          instructions.add(new Instruction("\t\u2192 Turn right", thisNode));
-          continueCounter = 0;
-        } else if ((errorDeg > 45) && (errorDeg < 70)) {
-          instructions.add(new Instruction("\t\u2197 Take a slight right", thisNode));
-          continueCounter = 0;
-        } else {
-          if (continueCounter == 0) {
-            instructions.add(new Instruction("\t\u2191 Continue", thisNode));
-            continueCounter = continueCounter + 1;
-          }
-        }
-      } else {
-        if (errorDeg < -70) {
-          instructions.add(new Instruction("\t\u2190 Turn left at " + nodeName, thisNode));
-          continueCounter = 0;
-        } else if ((errorDeg > -70) && (errorDeg < -45)) {
-          instructions.add(new Instruction("\t\u2196 Take a slight left at " + nodeName, thisNode));
-          continueCounter = 0;
-        } else if (errorDeg > 70) {
-          instructions.add(new Instruction("\t\u2192 Turn right at " + nodeName, thisNode));
-          continueCounter = 0;
-        } else if ((errorDeg > 45) && (errorDeg < 70)) {
-          instructions.add(
-              new Instruction("\t\u2197 Take a slight right at " + nodeName, thisNode));
-          continueCounter = 0;
-        } else {
-          if (continueCounter == 0) {
-            instructions.add(new Instruction("\t\u2191 Continue at " + nodeName, thisNode));
-            continueCounter = continueCounter + 1;
-          }
-        }
-      }
-    }
-
-    instructions.add(
-        new Instruction(
-            "You have arrived at your destination!",
-            //                + currentPath
-            //                    .get(currentPath.size() - 1)
-            //                    .getCurrentLocation(mapController.getMapSession(), date)
-            //                    .get(0),
-            currentPath.get(currentPath.size() - 1)));
+    pathTable.setItems(FXCollections.observableArrayList(instructions));
   }
 
   public static class Instruction {
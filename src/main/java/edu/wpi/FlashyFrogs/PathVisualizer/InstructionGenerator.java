@@ -0,0 +1,138 @@
+package edu.wpi.FlashyFrogs.PathVisualizer;
+
+import edu.wpi.FlashyFrogs.Map.MoveIndex;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import lombok.NonNull;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Turns a path into turn-by-turn instructions. The location at each node comes from a snapshot
+ * that is already resolved, so generating instructions never touches the database, and can be done
+ * off the UI thread right after the path is found
+ */
+public final class InstructionGenerator {
+  /** Utility class, can't be created */
+  private InstructionGenerator() {}
+
+  /**
+   * Generates the instructions for a path, naming each node by the location it holds in a graph
+   * snapshot
+   *
+   * @param path the path to describe, at least one node long
+   * @param graph the snapshot the path was found in, whose date the locations are resolved at
+   * @return the instructions, in order
+   */
+  @NonNull
+  public static List<AbstractPathVisualizerController.Instruction> generate(
+      @NonNull List<Node> path, @NonNull HospitalGraph graph) {
+    return generate(
+        path,
+        (node) -> {
+          int index = graph.indexOf(node);
+          return index == -1 ? null : graph.getLocation(index);
+        });
+  }
+
+  /**
+   * Generates the instructions for a path, naming each node by the location it holds in a move
+   * index at a date
+   *
+   * @param path the path to describe, at least one node long
+   * @param moveIndex the moves to resolve the locations with
+   * @param date the date to resolve the locations at
+   * @return the instructions, in order
+   */
+  @NonNull
+  public static List<AbstractPathVisualizerController.Instruction> generate(
+      @NonNull List<Node> path, @NonNull MoveIndex moveIndex, @NonNull Date date) {
+    return generate(
+        path,
+        (node) -> {
+          List<LocationName> held = moveIndex.getCurrentLocation(node, date);
+          return held.isEmpty() ? null : held.get(0);
+        });
+  }
+
+  /**
+   * Generates the instructions for a path in one pass. A heading or floor change is announced at
+   * the node it happens at, and straight runs are only announced once
+   *
+   * @param path the path to describe, at least one node long
+   * @param locations gets the location each node holds, or null if it holds none
+   * @return the instructions, in order
+   */
+  @NonNull
+  private static List<AbstractPathVisualizerController.Instruction> generate(
+      @NonNull List<Node> path, @NonNull Function<Node, LocationName> locations) {
+    List<AbstractPathVisualizerController.Instruction> instructions = new ArrayList<>();
+    boolean continuing = false; // Whether the last instruction was to continue straight
+    double curAngle = 0;
+
+    for (int i = 0; i < path.size() - 1; i++) { // For each line in the path
+      Node thisNode = path.get(i);
+      Node nextNode = path.get(i + 1);
+
+      double target =
+          Math.atan2(
+              (nextNode.getYCoord() - thisNode.getYCoord()),
+              (nextNode.getXCoord() - thisNode.getXCoord()));
+      int errorDeg = (int) Math.toDegrees(MathUtils.normalizeAngle(target - curAngle, 0.0));
+      curAngle = target;
+
+      if (i == 0) {
+        instructions.add(
+            new AbstractPathVisualizerController.Instruction(
+                "Starting at floor " + thisNode.getFloor() + ":", thisNode));
+      } else if (thisNode.getFloor() != path.get(i - 1).getFloor()) {
+        instructions.add(
+            new AbstractPathVisualizerController.Instruction(
+                "Going to floor " + thisNode.getFloor() + ":", thisNode));
+      }
+
+      String turn = turn(errorDeg); // The turn to take, or null to go straight
+      if (turn == null && continuing) {
+        continue; // Already told to continue
+      }
+      continuing = turn == null;
+
+      // Name the node if it holds anything
+      LocationName location = locations.apply(thisNode);
+      String name = location == null ? "" : location.getShortName();
+      String text = "\t" + (turn == null ? "\u2191 Continue" : turn);
+      instructions.add(
+          new AbstractPathVisualizerController.Instruction(
+              name.equals("") ? text : text + " at " + name, thisNode));
+    }
+
+    instructions.add(
+        new AbstractPathVisualizerController.Instruction(
+            "You have arrived at your destination!", path.get(path.size() - 1)));
+    return instructions;
+  }
+
+  /**
+   * Gets the turn to take for a change in heading
+   *
+   * @param errorDeg the change in heading, in degrees, negative to the left
+   * @return the turn, or null if the change is small enough to keep going straight
+   */
+  private static String turn(int errorDeg) {
+    if (errorDeg < -70) {
+      return "\u2190 Turn left";
+    } else if ((errorDeg > -70) && (errorDeg < -45)) {
+      return "\u2196 Take a slight left";
+    } else if (errorDeg > 70) {
+      return "\u2192 Turn right";
+    } else if ((errorDeg > 45) && (errorDeg < 70)) {
+      return "\u2197 Take a slight right";
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,72 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/** The algorithms the routing table can be computed with */
+@Slf4j
+public enum AllPairsBackend {
+  /** Blocked Floyd-Warshall on the calling thread */
+  BLOCKED {
+    @Override
+    RoutingTable compute(@NonNull HospitalGraph graph, @NonNull BooleanSupplier shouldTerminate) {
+      return RoutingTable.floydWarshall(graph, shouldTerminate);
+    }
+  },
+
+  /** Blocked Floyd-Warshall, with the tiles of each round split across all cores */
+  PARALLEL_BLOCKED {
+    @Override
+    RoutingTable compute(@NonNull HospitalGraph graph, @NonNull BooleanSupplier shouldTerminate) {
+      return RoutingTable.parallelFloydWarshall(
+          graph, ForkJoinPool.commonPool(), shouldTerminate);
+    }
+  },
+
+  /**
+   * One Dijkstra per node that holds a non-hallway location, in parallel. Only paths to those
+   * nodes are computed, which is all the traffic analyzer needs
+   */
+  DIJKSTRA {
+    @Override
+    RoutingTable compute(@NonNull HospitalGraph graph, @NonNull BooleanSupplier shouldTerminate) {
+      return RoutingTable.dijkstra(graph, ForkJoinPool.commonPool(), shouldTerminate);
+    }
+  };
+
+  /**
+   * Computes the routing table for a graph with this backend
+   *
+   * @param graph the graph to compute the table for
+   * @param shouldTerminate checked periodically, stops the computation if it returns true
+   * @return the computed table, or null if the computation was terminated
+   */
+  abstract RoutingTable compute(
+      @NonNull HospitalGraph graph, @NonNull BooleanSupplier shouldTerminate);
+
+  /**
+   * Gets the backend to use by default. This is the one named by the allPairsBackend system
+   * property if it is set to a backend, otherwise the parallel one if there is more than one core.
+   * This runs while the routing table runner loads, so a bad name is logged and ignored instead of
+   * thrown
+   *
+   * @return the default backend
+   */
+  @NonNull
+  static AllPairsBackend getDefault() {
+    String configured = System.getProperty("allPairsBackend"); // Configured backend, if any
+
+    if (configured != null) {
+      try {
+        return valueOf(configured.trim().toUpperCase());
+      } catch (IllegalArgumentException exception) {
+        log.warn("Unknown all pairs backend '{}', using the default", configured);
+      }
+    }
+
+    return Runtime.getRuntime().availableProcessors() > 1 ? PARALLEL_BLOCKED : BLOCKED;
+  }
+}
@@ -0,0 +1,223 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import lombok.NonNull;
+
+/**
+ * Blocked (tiled) Floyd-Warshall over flat, row-major distance and next-hop matrices. The matrices
+ * are split into square tiles, and each round of pivots only touches a handful of tiles at a time,
+ * so that the working set stays in cache instead of streaming the whole matrix for every pivot.
+ * Within a round, the tiles of phase 2 (and of phase 3) are independent, so they can be processed
+ * in parallel
+ */
+final class BlockedFloydWarshall {
+  static final int TILE_SIZE = 32; // Width of each tile, 3 tiles of doubles fit into L1
+
+  /** Static utility class, no instances */
+  private BlockedFloydWarshall() {}
+
+  /**
+   * Runs blocked Floyd-Warshall in place. The distances should start as the direct edge weights,
+   * with 0 on the diagonal and positive infinity for pairs without an edge. The next hops should
+   * start as the target for each edge (and i for i -> i), and -1 otherwise. After this completes,
+   * they hold the shortest distances and the first hop on the shortest paths
+   *
+   * @param distances the n * n distance matrix, row-major
+   * @param nextHops the n * n next-hop matrix, row-major
+   * @param size the number of nodes, n
+   * @param shouldTerminate checked between rounds, stops early if it returns true
+   * @return true if the run completed, false if it was terminated early
+   */
+  static boolean run(
+      @NonNull double[] distances,
+      @NonNull int[] nextHops,
+      int size,
+      @NonNull BooleanSupplier shouldTerminate) {
+    int tiles = (size + TILE_SIZE - 1) / TILE_SIZE; // Number of tiles across
+
+    // Each round uses the tile on the diagonal as the pivots
+    for (int pivotTile = 0; pivotTile < tiles; pivotTile++) {
+      if (shouldTerminate.getAsBoolean()) {
+        return false; // Stop if we should terminate
+      }
+
+      // Phase 1: the pivot tile itself only depends on itself
+      updateTile(distances, nextHops, size, pivotTile, pivotTile, pivotTile);
+
+      // Phase 2: the tiles in the pivot row and column depend on themselves and the pivot tile
+      for (int tile = 0; tile < tiles; tile++) {
+        if (tile != pivotTile) {
+          updateTile(distances, nextHops, size, pivotTile, tile, pivotTile); // Pivot row
+          updateTile(distances, nextHops, size, tile, pivotTile, pivotTile); // Pivot column
+        }
+      }
+
+      // Phase 3: everything else depends on its pivot row and column tiles
+      for (int rowTile = 0; rowTile < tiles; rowTile++) {
+        if (rowTile == pivotTile) {
+          continue; // Done in phase 2
+        }
+
+        for (int columnTile = 0; columnTile < tiles; columnTile++) {
+          if (columnTile != pivotTile) {
+            updateTile(distances, nextHops, size, rowTile, columnTile, pivotTile);
+          }
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Runs blocked Floyd-Warshall in place, the same as run, but processes the independent tiles of
+   * each round in parallel on the given pool. Termination is checked between rounds
+   *
+   * @param distances the n * n distance matrix, row-major
+   * @param nextHops the n * n next-hop matrix, row-major
+   * @param size the number of nodes, n
+   * @param pool the pool to run the tiles on
+   * @param shouldTerminate checked between rounds, stops early if it returns true
+   * @return true if the run completed, false if it was terminated early
+   */
+  static boolean runParallel(
+      @NonNull double[] distances,
+      @NonNull int[] nextHops,
+      int size,
+      @NonNull ForkJoinPool pool,
+      @NonNull BooleanSupplier shouldTerminate) {
+    int tiles = (size + TILE_SIZE - 1) / TILE_SIZE; // Number of tiles across
+
+    // Each round uses the tile on the diagonal as the pivots
+    for (int pivotTile = 0; pivotTile < tiles; pivotTile++) {
+      if (shouldTerminate.getAsBoolean()) {
+        return false; // Stop if we should terminate
+      }
+
+      int pivot = pivotTile; // Effectively final copy for the tasks
+
+      // Phase 1: the pivot tile itself, nothing to run in parallel with
+      updateTile(distances, nextHops, size, pivot, pivot, pivot);
+
+      // Phase 2: each pivot row and column tile is independent of the others
+      pool.invoke(
+          new TileRangeAction(
+              0,
+              tiles,
+              (tile) -> {
+                if (tile != pivot) {
+                  updateTile(distances, nextHops, size, pivot, tile, pivot); // Pivot row
+                  updateTile(distances, nextHops, size, tile, pivot, pivot); // Pivot column
+                }
+              }));
+
+      // Phase 3: every remaining tile is independent, split the work by rows of tiles
+      pool.invoke(
+          new TileRangeAction(
+              0,
+              tiles,
+              (rowTile) -> {
+                if (rowTile == pivot) {
+                  return; // Done in phase 2
+                }
+
+                for (int columnTile = 0; columnTile < tiles; columnTile++) {
+                  if (columnTile != pivot) {
+                    updateTile(distances, nextHops, size, rowTile, columnTile, pivot);
+                  }
+                }
+              }));
+    }
+
+    return true;
+  }
+
+  /** Fork-join action that runs a consumer over a range of tiles, splitting it until it's small */
+  private static final class TileRangeAction extends RecursiveAction {
+    private final int start; // First tile, inclusive
+    private final int end; // Last tile, exclusive
+    @NonNull private final IntConsumer tileAction; // Action to run on each tile
+
+    /**
+     * Creates the action for a range of tiles
+     *
+     * @param start the first tile, inclusive
+     * @param end the last tile, exclusive
+     * @param tileAction the action to run on each tile
+     */
+    TileRangeAction(int start, int end, @NonNull IntConsumer tileAction) {
+      this.start = start;
+      this.end = end;
+      this.tileAction = tileAction;
+    }
+
+    /** Runs the action, splitting the range in half until each half is a single tile */
+    @Override
+    protected void compute() {
+      if (end - start <= 1) {
+        for (int tile = start; tile < end; tile++) {
+          tileAction.accept(tile);
+        }
+        return;
+      }
+
+      int middle = (start + end) >>> 1; // Split in half
+      invokeAll(
+          new TileRangeAction(start, middle, tileAction),
+          new TileRangeAction(middle, end, tileAction));
+    }
+  }
+
+  /**
+   * Relaxes every pair in one tile through every pivot in another
+   *
+   * @param distances the distance matrix
+   * @param nextHops the next-hop matrix
+   * @param size the number of nodes
+   * @param rowTile the tile of the rows (sources) to update
+   * @param columnTile the tile of the columns (targets) to update
+   * @param pivotTile the tile of the pivots to relax through
+   */
+  static void updateTile(
+      @NonNull double[] distances,
+      @NonNull int[] nextHops,
+      int size,
+      int rowTile,
+      int columnTile,
+      int pivotTile) {
+    int rowStart = rowTile * TILE_SIZE;
+    int rowEnd = Math.min(rowStart + TILE_SIZE, size);
+    int columnStart = columnTile * TILE_SIZE;
+    int columnEnd = Math.min(columnStart + TILE_SIZE, size);
+    int pivotStart = pivotTile * TILE_SIZE;
+    int pivotEnd = Math.min(pivotStart + TILE_SIZE, size);
+
+    for (int k = pivotStart; k < pivotEnd; k++) {
+      int pivotRow = k * size; // Offset of row k
+
+      for (int i = rowStart; i < rowEnd; i++) {
+        int row = i * size; // Offset of row i
+        double throughPivot = distances[row + k]; // Cost of i -> k
+
+        if (throughPivot == Double.POSITIVE_INFINITY) {
+          continue; // Can't reach k, so k can't be a shortcut
+        }
+
+        int hopToPivot = nextHops[row + k]; // First hop of i -> k
+
+        for (int j = columnStart; j < columnEnd; j++) {
+          double candidate = throughPivot + distances[pivotRow + j]; // Cost of i -> k -> j
+
+          // If going through k is shorter, go through k
+          if (candidate < distances[row + j]) {
+            distances[row + j] = candidate;
+            nextHops[row + j] = hopToPivot;
+          }
+        }
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@ package edu.wpi.FlashyFrogs.TrafficAnalyzer;
 import edu.wpi.FlashyFrogs.Map.MapController;
 import edu.wpi.FlashyFrogs.ORM.Edge;
 import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
 import javafx.geometry.Point2D;
 import javafx.scene.shape.Shape;
 import lombok.NonNull;
@@ -15,10 +16,13 @@ class EdgeMapItem extends MapItem {
    * Creates an edge map item
    *
    * @param edge the edge
+   * @param uses the number of paths that go along the edge
+   * @param numServiceRequests the number of service requests at the ends of those paths
    * @param serviceRequestWeight the weight the service request should have
    */
-  public EdgeMapItem(@NonNull Edge edge, double serviceRequestWeight) {
-    super(serviceRequestWeight);
+  public EdgeMapItem(
+      @NonNull Edge edge, long uses, long numServiceRequests, double serviceRequestWeight) {
+    super(uses, numServiceRequests, serviceRequestWeight);
     this.edge = edge; // Save the edge
   }
 
@@ -64,6 +68,19 @@ class EdgeMapItem extends MapItem {
     return mapController.getEdgeToLineMap().get(this.edge);
   }
 
+  /**
+   * Gets the indices of both ends of the edge in a graph
+   *
+   * @param graph the graph to look in
+   * @return the indices of both ends, or null if either isn't in the graph
+   */
+  @Override
+  int[] findIndices(@NonNull HospitalGraph graph) {
+    int first = graph.indexOf(edge.getNode1()); // Index of one end
+    int second = graph.indexOf(edge.getNode2()); // Index of the other end
+    return first == -1 || second == -1 ? null : new int[] {first, second};
+  }
+
   /**
    * Returns the hash code of the map item
    *
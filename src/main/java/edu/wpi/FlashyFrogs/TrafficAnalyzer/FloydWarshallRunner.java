@@ -1,12 +1,14 @@
 package edu.wpi.FlashyFrogs.TrafficAnalyzer;
 
 import edu.wpi.FlashyFrogs.DBConnection;
-import edu.wpi.FlashyFrogs.ORM.Edge;
-import edu.wpi.FlashyFrogs.ORM.Node;
-import edu.wpi.FlashyFrogs.PathFinding.AStar;
+import edu.wpi.FlashyFrogs.Map.GraphChangeBus;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Semaphore;
 import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import org.hibernate.Session;
 
@@ -15,12 +17,11 @@ import org.hibernate.Session;
  */
 public class FloydWarshallRunner {
   @Getter
-  private static Map<Node, Map<Node, Double>>
-      costs; // Costs of traveling from one node to another, will be modified
+  private static volatile RoutingTable
+      routingTable; // Costs and next hops between every pair of nodes, null until calculated
 
-  @Getter
-  private static Map<Node, Map<Node, Node>>
-      nextHops; // Next hop for a given node to reach another node
+  // The algorithm to compute the routing table with, takes effect on the next full re-calculation
+  @Getter @Setter @NonNull private static AllPairsBackend backend = AllPairsBackend.getDefault();
 
   @Getter
   private static final Semaphore reCalculationLock =
@@ -29,14 +30,34 @@ public class FloydWarshallRunner {
 
   private static Thread
       reCalcThread; // Re-calc thread, to prevent duplicate work on many re-calc requests
-  private static boolean threadShouldTerminate; // Signal that the thread should terminate
+  private static volatile boolean threadShouldTerminate; // Signal that the thread should terminate
+
+  // Re-calculate whenever a change to the graph is committed, patching the table if possible
+  static {
+    GraphChangeBus.BUS.addListener((change) -> reCalculate(change.isFullReload()));
+  }
+
   /**
    * Method to re-calculate the costs and next hops Floyd-Warshall from scratch via Floyd-Warshall
    * and DB queries. The update is run in the background, and holds reCalculationLock while it is
    * progressing
    */
-  @SneakyThrows
   public static void reCalculate() {
+    reCalculate(true);
+  }
+
+  /**
+   * Method to re-calculate the costs and next hops via DB queries. If a table was saved for the
+   * exact same graph, e.g. by an earlier launch, it is loaded from disk instead. Otherwise, unless
+   * told to start from scratch, the existing table is patched with only the parts of the graph that
+   * changed since it was computed, which is much faster for small edits. Changes too large to patch
+   * fall back to the backend. Newly computed tables are saved for next time. The update is run in
+   * the background, and holds reCalculationLock while it is progressing
+   *
+   * @param fromScratch whether to ignore the existing table and compute a new one with the backend
+   */
+  @SneakyThrows
+  public static void reCalculate(boolean fromScratch) {
     // Check the thread status
     if (reCalcThread != null && reCalcThread.isAlive()) {
       threadShouldTerminate = true; // Signal that the thread should terminate
@@ -54,12 +75,37 @@ public class FloydWarshallRunner {
             () -> {
               // Check the thread status
               if (!threadShouldTerminate) {
-                reCalculateEuclideanEdgeWeights(); // Re-calculate the edge weights
-              }
-
-              // Check it again
-              if (!threadShouldTerminate) {
-                doFloydWarshall(); // Run floyd-warshall
+                HospitalGraph graph = loadGraph(); // Load the graph
+                RoutingTable previous = routingTable; // The table to patch, if there is one
+                RoutingTable table = null; // The new table
+
+                // Try to load a table saved for this exact graph, unless there is one to patch
+                if (fromScratch || previous == null) {
+                  table = RoutingTableFile.load(RoutingTableFile.DEFAULT_PATH, graph);
+                }
+                boolean loaded = table != null; // Whether the table came from disk
+
+                // Try to patch the previous table
+                if (table == null && !fromScratch && previous != null) {
+                  table =
+                      RoutingTable.update(
+                          previous, graph, ForkJoinPool.commonPool(), () -> threadShouldTerminate);
+                }
+
+                // If that isn't possible, run the backend
+                if (table == null && !threadShouldTerminate) {
+                  table = backend.compute(graph, () -> threadShouldTerminate);
+                }
+
+                // Only save the result if it finished
+                if (table != null) {
+                  routingTable = table;
+
+                  // Write new tables to disk, so they don't have to be computed again
+                  if (!loaded) {
+                    RoutingTableFile.save(RoutingTableFile.DEFAULT_PATH, table);
+                  }
+                }
               }
 
               // If the thread has been signaled to end, it will be replaced, so don't release its
@@ -75,81 +121,14 @@ public class FloydWarshallRunner {
   }
 
   /**
-   * Re-calculates costs to be the euclidean edge weights taken directly from the map. This is a
-   * blocking operation and very time consuming
+   * Loads a snapshot of the graph from the database, with its own session. This is much faster than
+   * doing each individual node->other nodes with its own query
+   *
+   * @return the loaded graph
    */
-  private static void reCalculateEuclideanEdgeWeights() {
-    // First, fetch everything
-    Collection<Node> nodes; // All nodes
-    Collection<Edge> edges; // All edges
-
-    // Populate those. This is much faster than doing each individual node->other nodes with its own
-    // query
+  private static HospitalGraph loadGraph() {
     try (Session querySession = DBConnection.CONNECTION.getSessionFactory().openSession()) {
-      // Get all nodes and edges
-      nodes = querySession.createQuery("FROM Node", Node.class).getResultList();
-      edges = querySession.createQuery("FROM Edge", Edge.class).getResultList();
-    }
-
-    // Pre-size for speed
-    costs = new HashMap<>(nodes.size());
-    nextHops = new HashMap<>(nodes.size());
-
-    // For each edge
-    for (Edge edge : edges) {
-      // If the costs don't have the start node
-      if (!costs.containsKey(edge.getNode1())) {
-        // Save stuff
-        costs.put(edge.getNode1(), new HashMap<>(nodes.size())); // Save the costs
-        nextHops.put(edge.getNode1(), new HashMap<>(nodes.size())); // Save the next hops
-      }
-
-      // If the costs don't have the start node
-      if (!costs.containsKey(edge.getNode2())) {
-        costs.put(edge.getNode2(), new HashMap<>(nodes.size())); // Save the costs
-        nextHops.put(edge.getNode2(), new HashMap<>(nodes.size())); // Save the next hops
-      }
-
-      double cost = AStar.euclideanDistance(edge.getNode1(), edge.getNode2()); // Calculate the
-      costs.get(edge.getNode1()).put(edge.getNode2(), cost); // Save costs
-      costs.get(edge.getNode2()).put(edge.getNode1(), cost); // Save costs
-      nextHops.get(edge.getNode1()).put(edge.getNode2(), edge.getNode2()); // Next hop
-      nextHops.get(edge.getNode2()).put(edge.getNode1(), edge.getNode1()); // Next hop
-    }
-  }
-
-  /**
-   * Runs Floyd-Warshall. This will modify the costs map, and completely re-generate the next hops
-   * map. This is a long, blocking, time consuming operation
-   */
-  private static void doFloydWarshall() {
-    // Run FW, basically for each node i (yes the middle one) check if k is a shortcut to get to j
-    // as opposed to
-    // going directly
-    for (Node k : costs.keySet()) {
-      for (Node i : costs.keySet()) {
-        for (Node j : costs.keySet()) {
-          // If the thread should terminate
-          if (threadShouldTerminate) {
-            return; // Just exit
-          }
-
-          // If the edge doesn't exist (i-> k or k -> j), just skip
-          if (costs.get(i).get(k) == null || costs.get(k).get(j) == null) {
-            continue; // Skip
-          }
-
-          // Compute the new potential cost
-          double newPotentialCosts = costs.get(i).get(k) + costs.get(k).get(j);
-
-          // If we haven't found a path i->j yet or this path is shorter
-          if (costs.get(i).get(j) == null || costs.get(i).get(j) > newPotentialCosts) {
-            // Save the cost
-            costs.get(i).put(j, newPotentialCosts); // Save it
-            nextHops.get(i).put(j, nextHops.get(i).get(k)); // i will now go to k to get to j
-          }
-        }
-      }
+      return HospitalGraph.fromSession(querySession, new Date());
     }
   }
 }
@@ -1,8 +1,8 @@
 package edu.wpi.FlashyFrogs.TrafficAnalyzer;
 
 import edu.wpi.FlashyFrogs.Map.MapController;
-import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.Comparator;
 import javafx.geometry.Point2D;
 import javafx.scene.shape.Shape;
 import lombok.Getter;
@@ -10,24 +10,34 @@ import lombok.NonNull;
 
 /** Abstract class representing a map item */
 abstract class MapItem {
-  @NonNull @Getter
-  private final Collection<Path> relevantPaths; // Paths that are relevant to this map item
+  /**
+   * Orders items by total weight, heaviest first. Ties are broken by type and then by name, so the
+   * order doesn't depend on the order the items were made in
+   */
+  static final Comparator<MapItem> HEAVIEST_FIRST =
+      Comparator.comparingDouble(MapItem::getTotalWeight)
+          .reversed()
+          .thenComparing(MapItem::type)
+          .thenComparing(MapItem::getMapItemString);
 
   private final double serviceRequestWeight; // Weight for the service requests
-  @Getter private int numServiceRequests = 0; // Number of service requests this has
-
-  /** Constructor, sets the relevant paths for this */
-  MapItem(double serviceRequestWeight) {
-    this.relevantPaths = new ConcurrentLinkedQueue<>();
+  @Getter private final long uses; // Number of paths that go through this
+  @Getter private final long numServiceRequests; // Number of service requests this has
 
+  /**
+   * Constructor, sets the final counts for this. Items are only made once every path has been
+   * counted, so the counts never change afterwards
+   *
+   * @param uses the number of paths that go through this
+   * @param numServiceRequests the number of service requests at the ends of those paths
+   * @param serviceRequestWeight weight for service requests, used in weight calculation
+   */
+  MapItem(long uses, long numServiceRequests, double serviceRequestWeight) {
+    this.uses = uses;
+    this.numServiceRequests = numServiceRequests;
     this.serviceRequestWeight = serviceRequestWeight; // Save the weight
   }
 
-  /** Adds a service request to this */
-  void addServiceRequest(int numRequests) {
-    numServiceRequests += numRequests; // Add one to the count
-  }
-
   /**
    * Method that should get the string representation of the map item
    *
@@ -50,7 +60,7 @@ abstract class MapItem {
    * @return the number of uses of the map item, including service requests
    */
   double getTotalWeight() {
-    return relevantPaths.size() + numServiceRequests * serviceRequestWeight;
+    return uses + numServiceRequests * serviceRequestWeight;
   }
 
   /**
@@ -77,6 +87,15 @@ abstract class MapItem {
    */
   abstract Shape getMapBacking(@NonNull MapController mapController);
 
+  /**
+   * Gets where this is in a graph, to find the routes that pass it
+   *
+   * @param graph the graph to look in
+   * @return the index of the node twice, or the indices of both ends of the edge, or null if this
+   *     isn't in the graph
+   */
+  abstract int[] findIndices(@NonNull HospitalGraph graph);
+
   /**
    * Hash code, should compare by the map object
    *
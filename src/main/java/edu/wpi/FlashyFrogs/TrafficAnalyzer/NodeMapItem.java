@@ -2,6 +2,7 @@ package edu.wpi.FlashyFrogs.TrafficAnalyzer;
 
 import edu.wpi.FlashyFrogs.Map.MapController;
 import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
 import javafx.geometry.Point2D;
 import javafx.scene.shape.Shape;
 import lombok.NonNull;
@@ -10,13 +11,16 @@ class NodeMapItem extends MapItem {
   @NonNull private final Node node; // Node this represents
 
   /**
-   * Constructor, sets the relevant paths for this
+   * Constructor, sets the counts for this
    *
    * @param node the node this uses
+   * @param uses the number of paths that go through the node
+   * @param numServiceRequests the number of service requests at the ends of those paths
    * @param serviceRequestWeight weight for service requests, used in weight calculation
    */
-  NodeMapItem(@NonNull Node node, double serviceRequestWeight) {
-    super(serviceRequestWeight);
+  NodeMapItem(
+      @NonNull Node node, long uses, long numServiceRequests, double serviceRequestWeight) {
+    super(uses, numServiceRequests, serviceRequestWeight);
     this.node = node; // Save the node
   }
 
@@ -63,6 +67,18 @@ class NodeMapItem extends MapItem {
     return mapController.getNodeToCircleMap().get(this.node);
   }
 
+  /**
+   * Gets the index of the node in a graph
+   *
+   * @param graph the graph to look in
+   * @return the index of the node twice, or null if it isn't in the graph
+   */
+  @Override
+  int[] findIndices(@NonNull HospitalGraph graph) {
+    int index = graph.indexOf(node); // Index of the node
+    return index == -1 ? null : new int[] {index, index};
+  }
+
   /**
    * Returns the hash code of the map item
    *
@@ -0,0 +1,628 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.Dijkstra;
+import edu.wpi.FlashyFrogs.PathFinding.EdgeCostModel;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * All-pairs shortest path table over a hospital graph snapshot. Stores the cost and the first hop
+ * of the shortest path between every pair of nodes in flat, row-major primitive matrices indexed by
+ * the graphs node indices. Edges cost their euclidean length. A table may only have some of its
+ * columns (destinations) computed, in which case only paths to those destinations are known
+ */
+public final class RoutingTable {
+  private static final byte UNKNOWN = 0; // Path state that hasn't been checked yet
+  private static final byte VALID = 1; // Path state for paths that are still there
+  private static final byte INVALID = 2; // Path state for paths that used a removed arc
+
+  @Getter @NonNull private final HospitalGraph graph; // The graph the table is for
+  private final int size; // The number of nodes in the graph
+  @NonNull private final DoubleBuffer distances; // Cost from row to column, infinity if unreachable
+  @NonNull private final IntBuffer nextHops; // First hop from row to column, -1 if unreachable
+  @NonNull private final BitSet computedColumns; // Destinations that have been computed
+
+  /**
+   * Creates a routing table from already computed matrices. The matrices may be backed by arrays,
+   * or by a file that was mapped into memory
+   *
+   * @param graph the graph the table is for
+   * @param distances the n * n distance matrix
+   * @param nextHops the n * n next-hop matrix
+   * @param computedColumns the columns of the matrices that have been computed
+   */
+  RoutingTable(
+      @NonNull HospitalGraph graph,
+      @NonNull DoubleBuffer distances,
+      @NonNull IntBuffer nextHops,
+      @NonNull BitSet computedColumns) {
+    this.graph = graph;
+    this.size = graph.size();
+    this.distances = distances;
+    this.nextHops = nextHops;
+    this.computedColumns = computedColumns;
+  }
+
+  /**
+   * Creates a bit set with every column of a graph set
+   *
+   * @param graph the graph
+   * @return the bit set with every column set
+   */
+  @NonNull
+  private static BitSet allColumns(@NonNull HospitalGraph graph) {
+    BitSet columns = new BitSet(graph.size());
+    columns.set(0, graph.size());
+    return columns;
+  }
+
+  /**
+   * Computes the routing table for a graph with blocked Floyd-Warshall
+   *
+   * @param graph the graph to compute the table for
+   * @param shouldTerminate checked periodically, stops the computation if it returns true
+   * @return the computed table, or null if the computation was terminated
+   */
+  static RoutingTable floydWarshall(
+      @NonNull HospitalGraph graph, @NonNull BooleanSupplier shouldTerminate) {
+    int size = graph.size();
+    double[] distances = new double[size * size];
+    int[] nextHops = new int[size * size];
+    initialize(graph, distances, nextHops);
+
+    // Run FW, giving up if told to
+    if (!BlockedFloydWarshall.run(distances, nextHops, size, shouldTerminate)) {
+      return null;
+    }
+
+    return new RoutingTable(
+        graph, DoubleBuffer.wrap(distances), IntBuffer.wrap(nextHops), allColumns(graph));
+  }
+
+  /**
+   * Computes the routing table for a graph with blocked Floyd-Warshall, processing the independent
+   * tiles of each round in parallel
+   *
+   * @param graph the graph to compute the table for
+   * @param pool the pool to compute the tiles on
+   * @param shouldTerminate checked periodically, stops the computation if it returns true
+   * @return the computed table, or null if the computation was terminated
+   */
+  static RoutingTable parallelFloydWarshall(
+      @NonNull HospitalGraph graph,
+      @NonNull ForkJoinPool pool,
+      @NonNull BooleanSupplier shouldTerminate) {
+    int size = graph.size();
+    double[] distances = new double[size * size];
+    int[] nextHops = new int[size * size];
+    initialize(graph, distances, nextHops);
+
+    // Run FW, giving up if told to
+    if (!BlockedFloydWarshall.runParallel(distances, nextHops, size, pool, shouldTerminate)) {
+      return null;
+    }
+
+    return new RoutingTable(
+        graph, DoubleBuffer.wrap(distances), IntBuffer.wrap(nextHops), allColumns(graph));
+  }
+
+  /**
+   * Computes the routing table for a graph by running Dijkstra from each node that has ever held a
+   * non-hallway location, in parallel. Only the columns for those nodes are computed: since edges
+   * are undirected, the shortest path tree rooted at a destination gives the cost and next hop
+   * from every other node to it. The hospital graph is very sparse, so this is far less work than
+   * Floyd-Warshall
+   *
+   * @param graph the graph to compute the table for
+   * @param pool the pool to run the searches on
+   * @param shouldTerminate checked periodically, stops the computation if it returns true
+   * @return the computed table, or null if the computation was terminated
+   */
+  static RoutingTable dijkstra(
+      @NonNull HospitalGraph graph,
+      @NonNull ForkJoinPool pool,
+      @NonNull BooleanSupplier shouldTerminate) {
+    int size = graph.size();
+    double[] distances = new double[size * size];
+    int[] nextHops = new int[size * size];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY); // Nothing computed yet
+    Arrays.fill(nextHops, -1);
+
+    BitSet columns = hostColumns(graph); // The destinations to compute
+
+    // Run the searches, giving up if told to
+    if (!fillColumns(graph, columns, distances, nextHops, pool, shouldTerminate)) {
+      return null;
+    }
+
+    return new RoutingTable(graph, DoubleBuffer.wrap(distances), IntBuffer.wrap(nextHops), columns);
+  }
+
+  /**
+   * Creates a bit set with the column of every node that has ever held a non-hallway location set
+   *
+   * @param graph the graph
+   * @return the bit set with the non-hallway columns set
+   */
+  @NonNull
+  private static BitSet hostColumns(@NonNull HospitalGraph graph) {
+    BitSet columns = new BitSet(graph.size());
+    for (int i = 0; i < graph.size(); i++) {
+      if (graph.isNonHallwayHost(i)) {
+        columns.set(i);
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Fills several columns of the matrices in parallel, one Dijkstra search per column
+   *
+   * @param graph the graph to search
+   * @param columns the indices of the destinations to fill
+   * @param distances the distance matrix to fill
+   * @param nextHops the next-hop matrix to fill
+   * @param pool the pool to run the searches on
+   * @param shouldTerminate checked before each search, stops the computation if it returns true
+   * @return true if every column was filled, false if the computation was terminated
+   */
+  private static boolean fillColumns(
+      @NonNull HospitalGraph graph,
+      @NonNull BitSet columns,
+      @NonNull double[] distances,
+      @NonNull int[] nextHops,
+      @NonNull ForkJoinPool pool,
+      @NonNull BooleanSupplier shouldTerminate) {
+    // Each search fills in its own column, so they can run independently
+    pool.submit(
+            () ->
+                columns.stream()
+                    .parallel()
+                    .forEach(
+                        (column) -> {
+                          if (!shouldTerminate.getAsBoolean()) {
+                            fillColumn(graph, column, distances, nextHops);
+                          }
+                        }))
+        .join();
+
+    return !shouldTerminate.getAsBoolean(); // If it was terminated, columns may have been skipped
+  }
+
+  /**
+   * Fills one column of the matrices with a Dijkstra search rooted at the destination
+   *
+   * @param graph the graph to search
+   * @param column the index of the destination
+   * @param distances the distance matrix to fill
+   * @param nextHops the next-hop matrix to fill
+   */
+  private static void fillColumn(
+      @NonNull HospitalGraph graph,
+      int column,
+      @NonNull double[] distances,
+      @NonNull int[] nextHops) {
+    int size = graph.size();
+    double[] treeDistances = new double[size]; // Cost from the destination to each node
+    int[] parents = new int[size]; // Parent of each node, towards the destination
+
+    new Dijkstra(graph)
+        .shortestPathTree(column, EdgeCostModel.DISTANCE, false, treeDistances, parents);
+
+    // The tree is rooted at the destination, so each nodes parent is its next hop towards it
+    for (int row = 0; row < size; row++) {
+      distances[row * size + column] = treeDistances[row];
+      nextHops[row * size + column] = row == column ? column : parents[row];
+    }
+  }
+
+  /**
+   * Patches a previously computed table to match a newer snapshot of the graph, instead of
+   * computing the new table from scratch. The changes are found by comparing the two graphs by node
+   * ID. A node whose coordinates changed counts as removed and re-added. Removed edges (including
+   * those of removed nodes) only invalidate the paths that used them, and only those pairs are
+   * repaired, by searching out from the still valid part of each destinations shortest path tree.
+   * Added edges are then relaxed into every pair using exact shortest path trees rooted at their
+   * ends, since any path that got shorter must go through one of them. The new table computes the
+   * same destinations as the old one: every node if it was complete, otherwise the non-hallway
+   * nodes. Destinations that weren't in the old table are computed with Dijkstra
+   *
+   * @param previous the table to patch, which is not modified
+   * @param graph the new graph snapshot
+   * @param pool the pool to run the searches on
+   * @param shouldTerminate checked periodically, stops the computation if it returns true
+   * @return the patched table, or null if the computation was terminated or the change is large
+   *     enough that computing the table from scratch would be better
+   */
+  static RoutingTable update(
+      @NonNull RoutingTable previous,
+      @NonNull HospitalGraph graph,
+      @NonNull ForkJoinPool pool,
+      @NonNull BooleanSupplier shouldTerminate) {
+    HospitalGraph oldGraph = previous.graph;
+    int oldSize = previous.size;
+    int size = graph.size();
+
+    // Match up the nodes in both graphs, -1 for nodes that were added, removed, or changed
+    int[] oldIndices = new int[size]; // New index to old index
+    int[] newIndices = new int[oldSize]; // Old index to new index
+    Arrays.fill(newIndices, -1);
+    for (int i = 0; i < size; i++) {
+      int oldIndex = oldGraph.indexOf(graph.getNode(i));
+
+      // A node that moved has different edge costs, so it can't be reused
+      if (oldIndex != -1
+          && (oldGraph.getX(oldIndex) != graph.getX(i)
+              || oldGraph.getY(oldIndex) != graph.getY(i))) {
+        oldIndex = -1;
+      }
+
+      oldIndices[i] = oldIndex;
+      if (oldIndex != -1) {
+        newIndices[oldIndex] = i;
+      }
+    }
+
+    // The destinations to compute, same kind as before
+    BitSet columns =
+        previous.computedColumns.cardinality() == oldSize ? allColumns(graph) : hostColumns(graph);
+
+    // Destinations to compute from scratch, the ones that weren't known before
+    BitSet recompute = new BitSet(size);
+    for (int column = columns.nextSetBit(0);
+        column != -1;
+        column = columns.nextSetBit(column + 1)) {
+      if (oldIndices[column] == -1 || !previous.computedColumns.get(oldIndices[column])) {
+        recompute.set(column);
+      }
+    }
+
+    // Whether any arcs were removed, if not every old path is still there
+    boolean arcsRemoved = false;
+    for (int from = 0; from < oldSize && !arcsRemoved; from++) {
+      for (int arc = oldGraph.arcsStart(from); arc < oldGraph.arcsEnd(from); arc++) {
+        int to = oldGraph.arcTarget(arc);
+
+        if (newIndices[from] == -1
+            || newIndices[to] == -1
+            || !graph.hasArc(newIndices[from], newIndices[to])) {
+          arcsRemoved = true;
+          break;
+        }
+      }
+    }
+
+    // The ends of every added edge, each needs its own search
+    BitSet addedEnds = new BitSet(size);
+    for (int from = 0; from < size; from++) {
+      for (int arc = graph.arcsStart(from); arc < graph.arcsEnd(from); arc++) {
+        int to = graph.arcTarget(arc);
+
+        if (isAdded(oldGraph, oldIndices, from, to)) {
+          addedEnds.set(from);
+        }
+      }
+    }
+
+    // If patching takes as many searches as starting over, start over instead
+    if (recompute.cardinality() + addedEnds.cardinality() >= columns.cardinality()) {
+      return null;
+    }
+
+    double[] distances = new double[size * size];
+    int[] nextHops = new int[size * size];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY); // Nothing known yet
+    Arrays.fill(nextHops, -1);
+
+    // Compute the destinations that weren't known before
+    if (!fillColumns(graph, recompute, distances, nextHops, pool, shouldTerminate)) {
+      return null;
+    }
+
+    // Copy over the rest, repairing the paths that went through removed arcs
+    Dijkstra dijkstra = new Dijkstra(graph);
+    byte[] states = new byte[oldSize]; // Whether each old row is still valid, reused per column
+    int[] chain = new int[oldSize]; // Scratch space for walking paths
+    BitSet invalid = new BitSet(size); // New rows that need to be repaired, reused per column
+    double[] columnDistances = new double[size]; // Cost from each node to the destination
+    int[] columnHops = new int[size]; // Next hop from each node towards the destination
+    for (int column = columns.nextSetBit(0);
+        column != -1;
+        column = columns.nextSetBit(column + 1)) {
+      if (recompute.get(column)) {
+        continue; // Already done
+      }
+
+      if (shouldTerminate.getAsBoolean()) {
+        return null;
+      }
+
+      // Find which paths to the destination are still there
+      int oldColumn = oldIndices[column];
+      Arrays.fill(states, arcsRemoved ? UNKNOWN : VALID);
+      for (int oldRow = 0; oldRow < oldSize && arcsRemoved; oldRow++) {
+        markPath(previous, graph, newIndices, oldRow, oldColumn, states, chain);
+      }
+
+      Arrays.fill(columnDistances, Double.POSITIVE_INFINITY);
+      Arrays.fill(columnHops, -1);
+      invalid.clear();
+      for (int row = 0; row < size; row++) {
+        int oldRow = oldIndices[row];
+
+        // New nodes can only reach the destination through added edges, found below
+        if (oldRow == -1) {
+          continue;
+        }
+
+        int oldHop = previous.nextHops.get(oldRow * oldSize + oldColumn); // Where the path went
+        if (states[oldRow] == INVALID) {
+          invalid.set(row);
+        } else if (oldHop != -1) {
+          columnDistances[row] = previous.distances.get(oldRow * oldSize + oldColumn);
+          columnHops[row] = newIndices[oldHop];
+        }
+      }
+
+      // The destination is the root of the tree, so the hops are the parents
+      if (!invalid.isEmpty()) {
+        dijkstra.repairTree(invalid, graph::distance, columnDistances, columnHops);
+      }
+
+      for (int row = 0; row < size; row++) {
+        distances[row * size + column] = columnDistances[row];
+        nextHops[row * size + column] = columnHops[row];
+      }
+    }
+
+    // Relax the added edges into the destinations that were copied
+    double[] treeDistances = new double[size]; // Cost from the end of the edge to each node
+    int[] parents = new int[size]; // Parent of each node, towards the end of the edge
+    for (int end = addedEnds.nextSetBit(0); end != -1; end = addedEnds.nextSetBit(end + 1)) {
+      if (shouldTerminate.getAsBoolean()) {
+        return null;
+      }
+
+      dijkstra.shortestPathTree(end, EdgeCostModel.DISTANCE, false, treeDistances, parents);
+
+      for (int arc = graph.arcsStart(end); arc < graph.arcsEnd(end); arc++) {
+        int other = graph.arcTarget(arc);
+        if (!isAdded(oldGraph, oldIndices, end, other)) {
+          continue; // Was already there
+        }
+
+        // Try every path that goes to this end, then over the edge, then on to the destination
+        double edgeCost = graph.distance(end, other);
+        for (int column = columns.nextSetBit(0);
+            column != -1;
+            column = columns.nextSetBit(column + 1)) {
+          if (recompute.get(column)) {
+            continue; // Already exact
+          }
+
+          double rest = edgeCost + distances[other * size + column];
+          for (int row = 0; row < size; row++) {
+            if (treeDistances[row] + rest < distances[row * size + column]) {
+              distances[row * size + column] = treeDistances[row] + rest;
+              nextHops[row * size + column] = row == end ? other : parents[row];
+            }
+          }
+        }
+      }
+    }
+
+    return new RoutingTable(graph, DoubleBuffer.wrap(distances), IntBuffer.wrap(nextHops), columns);
+  }
+
+  /**
+   * Follows the path from one node to a destination in a previous table, marking every node along
+   * it as valid if the path is still in the new graph, or invalid if it used a removed arc. Stops
+   * early at nodes that are already marked, so marking every node is linear
+   *
+   * @param previous the previous table
+   * @param graph the new graph
+   * @param newIndices the index of each node of the old graph in the new one, -1 if it isn't there
+   * @param oldRow the old index of the node to start from
+   * @param oldColumn the old index of the destination
+   * @param states the state of each old node
+   * @param chain scratch space, at least as long as the old graph
+   */
+  private static void markPath(
+      @NonNull RoutingTable previous,
+      @NonNull HospitalGraph graph,
+      @NonNull int[] newIndices,
+      int oldRow,
+      int oldColumn,
+      @NonNull byte[] states,
+      @NonNull int[] chain) {
+    int length = 0; // Nodes on the path without a state yet
+    int at = oldRow; // Node the walk is at
+    byte state; // The state of the nodes on the path
+
+    while (true) {
+      if (states[at] != UNKNOWN) {
+        state = states[at]; // The rest of the path is known
+        break;
+      }
+
+      int hop = previous.nextHops.get(at * previous.size + oldColumn); // Next node on the path
+      if (at == oldColumn || hop == -1) {
+        state = VALID; // Reached the destination, or there never was a path
+        break;
+      }
+
+      chain[length++] = at;
+
+      // If the arc to the next node is gone, so is the path
+      if (newIndices[at] == -1
+          || newIndices[hop] == -1
+          || !graph.hasArc(newIndices[at], newIndices[hop])) {
+        state = INVALID;
+        break;
+      }
+
+      at = hop;
+    }
+
+    // Everything on the path shares its state
+    for (int i = 0; i < length; i++) {
+      states[chain[i]] = state;
+    }
+  }
+
+  /**
+   * Checks whether an arc in a new graph snapshot wasn't in an older one
+   *
+   * @param oldGraph the older graph
+   * @param oldIndices the index of each node of the new graph in the old one, -1 if it isn't there
+   * @param from the index of the node the arc starts at in the new graph
+   * @param to the index of the node the arc points to in the new graph
+   * @return true if the arc was added
+   */
+  private static boolean isAdded(
+      @NonNull HospitalGraph oldGraph, @NonNull int[] oldIndices, int from, int to) {
+    return oldIndices[from] == -1
+        || oldIndices[to] == -1
+        || !oldGraph.hasArc(oldIndices[from], oldIndices[to]);
+  }
+
+  /**
+   * Gets the distance matrix, for saving the table
+   *
+   * @return a read-only view of the n * n distance matrix
+   */
+  @NonNull
+  DoubleBuffer getDistanceMatrix() {
+    return distances.asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the next-hop matrix, for saving the table
+   *
+   * @return a read-only view of the n * n next-hop matrix
+   */
+  @NonNull
+  IntBuffer getNextHopMatrix() {
+    return nextHops.asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the columns that have been computed, for saving the table
+   *
+   * @return a copy of the bit set of computed columns
+   */
+  @NonNull
+  BitSet getComputedColumns() {
+    return (BitSet) computedColumns.clone();
+  }
+
+  /**
+   * Checks whether paths to a destination have been computed
+   *
+   * @param to the index of the destination
+   * @return true if the paths to the destination are in the table
+   */
+  public boolean hasDestination(int to) {
+    return computedColumns.get(to);
+  }
+
+  /**
+   * Fills the matrices with the direct edge costs, the starting point for Floyd-Warshall
+   *
+   * @param graph the graph to take the edges from
+   * @param distances the distance matrix to fill
+   * @param nextHops the next-hop matrix to fill
+   */
+  private static void initialize(
+      @NonNull HospitalGraph graph, @NonNull double[] distances, @NonNull int[] nextHops) {
+    int size = graph.size();
+    Arrays.fill(distances, Double.POSITIVE_INFINITY); // Nothing is reachable yet
+    Arrays.fill(nextHops, -1);
+
+    for (int i = 0; i < size; i++) {
+      distances[i * size + i] = 0; // Nodes reach themselves for free
+      nextHops[i * size + i] = i;
+
+      // Each edge is a direct path
+      for (int arc = graph.arcsStart(i); arc < graph.arcsEnd(i); arc++) {
+        int j = graph.arcTarget(arc);
+        distances[i * size + j] = graph.distance(i, j);
+        nextHops[i * size + j] = j;
+      }
+    }
+  }
+
+  /**
+   * Gets the cost of the shortest path between two nodes by index
+   *
+   * @param from the index of the start node
+   * @param to the index of the end node
+   * @return the cost of the shortest path, or positive infinity if there is none or neither node
+   *     is a computed destination
+   */
+  public double getCost(int from, int to) {
+    // Costs are symmetric, so if only the other direction is known, use it
+    if (!computedColumns.get(to) && computedColumns.get(from)) {
+      return distances.get(to * size + from);
+    }
+
+    return distances.get(from * size + to);
+  }
+
+  /**
+   * Gets the first hop on the shortest path between two nodes by index
+   *
+   * @param from the index of the start node
+   * @param to the index of the end node
+   * @return the index of the first hop, or -1 if there is no path or the destination wasn't
+   *     computed
+   */
+  public int getNextHop(int from, int to) {
+    return nextHops.get(from * size + to);
+  }
+
+  /**
+   * Gets the cost of the shortest path between two nodes
+   *
+   * @param from the start node
+   * @param to the end node
+   * @return the cost of the shortest path, or positive infinity if there is none or either node
+   *     isn't in the graph
+   */
+  public double getCost(@NonNull Node from, @NonNull Node to) {
+    int fromIndex = graph.indexOf(from);
+    int toIndex = graph.indexOf(to);
+
+    if (fromIndex == -1 || toIndex == -1) {
+      return Double.POSITIVE_INFINITY; // Not in the graph, so no path
+    }
+
+    return getCost(fromIndex, toIndex);
+  }
+
+  /**
+   * Gets the first hop on the shortest path between two nodes
+   *
+   * @param from the start node
+   * @param to the end node
+   * @return the first hop, or null if there is no path or either node isn't in the graph
+   */
+  public Node getNextHop(@NonNull Node from, @NonNull Node to) {
+    int fromIndex = graph.indexOf(from);
+    int toIndex = graph.indexOf(to);
+
+    if (fromIndex == -1 || toIndex == -1 || getNextHop(fromIndex, toIndex) == -1) {
+      return null; // Not in the graph or unreachable, so no path
+    }
+
+    return graph.getNode(getNextHop(fromIndex, toIndex));
+  }
+}
@@ -0,0 +1,240 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import lombok.NonNull;
+
+/**
+ * Saves routing tables to a compact binary file, and loads them back by mapping the file into
+ * memory. Each file is keyed by a hash of the graph the table was computed for, so a saved table is
+ * only ever used for the exact same graph. Loading is then just paging the file in, and every
+ * process that loads the same file shares the same pages
+ *
+ * <p>The file is little-endian: a header with a magic number, the format version, the graph hash,
+ * and the number of nodes, padded to 8 bytes. Then the computed columns as a bitmap of longs, the
+ * distance matrix as doubles, and the next-hop matrix as ints
+ */
+final class RoutingTableFile {
+  static final Path DEFAULT_PATH =
+      Path.of(System.getProperty("user.home"), ".flashyfrogs", "routingTable.bin");
+
+  private static final int MAGIC = 0x46465254; // "FFRT", marks a routing table file
+  private static final int FORMAT_VERSION = 1; // Version of the layout, bump whenever it changes
+  private static final int HASH_BYTES = 32; // Length of a SHA-256 hash
+  private static final int HEADER_BYTES = 48; // Magic, version, hash, and size, padded to 8 bytes
+
+  /** Static utility class, no instances */
+  private RoutingTableFile() {}
+
+  /**
+   * Hashes everything about a graph that a routing table depends on: the order, IDs, and
+   * coordinates of the nodes, which of them hold non-hallway locations, and the arcs between them
+   *
+   * @param graph the graph to hash
+   * @return the SHA-256 hash of the graph
+   */
+  @NonNull
+  static byte[] hash(@NonNull HospitalGraph graph) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // Every JVM is required to have SHA-256
+    }
+
+    // Write the graph through the digest, without keeping the bytes
+    try (DataOutputStream out =
+        new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+      out.writeInt(graph.size());
+
+      for (int i = 0; i < graph.size(); i++) {
+        out.writeUTF(graph.getNode(i).getId());
+        out.writeInt(graph.getX(i));
+        out.writeInt(graph.getY(i));
+        out.writeBoolean(graph.isNonHallwayHost(i));
+
+        // The arcs, preceded by their count so they can't run into the next node
+        out.writeInt(graph.arcsEnd(i) - graph.arcsStart(i));
+        for (int arc = graph.arcsStart(i); arc < graph.arcsEnd(i); arc++) {
+          out.writeInt(graph.arcTarget(arc));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // Can't happen, nothing is actually written
+    }
+
+    return digest.digest();
+  }
+
+  /**
+   * Gets the number of longs in the computed column bitmap for a graph
+   *
+   * @param size the number of nodes in the graph
+   * @return the number of longs in the bitmap
+   */
+  private static int bitmapWords(int size) {
+    return (size + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * Gets the length of the file for a graph
+   *
+   * @param size the number of nodes in the graph
+   * @return the length of the file in bytes
+   */
+  private static long fileLength(int size) {
+    long cells = (long) size * size; // Cells in each matrix
+    return HEADER_BYTES
+        + (long) bitmapWords(size) * Long.BYTES
+        + cells * Double.BYTES
+        + cells * Integer.BYTES;
+  }
+
+  /**
+   * Loads the routing table for a graph, if one was saved for that exact graph. The table reads
+   * straight from the mapped file, which stays mapped for as long as the table is in use
+   *
+   * @param path the file to load from
+   * @param graph the graph to load the table for
+   * @return the loaded table, or null if there is no usable table saved for the graph
+   */
+  static RoutingTable load(@NonNull Path path, @NonNull HospitalGraph graph) {
+    int size = graph.size();
+    long length = fileLength(size);
+    if (length > Integer.MAX_VALUE) {
+      return null; // Too big to map as one buffer, so it was never saved
+    }
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() != length) {
+        return null; // Saved for a different number of nodes, or not a table at all
+      }
+
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length); // Valid after closing
+    } catch (IOException e) {
+      return null; // Nothing was saved yet, or it can't be read
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    // Check that the file is a table for exactly this graph
+    byte[] hash = new byte[HASH_BYTES];
+    buffer.get(2 * Integer.BYTES, hash);
+    if (buffer.getInt(0) != MAGIC
+        || buffer.getInt(Integer.BYTES) != FORMAT_VERSION
+        || buffer.getInt(2 * Integer.BYTES + HASH_BYTES) != size
+        || !Arrays.equals(hash, hash(graph))) {
+      return null;
+    }
+
+    // Read the bitmap, and view the matrices in place
+    int matrixCells = size * size; // Cells in each matrix
+    int distancesOffset = HEADER_BYTES + bitmapWords(size) * Long.BYTES; // Start of the distances
+    int nextHopsOffset = distancesOffset + matrixCells * Double.BYTES; // Start of the next hops
+    long[] words = new long[bitmapWords(size)];
+    slice(buffer, HEADER_BYTES, words.length * Long.BYTES).asLongBuffer().get(words);
+    DoubleBuffer distances =
+        slice(buffer, distancesOffset, matrixCells * Double.BYTES).asDoubleBuffer();
+    IntBuffer nextHops = slice(buffer, nextHopsOffset, matrixCells * Integer.BYTES).asIntBuffer();
+
+    return new RoutingTable(graph, distances, nextHops, BitSet.valueOf(words));
+  }
+
+  /**
+   * Saves a routing table, replacing any table that was saved before. The table is written to a
+   * temporary file that is then moved into place, so other processes that have the old file mapped
+   * keep seeing the old table, and no process ever sees a partly written one
+   *
+   * @param path the file to save to
+   * @param table the table to save
+   * @return true if the table was saved, false if it couldn't be
+   */
+  static boolean save(@NonNull Path path, @NonNull RoutingTable table) {
+    int size = table.getGraph().size();
+    long length = fileLength(size);
+    if (length > Integer.MAX_VALUE) {
+      return false; // Too big to map as one buffer
+    }
+
+    Path temporary = null; // The file being written
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      temporary = Files.createTempFile(path.toAbsolutePath().getParent(), "routingTable", ".tmp");
+
+      try (FileChannel channel =
+          FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Header
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.put(hash(table.getGraph()));
+        buffer.putInt(size);
+
+        // Bitmap, padded out to the full length
+        long[] words = Arrays.copyOf(table.getComputedColumns().toLongArray(), bitmapWords(size));
+        slice(buffer, HEADER_BYTES, words.length * Long.BYTES).asLongBuffer().put(words);
+
+        // Matrices
+        int matrixCells = size * size; // Cells in each matrix
+        int distancesOffset = HEADER_BYTES + words.length * Long.BYTES; // Start of the distances
+        int nextHopsOffset = distancesOffset + matrixCells * Double.BYTES; // Start of the next hops
+        slice(buffer, distancesOffset, matrixCells * Double.BYTES)
+            .asDoubleBuffer()
+            .put(table.getDistanceMatrix());
+        slice(buffer, nextHopsOffset, matrixCells * Integer.BYTES)
+            .asIntBuffer()
+            .put(table.getNextHopMatrix());
+
+        buffer.force(); // Make sure it's all on disk before it is moved into place
+      }
+
+      Files.move(
+          temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    } catch (IOException e) {
+      return false; // Saving is only an optimization, so it's fine if it fails
+    } finally {
+      // Clean up the temporary file if it wasn't moved
+      if (temporary != null) {
+        try {
+          Files.deleteIfExists(temporary);
+        } catch (IOException ignored) {
+          // Nothing else to do
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a little-endian view of part of a buffer
+   *
+   * @param buffer the buffer to view
+   * @param offset the offset of the view in bytes
+   * @param length the length of the view in bytes
+   * @return the view
+   */
+  @NonNull
+  private static ByteBuffer slice(@NonNull ByteBuffer buffer, int offset, int length) {
+    return buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
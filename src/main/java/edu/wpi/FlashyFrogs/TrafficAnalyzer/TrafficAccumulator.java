@@ -0,0 +1,364 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import lombok.NonNull;
+
+/**
+ * Counts how many routes between pairs of locations go through each node and edge of the map, and
+ * how many service requests those routes lead to. The sources are split between fork-join tasks,
+ * each task counts into its own primitive arrays, and the arrays are summed as the tasks join, so
+ * the workers never share anything while they walk. Only the counts are kept, which pairs of
+ * locations make up a count is worked out again on demand
+ */
+final class TrafficAccumulator {
+  static final int SOURCES_PER_TASK = 8; // Sources each task walks from before it stops splitting
+
+  /** Static utility class, no instances */
+  private TrafficAccumulator() {}
+
+  /**
+   * The counts for every node and edge. Edges are counted on the arc that goes from the lower node
+   * index to the higher one, and the arc in the other direction stays at zero
+   */
+  static final class Counts {
+    private final long[] nodeUses; // Routes through each node
+    private final long[] nodeRequests; // Service requests at the ends of those routes
+    private final long[] arcUses; // Routes along each edge
+    private final long[] arcRequests; // Service requests at the ends of those routes
+
+    /**
+     * Creates empty counts
+     *
+     * @param graph the graph the counts are for
+     */
+    Counts(@NonNull HospitalGraph graph) {
+      nodeUses = new long[graph.size()];
+      nodeRequests = new long[graph.size()];
+      arcUses = new long[graph.arcCount()];
+      arcRequests = new long[graph.arcCount()];
+    }
+
+    /**
+     * Adds another set of counts for the same graph into this one
+     *
+     * @param other the counts to add
+     */
+    void add(@NonNull Counts other) {
+      for (int node = 0; node < nodeUses.length; node++) {
+        nodeUses[node] += other.nodeUses[node];
+        nodeRequests[node] += other.nodeRequests[node];
+      }
+
+      for (int arc = 0; arc < arcUses.length; arc++) {
+        arcUses[arc] += other.arcUses[arc];
+        arcRequests[arc] += other.arcRequests[arc];
+      }
+    }
+
+    /**
+     * Gets the number of routes through a node
+     *
+     * @param node the index of the node
+     * @return the number of routes
+     */
+    long getNodeUses(int node) {
+      return nodeUses[node];
+    }
+
+    /**
+     * Gets the number of service requests at the ends of the routes through a node
+     *
+     * @param node the index of the node
+     * @return the number of service requests
+     */
+    long getNodeRequests(int node) {
+      return nodeRequests[node];
+    }
+
+    /**
+     * Gets the number of routes along an edge
+     *
+     * @param arc the arc for the edge, from the lower node index to the higher one
+     * @return the number of routes
+     */
+    long getArcUses(int arc) {
+      return arcUses[arc];
+    }
+
+    /**
+     * Gets the number of service requests at the ends of the routes along an edge
+     *
+     * @param arc the arc for the edge, from the lower node index to the higher one
+     * @return the number of service requests
+     */
+    long getArcRequests(int arc) {
+      return arcRequests[arc];
+    }
+
+    /**
+     * Gets the number of routes through a node or along an edge
+     *
+     * @param graph the graph the counts are for
+     * @param from the index of the node, or of one end of the edge
+     * @param to the same index as from for a node, or the index of the other end of the edge
+     * @return the number of routes, zero for nodes that aren't joined
+     */
+    long getUses(@NonNull HospitalGraph graph, int from, int to) {
+      if (from == to) {
+        return nodeUses[from];
+      }
+
+      int arc = graph.findArc(Math.min(from, to), Math.max(from, to)); // Where the edge is counted
+      return arc == -1 ? 0 : arcUses[arc];
+    }
+
+    /**
+     * Gets the number of service requests at the ends of the routes through a node or along an edge
+     *
+     * @param graph the graph the counts are for
+     * @param from the index of the node, or of one end of the edge
+     * @param to the same index as from for a node, or the index of the other end of the edge
+     * @return the number of service requests, zero for nodes that aren't joined
+     */
+    long getRequests(@NonNull HospitalGraph graph, int from, int to) {
+      if (from == to) {
+        return nodeRequests[from];
+      }
+
+      int arc = graph.findArc(Math.min(from, to), Math.max(from, to)); // Where the edge is counted
+      return arc == -1 ? 0 : arcRequests[arc];
+    }
+  }
+
+  /**
+   * Walks the route between every pair of locations in a routing table, counting the nodes and
+   * edges along it. Each route counts the service requests at the location it ends at. Pairs that
+   * can't reach each other are skipped
+   *
+   * @param routingTable the routes to walk
+   * @param locations the node index of each location, a node may hold more than one location
+   * @param requests the number of service requests at each location
+   * @param pool the pool to walk the routes on
+   * @return the counts
+   */
+  @NonNull
+  static Counts accumulate(
+      @NonNull RoutingTable routingTable,
+      @NonNull int[] locations,
+      @NonNull int[] requests,
+      @NonNull ForkJoinPool pool) {
+    if (locations.length != requests.length) {
+      throw new IllegalArgumentException("Each location needs a request count");
+    }
+
+    return pool.invoke(
+        new SourceRangeTask(routingTable, locations, requests, false, 0, locations.length));
+  }
+
+  /**
+   * Like accumulate, but only walks the routes that end at a location with service requests, and
+   * only counts the requests. The uses are all left at zero. Much faster than accumulate when only
+   * a few locations have any requests
+   *
+   * @param routingTable the routes to walk
+   * @param locations the node index of each location, a node may hold more than one location
+   * @param requests the number of service requests at each location
+   * @param pool the pool to walk the routes on
+   * @return the counts, with only the requests filled in
+   */
+  @NonNull
+  static Counts accumulateRequests(
+      @NonNull RoutingTable routingTable,
+      @NonNull int[] locations,
+      @NonNull int[] requests,
+      @NonNull ForkJoinPool pool) {
+    if (locations.length != requests.length) {
+      throw new IllegalArgumentException("Each location needs a request count");
+    }
+
+    return pool.invoke(
+        new SourceRangeTask(routingTable, locations, requests, true, 0, locations.length));
+  }
+
+  /**
+   * Finds the pairs of locations whose routes go through a node or along an edge, by walking every
+   * route again. This is the drill-down for a single item, so it is only run when asked for
+   *
+   * @param routingTable the routes to walk
+   * @param locations the node index of each location, as passed to accumulate
+   * @param from the index of the node, or of one end of the edge
+   * @param to the same index as from for a node, or the index of the other end of the edge
+   * @return the positions in locations of the start and end of each matching route, in order
+   */
+  @NonNull
+  static List<int[]> findPairs(
+      @NonNull RoutingTable routingTable, @NonNull int[] locations, int from, int to) {
+    List<int[]> pairs = new ArrayList<>(); // The matching pairs
+
+    for (int source = 0; source < locations.length; source++) {
+      for (int target = 0; target < locations.length; target++) {
+        // Skip the location itself, and pairs that can't reach each other
+        if (source == target
+            || routingTable.getNextHop(locations[source], locations[target]) == -1) {
+          continue;
+        }
+
+        if (passes(routingTable, locations[source], locations[target], from, to)) {
+          pairs.add(new int[] {source, target});
+        }
+      }
+    }
+
+    return pairs;
+  }
+
+  /**
+   * Checks whether a route goes through a node or along an edge
+   *
+   * @param routingTable the routes
+   * @param start the index of the node the route starts at
+   * @param end the index of the node the route ends at
+   * @param from the index of the node, or of one end of the edge
+   * @param to the same index as from for a node, or the index of the other end of the edge
+   * @return true if the route goes through the node or along the edge, in either direction
+   */
+  private static boolean passes(
+      @NonNull RoutingTable routingTable, int start, int end, int from, int to) {
+    for (int current = start; ; ) {
+      if (from == to && current == from) {
+        return true; // Reached the node
+      }
+
+      if (current == end) {
+        return false; // Reached the end without passing it
+      }
+
+      int next = routingTable.getNextHop(current, end); // Next node on the route
+      if ((current == from && next == to) || (current == to && next == from)) {
+        return true; // Went along the edge
+      }
+
+      current = next;
+    }
+  }
+
+  /** Fork-join task that walks the routes from a range of sources, splitting it until it's small */
+  private static final class SourceRangeTask extends RecursiveTask<Counts> {
+    @NonNull private final RoutingTable routingTable; // The routes
+    @NonNull private final int[] locations; // The node index of each location
+    @NonNull private final int[] requests; // The service requests at each location
+    private final boolean requestsOnly; // Whether to only count requests, skipping the rest
+    private final int start; // First source, inclusive
+    private final int end; // Last source, exclusive
+
+    /**
+     * Creates the task for a range of sources
+     *
+     * @param routingTable the routes to walk
+     * @param locations the node index of each location
+     * @param requests the number of service requests at each location
+     * @param requestsOnly whether to only count requests, skipping routes to locations without any
+     * @param start the first source, inclusive
+     * @param end the last source, exclusive
+     */
+    SourceRangeTask(
+        @NonNull RoutingTable routingTable,
+        @NonNull int[] locations,
+        @NonNull int[] requests,
+        boolean requestsOnly,
+        int start,
+        int end) {
+      this.routingTable = routingTable;
+      this.locations = locations;
+      this.requests = requests;
+      this.requestsOnly = requestsOnly;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * Walks the routes, splitting the range in half until it's small enough to walk directly
+     *
+     * @return the counts for the routes from this range
+     */
+    @Override
+    protected Counts compute() {
+      if (end - start > SOURCES_PER_TASK) {
+        int middle = (start + end) >>> 1; // Split in half
+        SourceRangeTask left =
+            new SourceRangeTask(routingTable, locations, requests, requestsOnly, start, middle);
+        left.fork(); // Run the left half elsewhere
+
+        Counts counts =
+            new SourceRangeTask(routingTable, locations, requests, requestsOnly, middle, end)
+                .compute();
+        counts.add(left.join()); // Merge once both halves are done
+        return counts;
+      }
+
+      HospitalGraph graph = routingTable.getGraph();
+      Counts counts = new Counts(graph); // Counts owned by this task only
+      int uses = requestsOnly ? 0 : 1; // What each route adds to the uses
+
+      for (int source = start; source < end; source++) {
+        for (int target = 0; target < locations.length; target++) {
+          // Skip the location itself, routes that wouldn't add anything, and pairs that can't reach
+          // each other
+          if (source == target
+              || (requestsOnly && requests[target] == 0)
+              || routingTable.getNextHop(locations[source], locations[target]) == -1) {
+            continue;
+          }
+
+          walk(graph, counts, locations[source], locations[target], uses, requests[target]);
+        }
+      }
+
+      return counts;
+    }
+
+    /**
+     * Walks one route, counting every node on it, both ends included, and every edge
+     *
+     * @param graph the graph the route is in
+     * @param counts the counts to add to
+     * @param from the index of the node the route starts at
+     * @param to the index of the node the route ends at
+     * @param uses what the route adds to the uses, 1 or 0
+     * @param requests the number of service requests where the route ends
+     */
+    private void walk(
+        @NonNull HospitalGraph graph,
+        @NonNull Counts counts,
+        int from,
+        int to,
+        int uses,
+        int requests) {
+      int current = from; // The node the walk is at
+
+      while (true) {
+        counts.nodeUses[current] += uses;
+        counts.nodeRequests[current] += requests;
+
+        // Stop here if we reached the target, so the last node also gets counted
+        if (current == to) {
+          return;
+        }
+
+        int next = routingTable.getNextHop(current, to); // Next node on the route
+
+        // Count the edge on its arc from the lower index to the higher one
+        int arc =
+            current < next ? graph.findArc(current, next) : graph.findArc(next, current);
+        counts.arcUses[arc] += uses;
+        counts.arcRequests[arc] += requests;
+
+        current = next;
+      }
+    }
+  }
+}
@@ -1,20 +1,24 @@
 package edu.wpi.FlashyFrogs.TrafficAnalyzer;
 
 import edu.wpi.FlashyFrogs.Fapp;
+import edu.wpi.FlashyFrogs.Map.EdgeIndex;
 import edu.wpi.FlashyFrogs.Map.MapController;
 import edu.wpi.FlashyFrogs.ORM.Edge;
 import edu.wpi.FlashyFrogs.ORM.LocationName;
 import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
 import edu.wpi.FlashyFrogs.controllers.IController;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import javafx.animation.FillTransition;
 import javafx.animation.SequentialTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -25,6 +29,7 @@ import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
@@ -35,6 +40,7 @@ import javafx.scene.text.Text;
 import javafx.util.Duration;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import org.controlsfx.control.PopOver;
 import org.controlsfx.control.tableview2.TableView2;
 
 public class TrafficAnalyzerController implements IController {
@@ -49,6 +55,7 @@ public class TrafficAnalyzerController implements IController {
   @FXML private Button updateButton; // Update button so we can disable it
   @FXML private AnchorPane mapPane; // Map pane
   @FXML private DatePicker viewDate; // View date
+  @FXML private DatePicker viewEndDate; // End of the range to view, empty for just the view date
   @FXML private TextField requestWeighting; // Weighting for requests
   @FXML private TableView2<MapItem> weightTable; // Weighting
   @FXML private TableColumn<MapItem, String> typeColumn; // Table column
@@ -64,6 +71,10 @@ public class TrafficAnalyzerController implements IController {
   private Map<edu.wpi.FlashyFrogs.ORM.Node.Floor, Collection<MapItem>>
       floorToMapItems; // Floor to map items
 
+  // Describes an item of the current heat map in more detail, null until one is made
+  private Function<MapItem, List<String>> drillDown;
+  private PopOver currentPopOver; // Pop-up with the details of an item
+
   /** Initialize method for the controller, sets up the tables and info */
   @FXML
   @SneakyThrows
@@ -79,10 +90,10 @@ public class TrafficAnalyzerController implements IController {
         (row) -> new SimpleStringProperty(row.getValue().getMapItemString()));
     mapItemColumn.setReorderable(false);
     usesColumn.setCellValueFactory(
-        (row) -> new SimpleIntegerProperty(row.getValue().getRelevantPaths().size()));
+        (row) -> new SimpleLongProperty(row.getValue().getUses()));
     usesColumn.setReorderable(false);
     serviceRequestsColumn.setCellValueFactory(
-        (row) -> new SimpleIntegerProperty(row.getValue().getNumServiceRequests()));
+        (row) -> new SimpleLongProperty(row.getValue().getNumServiceRequests()));
     serviceRequestsColumn.setReorderable(false);
 
     // Load the map
@@ -161,6 +172,15 @@ public class TrafficAnalyzerController implements IController {
           mapController.redraw();
         });
 
+    // On double click, show the details of the item
+    weightTable.setOnMouseClicked(
+        (event) -> {
+          MapItem selected = weightTable.getSelectionModel().getSelectedItem();
+          if (event.getClickCount() == 2 && selected != null && drillDown != null) {
+            showDrillDown(selected, (Node) event.getSource());
+          }
+        });
+
     // Create a thread that waits for any FW backing updates to complete
     new Thread(
             () -> {
@@ -204,13 +224,6 @@ public class TrafficAnalyzerController implements IController {
 
   /** Processes an update on the traffic analyzer. Fills the table with the associated values */
   private void update(double serviceWeight, @NonNull Date date) {
-    Collection<Thread> threads = new LinkedList<>();
-
-    // Get the edges, so that we can check which direction they go without doing session.find
-    Set<Edge> edges =
-        new HashSet<>(
-            mapController.getMapSession().createQuery("FROM Edge", Edge.class).getResultList());
-
     // Get the count of service requests for each location
     List<Object[]> serviceRequestsRaw =
         mapController
@@ -231,144 +244,217 @@ public class TrafficAnalyzerController implements IController {
           locationToServiceRequestCount.put(locationName, (int) count); // Save it
         });
 
-    // Create the queue, the comparator is comparing the number of uses
-    Map<edu.wpi.FlashyFrogs.ORM.Node, MapItem> nodeMapItems =
-        new ConcurrentHashMap<>(FloydWarshallRunner.getNextHops().size()); // Node items
-    Map<Edge, MapItem> edgeMapItems = new ConcurrentHashMap<>(edges.size()); // Edge items
-
-    floorToMapItems = new ConcurrentHashMap<>(); // Create the floor to map items list
-
-    for (edu.wpi.FlashyFrogs.ORM.Node.Floor floor : edu.wpi.FlashyFrogs.ORM.Node.Floor.values()) {
-      floorToMapItems.put(floor, new ConcurrentLinkedQueue<>()); // Create the map on the floor
-    }
+    RoutingTable routingTable = FloydWarshallRunner.getRoutingTable(); // Paths to follow
+    HospitalGraph graph = routingTable.getGraph(); // Graph the paths are in
 
     Map<LocationName, edu.wpi.FlashyFrogs.ORM.Node> nodeToLocationName =
         getNodeToLocationNameMap(date);
 
-    // For each location
-    for (LocationName locationName : nodeToLocationName.keySet()) {
-      if (locationName.getLocationType().equals(LocationName.LocationType.HALL)) {
-        continue; // Skip all hallways
+    // The node index, service requests, and name of every location that isn't a hallway
+    int[] locations = new int[nodeToLocationName.size()];
+    int[] requests = new int[nodeToLocationName.size()];
+    LocationName[] names = new LocationName[nodeToLocationName.size()];
+    int locationCount = 0; // Number of locations kept
+    for (Map.Entry<LocationName, edu.wpi.FlashyFrogs.ORM.Node> entry :
+        nodeToLocationName.entrySet()) {
+      int index = graph.indexOf(entry.getValue()); // Index of the node in the graph
+
+      // Skip all hallways, and nodes the routing table doesn't know about
+      if (entry.getKey().getLocationType().equals(LocationName.LocationType.HALL) || index == -1) {
+        continue;
       }
 
-      // Create a thread to process it
-      Thread thread =
-          new Thread(
-              () -> {
-                for (LocationName otherLocation : nodeToLocationName.keySet()) {
-                  // Skip locations that are this one, and ignore if either are hallways
-                  if (locationName.equals(otherLocation)
-                      || otherLocation.getLocationType().equals(LocationName.LocationType.HALL)) {
-                    continue;
-                  }
-
-                  // node to location name
-                  edu.wpi.FlashyFrogs.ORM.Node nodeOne =
-                      nodeToLocationName.get(locationName); // One
-                  edu.wpi.FlashyFrogs.ORM.Node nodeTwo =
-                      nodeToLocationName.get(otherLocation); // Two
-
-                  edu.wpi.FlashyFrogs.ORM.Node nextHop = nodeOne; // The next hop in the path
-
-                  // While the node isn't the target node
-                  while (true) {
-                    // If we haven't seen this node before
-                    if (!nodeMapItems.containsKey(nextHop)) {
-                      nodeMapItems.put(nextHop, new NodeMapItem(nextHop, serviceWeight)); // Save it
-
-                      // Add this to its floor
-                      floorToMapItems
-                          .get(nodeMapItems.get(nextHop).getMapFloor())
-                          .add(nodeMapItems.get(nextHop));
-                    }
-
-                    // Either way, add this to the relevant paths
-                    nodeMapItems
-                        .get(nextHop)
-                        .getRelevantPaths()
-                        .add(new Path(locationName, otherLocation));
-
-                    // Do SRs too
-                    nodeMapItems
-                        .get(nextHop)
-                        .addServiceRequest(
-                            locationToServiceRequestCount.getOrDefault(otherLocation, 0));
-
-                    // Stop here if we reached the target. Stop precisely here so that the last node
-                    // also gets its weight covered
-                    if (nextHop.equals(nodeTwo)) {
-                      break;
-                    }
+      locations[locationCount] = index;
+      names[locationCount] = entry.getKey();
+      requests[locationCount++] = locationToServiceRequestCount.getOrDefault(entry.getKey(), 0);
+    }
 
-                    edu.wpi.FlashyFrogs.ORM.Node nextNextHop =
-                        FloydWarshallRunner.getNextHops()
-                            .get(nextHop)
-                            .get(nodeTwo); // Get the next hop on the path to the destination
+    int[] routeLocations = Arrays.copyOf(locations, locationCount); // Only the kept locations
 
-                    // Try to find the edge in one order
-                    Edge edge = new Edge(nextHop, nextNextHop);
+    // Walk every route on the worker pool, each worker counts on its own
+    TrafficAccumulator.Counts counts =
+        TrafficAccumulator.accumulate(
+            routingTable,
+            routeLocations,
+            Arrays.copyOf(requests, locationCount),
+            ForkJoinPool.commonPool());
 
-                    // That failing
-                    if (!edges.contains(edge)) {
-                      // Try the other order
-                      edge = new Edge(nextNextHop, nextHop);
-                    }
+    showCounts(graph, counts, serviceWeight); // Show the counts
 
-                    // If we haven't seen the edge
-                    if (!edgeMapItems.containsKey(edge)) {
-                      edgeMapItems.put(edge, new EdgeMapItem(edge, serviceWeight)); // Save it
+    // Only the counts are kept, the routes behind an item are found again when asked for
+    drillDown =
+        (mapItem) -> {
+          int[] indices = mapItem.findIndices(graph); // Where the item is in the graph
+          if (indices == null) {
+            return List.of();
+          }
 
-                      MapItem edgeItem = edgeMapItems.get(edge); // Get the edge item we just made
+          List<String> routes = new ArrayList<>(); // Each route, as text
+          for (int[] pair :
+              TrafficAccumulator.findPairs(
+                  routingTable, routeLocations, indices[0], indices[1])) {
+            Path path = new Path(names[pair[0]], names[pair[1]]);
+            routes.add(
+                path.getStartLocation().getShortName()
+                    + " to "
+                    + path.getEndLocation().getShortName());
+          }
+          return routes;
+        };
+  }
 
-                      // If the edge item is valid floor-wise (can be cross floor and therefore
-                      // invalid)
-                      if (edgeItem.getMapFloor() != null) {
-                        // Add this to the floor map
-                        floorToMapItems.get(edgeItem.getMapFloor()).add(edgeItem);
-                      }
-                    }
+  /**
+   * Processes an update over a range of days, replaying the moves and the service requests
+   * submitted on each day. Fills the table with the totals over the range, and each item can show
+   * its trend over the range
+   *
+   * @param serviceWeight the weight of each service request
+   * @param first the first day of the range, inclusive
+   * @param last the last day of the range, inclusive
+   */
+  private void updateRange(
+      double serviceWeight, @NonNull LocalDate first, @NonNull LocalDate last) {
+    ZoneId zone = ZoneId.systemDefault(); // The zone the days start in
 
-                    // Either way, save this path as relevant
-                    edgeMapItems
-                        .get(edge)
-                        .getRelevantPaths()
-                        .add(new Path(locationName, otherLocation));
+    // Every move, the history replays them to place the locations on each day
+    List<Move> moves =
+        mapController.getMapSession().createQuery("FROM Move", Move.class).getResultList();
 
-                    // Add service requests
-                    edgeMapItems
-                        .get(edge)
-                        .addServiceRequest(
-                            locationToServiceRequestCount.getOrDefault(otherLocation, 0));
+    // The requests submitted in the range
+    List<Object[]> serviceRequestsRaw =
+        mapController
+            .getMapSession()
+            .createQuery(
+                "SELECT sr.location, sr.dateOfSubmission FROM ServiceRequest sr "
+                    + "WHERE sr.dateOfSubmission >= :first AND sr.dateOfSubmission < :end",
+                Object[].class)
+            .setParameter("first", Date.from(first.atStartOfDay(zone).toInstant()))
+            .setParameter("end", Date.from(last.plusDays(1).atStartOfDay(zone).toInstant()))
+            .getResultList();
 
-                    nextHop = nextNextHop; // The next hop is this
-                  }
-                }
-              });
-      // Save and start the thread
-      threads.add(thread);
-      thread.start();
+    // Count the requests at each location on each day
+    Map<LocalDate, Map<LocationName, Integer>> requests = new HashMap<>();
+    for (Object[] raw : serviceRequestsRaw) {
+      // SQL dates can't be turned into instants directly
+      LocalDate day =
+          Instant.ofEpochMilli(((Date) raw[1]).getTime()).atZone(zone).toLocalDate();
+      requests
+          .computeIfAbsent(day, (key) -> new HashMap<>())
+          .merge((LocationName) raw[0], 1, Integer::sum);
     }
 
-    // Wait for each thred to finish
-    threads.forEach(
-        thread -> {
-          try {
-            thread.join();
-          } catch (InterruptedException e) {
-            throw new RuntimeException(e); // Thanks Java :)
+    TrafficHistory history =
+        new TrafficHistory(
+            FloydWarshallRunner.getRoutingTable(),
+            moves,
+            requests,
+            first,
+            last,
+            zone,
+            ForkJoinPool.commonPool());
+    HospitalGraph graph = history.getGraph(); // Graph the paths are in
+
+    showCounts(graph, history.total(first, last), serviceWeight); // Show the totals
+
+    // The trend of every item, from the week and month rollups of the history
+    TrafficHistory.Granularity granularity = TrafficHistory.Granularity.forRange(first, last);
+    SortedMap<LocalDate, TrafficAccumulator.Counts> series =
+        history.series(first, last, granularity);
+    drillDown =
+        (mapItem) -> {
+          int[] indices = mapItem.findIndices(graph); // Where the item is in the graph
+          if (indices == null) {
+            return List.of();
           }
-        });
+
+          List<String> trend = new ArrayList<>(); // Each bucket, as text
+          series.forEach(
+              (start, counts) ->
+                  trend.add(
+                      granularity.label(start)
+                          + ": "
+                          + counts.getUses(graph, indices[0], indices[1])
+                          + " uses, "
+                          + counts.getRequests(graph, indices[0], indices[1])
+                          + " requests"));
+          return trend;
+        };
+  }
+
+  /**
+   * Fills the table and the heat map with counts, one item for each node and edge that any route
+   * goes through
+   *
+   * @param graph the graph the counts are for
+   * @param counts the counts
+   * @param serviceWeight the weight of each service request
+   */
+  private void showCounts(
+      @NonNull HospitalGraph graph,
+      @NonNull TrafficAccumulator.Counts counts,
+      double serviceWeight) {
+    // Index the edges, so that we can find them in either direction without doing session.find
+    EdgeIndex edges =
+        new EdgeIndex(
+            mapController.getMapSession().createQuery("FROM Edge", Edge.class).getResultList());
 
     // Create the items
     ObservableList<MapItem> items = FXCollections.observableArrayList();
 
-    // For each item
-    // Add the item
-    items.addAll(nodeMapItems.values());
-    items.addAll(edgeMapItems.values());
+    // Create the floor to map items list, only shown once it is filled in
+    Map<edu.wpi.FlashyFrogs.ORM.Node.Floor, Collection<MapItem>> floorItems = new HashMap<>();
+
+    for (edu.wpi.FlashyFrogs.ORM.Node.Floor floor : edu.wpi.FlashyFrogs.ORM.Node.Floor.values()) {
+      floorItems.put(floor, new ArrayList<>()); // Create the map on the floor
+    }
+
+    // One item for each node any route goes through
+    for (int node = 0; node < graph.size(); node++) {
+      if (counts.getNodeUses(node) == 0) {
+        continue;
+      }
+
+      MapItem nodeItem =
+          new NodeMapItem(
+              graph.getNode(node),
+              counts.getNodeUses(node),
+              counts.getNodeRequests(node),
+              serviceWeight);
+
+      items.add(nodeItem);
+      floorItems.get(nodeItem.getMapFloor()).add(nodeItem); // Add this to its floor
+    }
+
+    // One item for each edge any route goes along, counted on the arc from the lower index
+    for (int from = 0; from < graph.size(); from++) {
+      for (int arc = graph.arcsStart(from); arc < graph.arcsEnd(from); arc++) {
+        int to = graph.arcTarget(arc);
+        if (to < from || counts.getArcUses(arc) == 0) {
+          continue;
+        }
+
+        Edge edge = edges.find(graph.getNode(from), graph.getNode(to)); // In either direction
+        if (edge == null) {
+          continue; // Deleted since the routing table was made
+        }
+
+        MapItem edgeItem =
+            new EdgeMapItem(
+                edge, counts.getArcUses(arc), counts.getArcRequests(arc), serviceWeight);
+
+        items.add(edgeItem);
+
+        // If the edge item is valid floor-wise (can be cross floor and therefore invalid)
+        if (edgeItem.getMapFloor() != null) {
+          floorItems.get(edgeItem.getMapFloor()).add(edgeItem); // Add this to the floor map
+        }
+      }
+    }
 
-    // Sort by the number of uses, descending
-    items.sort(Comparator.comparingDouble(MapItem::getTotalWeight).reversed());
+    floorToMapItems = floorItems; // Save the items for coloring
+
+    // Sort by the number of uses, descending, the same way every run
+    items.sort(MapItem.HEAVIEST_FIRST);
 
     maxWeight = items.get(0).getTotalWeight(); // Get the max weight
     minWeight = items.get(items.size() - 1).getTotalWeight(); // Get the min weight
@@ -377,6 +463,39 @@ public class TrafficAnalyzerController implements IController {
     Platform.runLater(() -> weightTable.setItems(items));
   }
 
+  /**
+   * Works out the details of a map item off the UI thread, and lists them in a pop-up. For a
+   * single day these are the routes that pass the item, for a range of days its trend
+   *
+   * @param mapItem the item to show the details of
+   * @param owner the node to show the pop-up over
+   */
+  private void showDrillDown(@NonNull MapItem mapItem, @NonNull Node owner) {
+    Function<MapItem, List<String>> query = drillDown; // The heat map being shown
+
+    new Thread(
+            () -> {
+              List<String> details = query.apply(mapItem); // Each line of the details
+
+              Platform.runLater(
+                  () -> {
+                    // If there is already a popover, hide it
+                    if (currentPopOver != null) {
+                      currentPopOver.hide();
+                    }
+
+                    ListView<String> list = new ListView<>(FXCollections.observableList(details));
+                    list.setPrefSize(300, 400);
+
+                    currentPopOver = new PopOver(list);
+                    currentPopOver.setTitle(mapItem.getMapItemString());
+                    currentPopOver.detach(); // Detach the pop-up, so it's not stuck to the table
+                    currentPopOver.show(owner);
+                  });
+            })
+        .start();
+  }
+
   /**
    * Gets the location name to node map
    *
@@ -395,37 +514,7 @@ public class TrafficAnalyzerController implements IController {
             .setParameter("providedDate", date)
             .getResultList();
 
-    // Location maps
-    Map<LocationName, edu.wpi.FlashyFrogs.ORM.Node> nodeToLocationName =
-        new HashMap<>(); // Node to location
-    Map<edu.wpi.FlashyFrogs.ORM.Node, Integer> nodeToLocationCount =
-        new HashMap<>(); // Node to location count map
-    Set<LocationName> placedLocations = new HashSet<>(); // Placed ones
-
-    // For each location belonging to this node
-    for (Move move : moves) {
-      // If we haven't seen this before, and we haven't seen it too many times
-      if (nodeToLocationCount.containsKey(move.getNode())
-          && nodeToLocationCount.get(move.getNode()) == 1) {
-        // Save that we've seen gotten another node
-        nodeToLocationCount.replace(move.getNode(), nodeToLocationCount.get(move.getNode()) + 1);
-
-        // If we haven't placed this
-        if (!placedLocations.contains(move.getLocation())) {
-          nodeToLocationName.put(move.getLocation(), move.getNode()); // Save it
-          placedLocations.add(move.getLocation()); // Mark it as placed
-        }
-      } else if (!nodeToLocationCount.containsKey(move.getNode())) { // If we haven't seen this
-        nodeToLocationCount.put(move.getNode(), 1); // Save the node count initially
-
-        if (!placedLocations.contains(move.getLocation())) {
-          nodeToLocationName.put(move.getLocation(), move.getNode());
-          placedLocations.add(move.getLocation());
-        }
-      }
-    }
-
-    return nodeToLocationName;
+    return TrafficHistory.placeLocations(moves, date); // Place them the way the history does
   }
 
   /** Clears the traffic analyzer and all of its associated variables */
@@ -438,6 +527,7 @@ public class TrafficAnalyzerController implements IController {
 
     // Clear items
     floorToMapItems = null;
+    drillDown = null;
 
     colorFloor(); // Re-color the floor (this will clear styling)
   }
@@ -446,6 +536,12 @@ public class TrafficAnalyzerController implements IController {
   @Override
   public void onClose() {
     FloydWarshallRunner.getReCalculationLock().release(); // Release the lock
+
+    // Hide the routes pop-up if it's open
+    if (currentPopOver != null) {
+      currentPopOver.hide();
+    }
+
     mapController.exit(); // Exit the map
   }
 
@@ -486,6 +582,9 @@ public class TrafficAnalyzerController implements IController {
         throw new NumberFormatException();
       }
 
+      LocalDate first = viewDate.getValue(); // The day, or the first day of the range
+      LocalDate last = viewEndDate.getValue(); // The last day of the range, if there is one
+
       // Start a thread that starts the animation, does the calculation, does the coloring
       new Thread(
               () -> {
@@ -494,13 +593,14 @@ public class TrafficAnalyzerController implements IController {
                       mapController.startAnimation();
                       updateButton.setDisable(true);
                     });
-                update(
-                    number,
-                    Date.from(
-                        viewDate
-                            .getValue()
-                            .atStartOfDay(ZoneId.systemDefault())
-                            .toInstant())); // If everything worked, update the map
+                // If everything worked, update the map
+                if (last == null || last.equals(first)) {
+                  update(number, Date.from(first.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+                } else if (last.isBefore(first)) {
+                  updateRange(number, last, first); // Picked backwards
+                } else {
+                  updateRange(number, first, last);
+                }
 
                 Platform.runLater(
                     () -> {
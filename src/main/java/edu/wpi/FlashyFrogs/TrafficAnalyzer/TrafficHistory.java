@@ -0,0 +1,397 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Heat maps for every day in a range, replayed from the move history and the days service requests
+ * were submitted on. Locations only move now and then, so days where every location is in the
+ * same place share one set of use counts. Days with service requests walk the routes to them once,
+ * as the history is built, and keep their own counts, the rest just use the counts of their
+ * placement. The days are rolled up into weeks and months at the same time, so totals and trends
+ * only ever add up stored counts, and never walk a route again
+ */
+final class TrafficHistory {
+  /** The sizes of the buckets a range of days can be split into */
+  enum Granularity {
+    /** One bucket per day */
+    DAY {
+      @Override
+      LocalDate start(@NonNull LocalDate day) {
+        return day;
+      }
+
+      @Override
+      LocalDate next(@NonNull LocalDate start) {
+        return start.plusDays(1);
+      }
+
+      @Override
+      String label(@NonNull LocalDate start) {
+        return start.format(DateTimeFormatter.ofPattern("MMM d, yyyy"));
+      }
+    },
+
+    /** One bucket per week, starting on Monday */
+    WEEK {
+      @Override
+      LocalDate start(@NonNull LocalDate day) {
+        return day.minusDays(day.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+      }
+
+      @Override
+      LocalDate next(@NonNull LocalDate start) {
+        return start.plusWeeks(1);
+      }
+
+      @Override
+      String label(@NonNull LocalDate start) {
+        return "Week of " + start.format(DateTimeFormatter.ofPattern("MMM d, yyyy"));
+      }
+    },
+
+    /** One bucket per calendar month */
+    MONTH {
+      @Override
+      LocalDate start(@NonNull LocalDate day) {
+        return day.withDayOfMonth(1);
+      }
+
+      @Override
+      LocalDate next(@NonNull LocalDate start) {
+        return start.plusMonths(1);
+      }
+
+      @Override
+      String label(@NonNull LocalDate start) {
+        return start.format(DateTimeFormatter.ofPattern("MMMM yyyy"));
+      }
+    };
+
+    /**
+     * Gets the first day of the bucket a day is in
+     *
+     * @param day the day
+     * @return the first day of its bucket
+     */
+    @NonNull
+    abstract LocalDate start(@NonNull LocalDate day);
+
+    /**
+     * Gets the first day of the bucket after one
+     *
+     * @param start the first day of a bucket
+     * @return the first day of the next bucket
+     */
+    @NonNull
+    abstract LocalDate next(@NonNull LocalDate start);
+
+    /**
+     * Gets the name of a bucket to show to the user
+     *
+     * @param start the first day of the bucket
+     * @return the name of the bucket
+     */
+    @NonNull
+    abstract String label(@NonNull LocalDate start);
+
+    /**
+     * Gets the granularity that splits a range into a readable number of buckets, days for up to a
+     * month, weeks for up to half a year, and months beyond that
+     *
+     * @param first the first day of the range
+     * @param last the last day of the range
+     * @return the granularity
+     */
+    @NonNull
+    static Granularity forRange(@NonNull LocalDate first, @NonNull LocalDate last) {
+      long days = ChronoUnit.DAYS.between(first, last) + 1; // Days in the range
+      if (days <= 31) {
+        return DAY;
+      }
+      return days <= 26 * 7 ? WEEK : MONTH;
+    }
+  }
+
+  /** Where every location was over a run of days, and the use counts that gives */
+  private static final class Placement {
+    @NonNull private final int[] locations; // The node index of each location
+    @NonNull private final LocationName[] names; // The name of each location
+    @NonNull private final Map<LocationName, Integer> positions; // Position of each location
+    private TrafficAccumulator.Counts uses; // The use counts, with no requests
+
+    /**
+     * Creates a placement
+     *
+     * @param locations the node index of each location
+     * @param names the name of each location
+     */
+    private Placement(@NonNull int[] locations, @NonNull LocationName[] names) {
+      this.locations = locations;
+      this.names = names;
+      positions = new HashMap<>(names.length);
+      for (int i = 0; i < names.length; i++) {
+        positions.put(names[i], i);
+      }
+    }
+  }
+
+  @NonNull @Getter private final RoutingTable routingTable; // The routes the counts come from
+  @NonNull @Getter private final LocalDate first; // First day, inclusive
+  @NonNull @Getter private final LocalDate last; // Last day, inclusive
+  @NonNull private final Placement[] dayPlacements; // Where the locations were on each day
+  @NonNull private final TrafficAccumulator.Counts[] dayCounts; // Counts of days with requests
+  @NonNull private final Map<LocalDate, TrafficAccumulator.Counts> weeks; // By first day
+  @NonNull private final Map<LocalDate, TrafficAccumulator.Counts> months; // By first day
+
+  /**
+   * Builds the history of a range of days. Each day uses where the locations were at its start,
+   * the same as the single day heat map, and the requests submitted during it. Only weeks and
+   * months that are entirely in the range are rolled up
+   *
+   * @param routingTable the routes to walk
+   * @param moves every move, in any order
+   * @param requests the number of requests submitted at each location, by the day they were
+   *     submitted on. Days outside the range are ignored
+   * @param first the first day, inclusive
+   * @param last the last day, inclusive
+   * @param zone the zone the days start in
+   * @param pool the pool to walk the routes on
+   */
+  TrafficHistory(
+      @NonNull RoutingTable routingTable,
+      @NonNull Collection<Move> moves,
+      @NonNull Map<LocalDate, Map<LocationName, Integer>> requests,
+      @NonNull LocalDate first,
+      @NonNull LocalDate last,
+      @NonNull ZoneId zone,
+      @NonNull ForkJoinPool pool) {
+    if (last.isBefore(first)) {
+      throw new IllegalArgumentException("The range must end on or after its first day");
+    }
+
+    this.routingTable = routingTable;
+    this.first = first;
+    this.last = last;
+
+    // Most recent first, the sort is stable so moves on the same date keep their order
+    List<Move> sorted = new ArrayList<>(moves);
+    sorted.sort(Comparator.comparing(Move::getMoveDate).reversed());
+
+    int dayCount = (int) ChronoUnit.DAYS.between(first, last) + 1; // Days in the range
+    dayPlacements = new Placement[dayCount];
+    dayCounts = new TrafficAccumulator.Counts[dayCount];
+
+    Placement previous = null; // The placement of the day before
+    for (int day = 0; day < dayCount; day++) {
+      LocalDate date = first.plusDays(day);
+      Placement placement =
+          place(placeLocations(sorted, Date.from(date.atStartOfDay(zone).toInstant())));
+
+      // Share the counts with the day before if nothing moved
+      if (previous != null
+          && Arrays.equals(previous.locations, placement.locations)
+          && Arrays.equals(previous.names, placement.names)) {
+        placement = previous;
+      } else {
+        placement.uses =
+            TrafficAccumulator.accumulate(
+                routingTable, placement.locations, new int[placement.locations.length], pool);
+      }
+      dayPlacements[day] = placement;
+      previous = placement;
+
+      // Requests at locations that weren't anywhere that day have nowhere to go
+      int[] dayRequest = new int[placement.locations.length];
+      boolean any = false; // Whether any requests went somewhere
+      for (Map.Entry<LocationName, Integer> entry :
+          requests.getOrDefault(date, Map.of()).entrySet()) {
+        Integer position = placement.positions.get(entry.getKey());
+        if (position != null && entry.getValue() > 0) {
+          dayRequest[position] += entry.getValue();
+          any = true;
+        }
+      }
+
+      // Walk the routes to the requests once, days without any share the counts of their placement
+      if (any) {
+        dayCounts[day] = new TrafficAccumulator.Counts(getGraph());
+        dayCounts[day].add(placement.uses);
+        dayCounts[day].add(
+            TrafficAccumulator.accumulateRequests(
+                routingTable, placement.locations, dayRequest, pool));
+      }
+    }
+
+    // Roll the days up into every week and month that is entirely in the range
+    weeks = new HashMap<>();
+    months = new HashMap<>();
+    for (int day = 0; day < dayCount; day++) {
+      LocalDate date = first.plusDays(day);
+      for (Granularity granularity : List.of(Granularity.WEEK, Granularity.MONTH)) {
+        LocalDate start = granularity.start(date);
+        if (start.isBefore(first) || granularity.next(start).isAfter(last.plusDays(1))) {
+          continue; // Partly outside the range
+        }
+
+        (granularity == Granularity.WEEK ? weeks : months)
+            .computeIfAbsent(start, (key) -> new TrafficAccumulator.Counts(getGraph()))
+            .add(day(day));
+      }
+    }
+  }
+
+  /**
+   * Works out where each location is at a date from the moves before it. A node holds the two
+   * locations that most recently moved into it, and a location is in the most recent of those
+   * nodes it is still held by
+   *
+   * @param moves the moves, most recent first
+   * @param date the date, only moves strictly before it count
+   * @return the node each location is in
+   */
+  @NonNull
+  static Map<LocationName, Node> placeLocations(@NonNull List<Move> moves, @NonNull Date date) {
+    Map<LocationName, Node> locationToNode = new HashMap<>(); // Location to node
+    Map<Node, Integer> nodeToLocationCount = new HashMap<>(); // Node to location count map
+
+    // For each move, most recent first
+    for (Move move : moves) {
+      if (!move.getMoveDate().before(date)) {
+        continue; // Hasn't happened yet
+      }
+
+      // Each node only holds its two most recent locations
+      int count = nodeToLocationCount.getOrDefault(move.getNode(), 0);
+      if (count < 2) {
+        nodeToLocationCount.put(move.getNode(), count + 1);
+
+        // A location is where it most recently moved to that still holds it
+        locationToNode.putIfAbsent(move.getLocation(), move.getNode());
+      }
+    }
+
+    return locationToNode;
+  }
+
+  /**
+   * Turns where each location is into the arrays the routes are walked with. Hallways and nodes
+   * that aren't in the graph are left out, and the rest are sorted so that the same placement
+   * always gives the same arrays
+   *
+   * @param locationToNode the node each location is in
+   * @return the placement, without its counts
+   */
+  @NonNull
+  private Placement place(@NonNull Map<LocationName, Node> locationToNode) {
+    HospitalGraph graph = getGraph();
+
+    List<LocationName> kept = new ArrayList<>(); // The locations to route between
+    for (Map.Entry<LocationName, Node> entry : locationToNode.entrySet()) {
+      if (!entry.getKey().getLocationType().equals(LocationName.LocationType.HALL)
+          && graph.indexOf(entry.getValue()) != -1) {
+        kept.add(entry.getKey());
+      }
+    }
+    kept.sort(Comparator.comparing(LocationName::getLongName));
+
+    int[] locations = new int[kept.size()];
+    for (int i = 0; i < locations.length; i++) {
+      locations[i] = graph.indexOf(locationToNode.get(kept.get(i)));
+    }
+
+    return new Placement(locations, kept.toArray(new LocationName[0]));
+  }
+
+  /**
+   * Gets the graph the counts are for
+   *
+   * @return the graph of the routing table
+   */
+  @NonNull
+  HospitalGraph getGraph() {
+    return routingTable.getGraph();
+  }
+
+  /**
+   * Gets the stored counts for a single day, which may be shared with other days, so they must not
+   * be changed
+   *
+   * @param day the position of the day in the range
+   * @return the counts for the day
+   */
+  @NonNull
+  private TrafficAccumulator.Counts day(int day) {
+    return dayCounts[day] != null ? dayCounts[day] : dayPlacements[day].uses;
+  }
+
+  /**
+   * Gets the total counts over a range of days, using the month and week rollups for any whole
+   * months and weeks in it
+   *
+   * @param from the first day, inclusive, no earlier than the first day of the history
+   * @param to the last day, inclusive, no later than the last day of the history
+   * @return the total counts
+   */
+  @NonNull
+  TrafficAccumulator.Counts total(@NonNull LocalDate from, @NonNull LocalDate to) {
+    if (from.isBefore(first) || to.isAfter(last) || to.isBefore(from)) {
+      throw new IllegalArgumentException("The range must be inside the history");
+    }
+
+    TrafficAccumulator.Counts total = new TrafficAccumulator.Counts(getGraph());
+
+    LocalDate date = from; // The next day to add
+    while (!date.isAfter(to)) {
+      // Take the largest rollup that starts here and ends inside the range
+      if (months.containsKey(date) && !Granularity.MONTH.next(date).isAfter(to.plusDays(1))) {
+        total.add(months.get(date));
+        date = Granularity.MONTH.next(date);
+      } else if (weeks.containsKey(date) && !Granularity.WEEK.next(date).isAfter(to.plusDays(1))) {
+        total.add(weeks.get(date));
+        date = Granularity.WEEK.next(date);
+      } else {
+        total.add(day((int) ChronoUnit.DAYS.between(first, date)));
+        date = date.plusDays(1);
+      }
+    }
+
+    return total;
+  }
+
+  /**
+   * Gets the counts for each bucket of a range, for trends. The buckets at either end are cut
+   * down to the part inside the range
+   *
+   * @param from the first day, inclusive, no earlier than the first day of the history
+   * @param to the last day, inclusive, no later than the last day of the history
+   * @param granularity the size of the buckets
+   * @return the counts of each bucket, by the first day of the bucket, in order
+   */
+  @NonNull
+  SortedMap<LocalDate, TrafficAccumulator.Counts> series(
+      @NonNull LocalDate from, @NonNull LocalDate to, @NonNull Granularity granularity) {
+    SortedMap<LocalDate, TrafficAccumulator.Counts> series = new TreeMap<>();
+
+    for (LocalDate start = granularity.start(from);
+        !start.isAfter(to);
+        start = granularity.next(start)) {
+      LocalDate bucketFirst = start.isBefore(from) ? from : start; // Cut to the range
+      LocalDate bucketLast = granularity.next(start).minusDays(1);
+      series.put(start, total(bucketFirst, bucketLast.isAfter(to) ? to : bucketLast));
+    }
+
+    return series;
+  }
+}
@@ -0,0 +1,690 @@
+package edu.wpi.FlashyFrogs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.Map.GraphChange;
+import edu.wpi.FlashyFrogs.Map.GraphChangeBus;
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the HospitalGraph snapshot, and for path finding against it. These tests are purely in
+ * memory, and do not use the database
+ */
+public class HospitalGraphTest {
+  private final List<IFindPath> algorithms =
+      List.of(
+          new AStar(),
+          new BidirectionalAStar(),
+          new LandmarkAStar(),
+          new ContractionHierarchies(),
+          new BreadthFirst(),
+          new DepthFirst()); // Algorithms to test
+  private final List<IFindPath> shortestPathAlgorithms =
+      List.of(
+          new AStar(),
+          new BidirectionalAStar(),
+          new LandmarkAStar(),
+          new ContractionHierarchies()); // Algorithms that find the shortest path
+
+  /** Tests that duplicate, reversed, and self-referential edges are collapsed in the adjacency */
+  @Test
+  public void adjacencyTest() {
+    Node a = new Node("a", "b", Node.Floor.L1, 0, 0); // First node
+    Node b = new Node("b", "b", Node.Floor.L1, 0, 10); // Second node
+    Node c = new Node("c", "b", Node.Floor.L1, 10, 10); // Third node
+
+    HospitalGraph graph =
+        new HospitalGraph(
+            List.of(a, b, c),
+            List.of(new Edge(a, b), new Edge(b, a), new Edge(a, b), new Edge(c, c)),
+            List.of(),
+            new Date());
+
+    assertEquals(3, graph.size()); // Three nodes
+    assertEquals(2, graph.arcCount()); // One undirected edge, so two arcs
+
+    int aIndex = graph.indexOf(a);
+    int bIndex = graph.indexOf(b);
+    int cIndex = graph.indexOf(c);
+
+    // A only has B, B only has A, C has nothing
+    assertEquals(1, graph.arcsEnd(aIndex) - graph.arcsStart(aIndex));
+    assertEquals(bIndex, graph.arcTarget(graph.arcsStart(aIndex)));
+    assertEquals(1, graph.arcsEnd(bIndex) - graph.arcsStart(bIndex));
+    assertEquals(aIndex, graph.arcTarget(graph.arcsStart(bIndex)));
+    assertEquals(graph.arcsStart(cIndex), graph.arcsEnd(cIndex));
+
+    assertEquals(-1, graph.indexOf(new Node("d", "b", Node.Floor.L1, 0, 0))); // Not in the graph
+  }
+
+  /** Tests that locations are resolved at the snapshot date, ignoring future and replaced moves */
+  @Test
+  public void locationTest() {
+    Node a = new Node("a", "b", Node.Floor.L1, 0, 0); // First node
+    Node b = new Node("b", "b", Node.Floor.L1, 0, 10); // Second node
+
+    LocationName first = new LocationName("first", LocationName.LocationType.DEPT, "f");
+    LocationName second = new LocationName("second", LocationName.LocationType.INFO, "s");
+
+    // First moves from A to B, second is only at A in the future
+    List<Move> moves =
+        List.of(
+            new Move(a, first, new Date(1000)),
+            new Move(b, first, new Date(2000)),
+            new Move(a, second, new Date(5000)));
+
+    HospitalGraph graph = new HospitalGraph(List.of(a, b), List.of(), moves, new Date(3000));
+
+    assertNull(graph.getLocation(graph.indexOf(a))); // First moved away, second isn't there yet
+    assertEquals(first, graph.getLocation(graph.indexOf(b)));
+    assertEquals(graph.indexOf(b), graph.indexOf(first));
+    assertEquals(-1, graph.indexOf(second));
+  }
+
+  /** Tests that each algorithm finds the only path through a simple line of nodes */
+  @Test
+  public void linePathTest() {
+    Node a = new Node("a", "b", Node.Floor.L1, 0, 0); // First node
+    Node b = new Node("b", "b", Node.Floor.L1, 0, 10); // Second node
+    Node c = new Node("c", "b", Node.Floor.L1, 10, 10); // Third node
+    Node d = new Node("d", "b", Node.Floor.L1, 50, 50); // Disconnected node
+
+    HospitalGraph graph =
+        new HospitalGraph(
+            List.of(a, b, c, d), List.of(new Edge(a, b), new Edge(c, b)), List.of(), new Date());
+
+    for (IFindPath algorithm : algorithms) {
+      assertEquals(List.of(a, b, c), algorithm.findPath(a, c, false, graph));
+      assertEquals(List.of(c, b, a), algorithm.findPath(c, a, false, graph));
+      assertEquals(List.of(a), algorithm.findPath(a, a, false, graph));
+      assertNull(algorithm.findPath(a, d, false, graph)); // Unreachable
+      assertNull(algorithm.findPath(a, new Node("e", "b", Node.Floor.L1, 0, 0), false, graph));
+    }
+  }
+
+  /**
+   * Tests that the A* algorithms take the elevator over the stairs, and never take stairs when
+   * accessible
+   */
+  @Test
+  public void floorChangeTest() {
+    Node start = new Node("start", "b", Node.Floor.L1, 0, 0); // Start node
+    Node stairsDown = new Node("sd", "b", Node.Floor.L1, 10, 0); // Stairs on the start floor
+    Node stairsUp = new Node("su", "b", Node.Floor.L2, 10, 0); // Stairs on the end floor
+    Node elevDown = new Node("ed", "b", Node.Floor.L1, 0, 80); // Elevator on the start floor
+    Node elevUp = new Node("eu", "b", Node.Floor.L2, 0, 80); // Elevator on the end floor
+    Node end = new Node("end", "b", Node.Floor.L2, 0, 40); // End node
+
+    LocationName stairs = new LocationName("stairs", LocationName.LocationType.STAI, "s");
+    LocationName stairs2 = new LocationName("stairs2", LocationName.LocationType.STAI, "s");
+    LocationName elevator = new LocationName("elev", LocationName.LocationType.ELEV, "e");
+    LocationName elevator2 = new LocationName("elev2", LocationName.LocationType.ELEV, "e");
+
+    HospitalGraph graph =
+        new HospitalGraph(
+            List.of(start, stairsDown, stairsUp, elevDown, elevUp, end),
+            List.of(
+                new Edge(start, stairsDown),
+                new Edge(stairsDown, stairsUp),
+                new Edge(stairsUp, end),
+                new Edge(start, elevDown),
+                new Edge(elevDown, elevUp),
+                new Edge(elevUp, end)),
+            List.of(
+                new Move(stairsDown, stairs, new Date(0)),
+                new Move(stairsUp, stairs2, new Date(0)),
+                new Move(elevDown, elevator, new Date(0)),
+                new Move(elevUp, elevator2, new Date(0))),
+            new Date());
+
+    for (IFindPath algorithm : shortestPathAlgorithms) {
+      // Stairs are cheaper here when allowed, elevator is required when accessible
+      assertEquals(
+          List.of(start, stairsDown, stairsUp, end), algorithm.findPath(start, end, false, graph));
+      assertEquals(
+          List.of(start, elevDown, elevUp, end), algorithm.findPath(start, end, true, graph));
+      assertEquals(
+          List.of(end, elevUp, elevDown, start), algorithm.findPath(end, start, true, graph));
+    }
+  }
+
+  /**
+   * Creates a grid with holes in it, with unevenly spaced nodes so the straight-line estimate is
+   * rarely exact
+   *
+   * @param width the width and height of the grid
+   * @return the graph of the grid
+   */
+  private static HospitalGraph gridGraph(int width) {
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+
+    // Nodes are spaced unevenly, so the straight-line estimate is rarely exact
+    for (int y = 0; y < width; y++) {
+      for (int x = 0; x < width; x++) {
+        nodes.add(new Node(x + "," + y, "b", Node.Floor.L1, x * 10 + y, y * 10 + x * x));
+      }
+    }
+
+    // Connect each node to the right and down, skipping some to make walls
+    for (int y = 0; y < width; y++) {
+      for (int x = 0; x < width; x++) {
+        Node node = nodes.get(y * width + x);
+
+        if (x + 1 < width && (x + y) % 3 != 0) {
+          edges.add(new Edge(node, nodes.get(y * width + x + 1)));
+        }
+        if (y + 1 < width && (x * y) % 4 != 1) {
+          edges.add(new Edge(node, nodes.get((y + 1) * width + x)));
+        }
+      }
+    }
+
+    return new HospitalGraph(nodes, edges, List.of(), new Date());
+  }
+
+  /**
+   * Tests that the A* algorithms find a shortest path between every pair of nodes in a grid with
+   * holes
+   */
+  @Test
+  public void aStarShortestPathTest() {
+    HospitalGraph graph = gridGraph(8); // Graph to search
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    for (int i = 0; i < graph.size(); i++) {
+      nodes.add(graph.getNode(i));
+    }
+
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Shortest distance from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    for (Node start : nodes) {
+      dijkstra.shortestPathTree(graph.indexOf(start), graph::distance, distances, parents);
+
+      for (Node end : nodes) {
+        for (IFindPath algorithm : shortestPathAlgorithms) {
+          List<Node> path = algorithm.findPath(start, end, false, graph);
+
+          // Unreachable nodes have no path, otherwise it must be as short as Dijkstras
+          if (distances[graph.indexOf(end)] == Double.POSITIVE_INFINITY) {
+            assertNull(path);
+            continue;
+          }
+
+          double cost = 0; // The cost of the path
+          for (int i = 1; i < path.size(); i++) {
+            assertTrue(graph.hasArc(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i))));
+            cost += graph.distance(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i)));
+          }
+
+          assertEquals(start, path.get(0));
+          assertEquals(end, path.get(path.size() - 1));
+          assertEquals(distances[graph.indexOf(end)], cost, 1e-9);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that breadth-first finds a path with the fewest hops, and depth-first finds a path that
+   * never visits a node twice, between every pair of nodes in a grid with holes
+   */
+  @Test
+  public void hopsTest() {
+    HospitalGraph graph = gridGraph(8); // Graph to search
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] hops = new double[graph.size()]; // Fewest hops from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    for (int start = 0; start < graph.size(); start++) {
+      dijkstra.shortestPathTree(start, (from, to) -> 1, hops, parents);
+
+      for (int end = 0; end < graph.size(); end++) {
+        Node startNode = graph.getNode(start); // Node to start at
+        Node endNode = graph.getNode(end); // Node to end at
+        List<Node> breadthPath = new BreadthFirst().findPath(startNode, endNode, false, graph);
+        List<Node> depthPath = new DepthFirst().findPath(startNode, endNode, false, graph);
+
+        // Unreachable nodes have no path
+        if (hops[end] == Double.POSITIVE_INFINITY) {
+          assertNull(breadthPath);
+          assertNull(depthPath);
+          continue;
+        }
+
+        assertEquals((int) hops[end] + 1, breadthPath.size());
+        assertEquals(depthPath.size(), new HashSet<>(depthPath).size());
+
+        for (List<Node> path : List.of(breadthPath, depthPath)) {
+          assertEquals(startNode, path.get(0));
+          assertEquals(endNode, path.get(path.size() - 1));
+          for (int i = 1; i < path.size(); i++) {
+            assertTrue(graph.hasArc(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i))));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that a multi-stop plan visits every reachable stop exactly once, along a connected route,
+   * and finds the obvious order along a line
+   */
+  @Test
+  public void multiStopTest() {
+    HospitalGraph graph = gridGraph(8); // Graph to plan in
+    MultiStopPlanner planner = new MultiStopPlanner(graph, false);
+    Node start = graph.getNode(0); // Node to start at
+    List<Node> stops = new ArrayList<>(); // Nodes to visit
+    for (int i = 5; i < graph.size(); i += 7) {
+      stops.add(graph.getNode(i));
+    }
+    stops.add(graph.getNode(5)); // Duplicates are only visited once
+    stops.add(new Node("missing", "b", Node.Floor.L1, 0, 0)); // Not in the graph
+
+    MultiStopPlanner.Plan plan = planner.plan(start, stops);
+    Set<Node> visited = new HashSet<>(plan.getStops()); // Stops the plan visits
+    assertEquals(plan.getStops().size(), visited.size());
+    assertTrue(plan.getUnreachable().contains(stops.get(stops.size() - 1)));
+    for (Node stop : stops) {
+      assertTrue(visited.contains(stop) ^ plan.getUnreachable().contains(stop));
+    }
+
+    // The route goes along arcs from the start, through the stops in order
+    List<Node> path = plan.getPath(); // The route
+    assertEquals(start, path.get(0));
+    assertEquals(plan.getStops().get(plan.getStops().size() - 1), path.get(path.size() - 1));
+    double cost = 0; // Cost of the route
+    int next = 0; // Next stop the route should reach
+    for (int i = 1; i < path.size(); i++) {
+      int from = graph.indexOf(path.get(i - 1));
+      int to = graph.indexOf(path.get(i));
+      assertTrue(graph.hasArc(from, to));
+      cost += graph.cost(from, to, false);
+      if (next < plan.getStops().size() && path.get(i).equals(plan.getStops().get(next))) {
+        next++;
+      }
+    }
+    assertEquals(plan.getStops().size(), next);
+    assertEquals(plan.getCost(), cost, 1e-9);
+
+    // Along a line, starting in the middle, the closer end comes first
+    Node a = new Node("a", "b", Node.Floor.L1, 0, 0); // Far end
+    Node b = new Node("b", "b", Node.Floor.L1, 0, 10); // Middle, start
+    Node c = new Node("c", "b", Node.Floor.L1, 0, 15); // Near end
+    HospitalGraph line =
+        new HospitalGraph(
+            List.of(a, b, c), List.of(new Edge(a, b), new Edge(b, c)), List.of(), new Date());
+    MultiStopPlanner.Plan linePlan = new MultiStopPlanner(line, false).plan(b, List.of(a, c));
+    assertEquals(List.of(c, a), linePlan.getStops());
+    assertEquals(List.of(b, c, b, a), linePlan.getPath());
+    assertEquals(20, linePlan.getCost(), 1e-9);
+  }
+
+  /**
+   * Tests that the k shortest paths are the cheapest simple paths, in order, by comparing against
+   * every simple path in a small grid
+   */
+  @Test
+  public void kShortestPathsTest() {
+    HospitalGraph graph = gridGraph(4); // Graph to search
+    KShortestPaths kShortestPaths = new KShortestPaths(graph, false);
+
+    for (int start = 0; start < graph.size(); start += 3) {
+      for (int end = 0; end < graph.size(); end += 2) {
+        // Find the cost of every simple path
+        List<Double> allCosts = new ArrayList<>(); // Cost of each simple path
+        simplePathCosts(graph, start, end, new boolean[graph.size()], 0, allCosts);
+        allCosts.sort(Double::compare);
+
+        List<KShortestPaths.Route> routes =
+            kShortestPaths.find(graph.getNode(start), graph.getNode(end), 5);
+        assertEquals(Math.min(5, allCosts.size()), routes.size());
+
+        Set<List<Node>> distinct = new HashSet<>(); // Routes seen so far
+        for (int i = 0; i < routes.size(); i++) {
+          List<Node> path = routes.get(i).getPath();
+          assertTrue(distinct.add(path)); // No repeats
+          assertEquals(path.size(), new HashSet<>(path).size()); // No loops
+          assertEquals(graph.getNode(start), path.get(0));
+          assertEquals(graph.getNode(end), path.get(path.size() - 1));
+
+          double cost = 0; // The cost of the path
+          for (int j = 1; j < path.size(); j++) {
+            assertTrue(graph.hasArc(graph.indexOf(path.get(j - 1)), graph.indexOf(path.get(j))));
+            cost += graph.cost(graph.indexOf(path.get(j - 1)), graph.indexOf(path.get(j)), false);
+          }
+          assertEquals(cost, routes.get(i).getCost(), 1e-9);
+          assertEquals(allCosts.get(i), cost, 1e-9); // The i-th cheapest
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the cost of every simple path from a node to the end to a list
+   *
+   * @param graph the graph to search
+   * @param current the node the paths continue from
+   * @param end the node the paths end at
+   * @param visited the nodes already on the path
+   * @param cost the cost of the path so far
+   * @param costs the list to add the costs to
+   */
+  private static void simplePathCosts(
+      HospitalGraph graph,
+      int current,
+      int end,
+      boolean[] visited,
+      double cost,
+      List<Double> costs) {
+    if (current == end) {
+      costs.add(cost);
+      return;
+    }
+
+    visited[current] = true;
+    for (int arc = graph.arcsStart(current); arc < graph.arcsEnd(current); arc++) {
+      int next = graph.arcTarget(arc);
+      if (!visited[next]) {
+        simplePathCosts(graph, next, end, visited, cost + graph.cost(current, next, false), costs);
+      }
+    }
+    visited[current] = false;
+  }
+
+  /** Tests that landmarks never overestimate the cost between two nodes */
+  @Test
+  public void landmarkTest() {
+    HospitalGraph graph = gridGraph(8); // Graph to pick the landmarks in
+    Landmarks landmarks = new Landmarks(graph, EdgeCostModel.STANDARD, 4);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Shortest distance from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    // Landmarks must be distinct nodes
+    assertEquals(4, landmarks.count());
+    Set<Integer> picked = new HashSet<>(); // The landmarks seen so far
+    for (int landmark = 0; landmark < landmarks.count(); landmark++) {
+      assertTrue(picked.add(landmarks.getLandmark(landmark)));
+    }
+
+    for (int start = 0; start < graph.size(); start++) {
+      dijkstra.shortestPathTree(
+          start, (from, to) -> graph.cost(from, to, false), distances, parents);
+
+      for (int end = 0; end < graph.size(); end++) {
+        assertTrue(landmarks.lowerBound(start, end) <= distances[end] + 1e-9);
+      }
+      assertEquals(0, landmarks.lowerBound(start, start));
+    }
+  }
+
+  /**
+   * Creates two grid floors, joined at a few places by alternating stairs and elevators
+   *
+   * @param width the width and height of each floor
+   * @return the graph
+   */
+  private static HospitalGraph twoFloorGraph(int width) {
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+    List<Move> moves = new ArrayList<>(); // The stairs and elevators
+
+    for (Node.Floor floor : List.of(Node.Floor.L1, Node.Floor.L2)) {
+      HospitalGraph grid = gridGraph(width); // Layout of the floor
+      for (int i = 0; i < grid.size(); i++) {
+        Node node = grid.getNode(i);
+        nodes.add(new Node(floor + node.getId(), "b", floor, node.getXCoord(), node.getYCoord()));
+      }
+      for (int i = 0; i < grid.size(); i++) {
+        for (int arc = grid.arcsStart(i); arc < grid.arcsEnd(i); arc++) {
+          if (i < grid.arcTarget(arc)) {
+            Node from = nodes.get(nodes.size() - grid.size() + i);
+            edges.add(new Edge(from, nodes.get(nodes.size() - grid.size() + grid.arcTarget(arc))));
+          }
+        }
+      }
+    }
+
+    // Join the floors at a few places, alternating stairs and elevators
+    int floorSize = width * width; // Nodes on each floor
+    for (int i = 0; i < floorSize; i += 7) {
+      LocationName.LocationType type =
+          i % 2 == 0 ? LocationName.LocationType.STAI : LocationName.LocationType.ELEV;
+      edges.add(new Edge(nodes.get(i), nodes.get(i + floorSize)));
+      moves.add(new Move(nodes.get(i), new LocationName("a" + i, type, "a"), new Date(0)));
+      moves.add(
+          new Move(nodes.get(i + floorSize), new LocationName("b" + i, type, "b"), new Date(0)));
+    }
+
+    return new HospitalGraph(nodes, edges, moves, new Date());
+  }
+
+  /**
+   * Tests that a contraction hierarchy finds paths as cheap as Dijkstras between every pair of
+   * nodes on two floors joined by stairs and elevators, where costs differ by direction
+   */
+  @Test
+  public void contractionHierarchyTest() {
+    HospitalGraph graph = twoFloorGraph(6);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Lowest cost from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    IFindPath hierarchy = new ContractionHierarchies(); // Algorithm to test
+    for (boolean accessible : List.of(false, true)) {
+      for (int start = 0; start < graph.size(); start++) {
+        dijkstra.shortestPathTree(
+            start, (from, to) -> graph.cost(from, to, accessible), distances, parents);
+
+        for (int end = 0; end < graph.size(); end++) {
+          List<Node> path =
+              hierarchy.findPath(graph.getNode(start), graph.getNode(end), accessible, graph);
+
+          if (distances[end] == Double.POSITIVE_INFINITY) {
+            assertNull(path);
+            continue;
+          }
+
+          double cost = 0; // The cost of the path
+          for (int i = 1; i < path.size(); i++) {
+            int from = graph.indexOf(path.get(i - 1));
+            int to = graph.indexOf(path.get(i));
+            assertTrue(graph.hasArc(from, to));
+            cost += graph.cost(from, to, accessible);
+          }
+
+          assertEquals(graph.getNode(start), path.get(0));
+          assertEquals(graph.getNode(end), path.get(path.size() - 1));
+          assertEquals(distances[end], cost, 1e-9);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that searches reading the precomputed costs of each model build the same trees as ones
+   * that work out every cost, in both directions, and that the models cost arcs as documented
+   */
+  @Test
+  public void edgeCostModelTest() {
+    HospitalGraph graph = twoFloorGraph(5);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] expected = new double[graph.size()]; // Costs worked out during the search
+    double[] actual = new double[graph.size()]; // Costs read from the precomputed arcs
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    for (EdgeCostModel model : EdgeCostModel.values()) {
+      for (int start = 0; start < graph.size(); start++) {
+        dijkstra.shortestPathTree(
+            start, (from, to) -> model.cost(graph, from, to), expected, parents);
+        dijkstra.shortestPathTree(start, model, false, actual, parents);
+        assertArrayEquals(expected, actual);
+
+        dijkstra.shortestPathTree(
+            start, (from, to) -> model.cost(graph, to, from), expected, parents);
+        dijkstra.shortestPathTree(start, model, true, actual, parents);
+        assertArrayEquals(expected, actual);
+      }
+    }
+
+    for (int from = 0; from < graph.size(); from++) {
+      for (int arc = graph.arcsStart(from); arc < graph.arcsEnd(from); arc++) {
+        int to = graph.arcTarget(arc);
+        assertEquals(graph.cost(from, to, false), EdgeCostModel.STANDARD.cost(graph, from, to));
+        assertEquals(graph.cost(from, to, true), EdgeCostModel.ACCESSIBLE.cost(graph, from, to));
+        assertEquals(graph.distance(from, to), EdgeCostModel.DISTANCE.cost(graph, from, to));
+
+        // Walking time is proportional to distance on a floor, and finite between floors
+        double time = EdgeCostModel.WALKING_TIME.cost(graph, from, to);
+        if (graph.getFloor(from) == graph.getFloor(to)) {
+          assertEquals(
+              graph.distance(from, to) * EdgeCostModel.WALKING_TIME.getDistanceScale(), time);
+        } else {
+          assertTrue(time > 0 && time != Double.POSITIVE_INFINITY);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the shortest path algorithms find paths as cheap as Dijkstras under every cost
+   * model, so the straight-line estimates are scaled to each model
+   */
+  @Test
+  public void costModelPathTest() {
+    HospitalGraph graph = twoFloorGraph(5);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] costs = new double[graph.size()]; // Lowest cost from the start
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    for (EdgeCostModel model : EdgeCostModel.values()) {
+      for (int start = 0; start < graph.size(); start++) {
+        dijkstra.shortestPathTree(start, model, false, costs, parents);
+
+        for (int end = 0; end < graph.size(); end++) {
+          for (IFindPath algorithm : shortestPathAlgorithms) {
+            List<Node> path =
+                algorithm.findPath(graph.getNode(start), graph.getNode(end), model, graph);
+
+            if (costs[end] == Double.POSITIVE_INFINITY) {
+              assertNull(path);
+              continue;
+            }
+
+            double cost = 0; // The cost of the path
+            for (int i = 1; i < path.size(); i++) {
+              cost += model.cost(graph, graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i)));
+            }
+
+            assertEquals(graph.getNode(start), path.get(0));
+            assertEquals(graph.getNode(end), path.get(path.size() - 1));
+            assertEquals(costs[end], cost, 1e-9);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the batch router gives the same costs as a search per pair, and routes that match
+   * them
+   */
+  @Test
+  public void batchRouterTest() {
+    HospitalGraph grid = gridGraph(6); // Layout to put locations in
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+    List<Move> moves = new ArrayList<>(); // Where each location is
+    List<LocationName> locations = new ArrayList<>(); // The locations
+    for (int i = 0; i < grid.size(); i++) {
+      nodes.add(grid.getNode(i));
+      for (int arc = grid.arcsStart(i); arc < grid.arcsEnd(i); arc++) {
+        if (i < grid.arcTarget(arc)) {
+          edges.add(new Edge(grid.getNode(i), grid.getNode(grid.arcTarget(arc))));
+        }
+      }
+
+      // Put a location on every third node
+      if (i % 3 == 0) {
+        LocationName location = new LocationName("l" + i, LocationName.LocationType.DEPT, "l");
+        locations.add(location);
+        moves.add(new Move(grid.getNode(i), location, new Date(0)));
+      }
+    }
+    LocationName unplaced = new LocationName("u", LocationName.LocationType.DEPT, "u");
+    locations.add(unplaced); // Not on the map
+
+    HospitalGraph graph = new HospitalGraph(nodes, edges, moves, new Date());
+    BatchRouter.DistanceTable table = new BatchRouter(graph, false).route(locations, locations);
+    Dijkstra dijkstra = new Dijkstra(graph);
+    double[] distances = new double[graph.size()]; // Cost from the source
+    int[] parents = new int[graph.size()]; // Unused shortest path tree
+
+    assertEquals(locations, table.getSources());
+    for (LocationName source : locations) {
+      if (source == unplaced) {
+        assertEquals(Double.POSITIVE_INFINITY, table.getDistance(source, locations.get(0)));
+        assertNull(table.getPath(source, locations.get(0)));
+        continue;
+      }
+      dijkstra.shortestPathTree(
+          graph.indexOf(source), (from, to) -> graph.cost(from, to, false), distances, parents);
+
+      for (LocationName target : locations) {
+        if (target == unplaced || distances[graph.indexOf(target)] == Double.POSITIVE_INFINITY) {
+          assertEquals(Double.POSITIVE_INFINITY, table.getDistance(source, target));
+          assertNull(table.getNextHop(source, target));
+          continue;
+        }
+
+        assertEquals(distances[graph.indexOf(target)], table.getDistance(source, target), 1e-9);
+
+        // The route must start with the next hop, and cost what the table says
+        List<Node> path = table.getPath(source, target);
+        double cost = 0; // The cost of the route
+        for (int i = 1; i < path.size(); i++) {
+          assertTrue(graph.hasArc(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i))));
+          cost += graph.cost(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i)), false);
+        }
+        assertEquals(path.get(Math.min(1, path.size() - 1)), table.getNextHop(source, target));
+        assertEquals(table.getDistance(source, target), cost, 1e-9);
+      }
+    }
+  }
+
+  /** Tests that publishing a graph change notifies listeners and makes existing snapshots stale */
+  @Test
+  public void graphChangeTest() {
+    HospitalGraph graph = new HospitalGraph(List.of(), List.of(), List.of(), new Date());
+    assertTrue(graph.isCurrent()); // Nothing has changed yet
+
+    List<GraphChange> changes = new ArrayList<>(); // Changes the listener saw
+    Consumer<GraphChange> listener = changes::add;
+    GraphChangeBus.BUS.addListener(listener);
+
+    GraphChange change = GraphChangeBus.BUS.publish(false);
+    GraphChangeBus.BUS.removeListener(listener);
+
+    assertEquals(List.of(change), changes); // The listener got exactly the change
+    assertEquals(graph.getVersion() + 1, change.getVersion()); // The version went up by one
+    assertEquals(GraphChangeBus.BUS.getVersion(), change.getVersion());
+    assertFalse(graph.isCurrent()); // The old snapshot is now stale
+
+    GraphChangeBus.BUS.publishFullReload(); // Listener was removed, so it shouldn't be called
+    assertEquals(1, changes.size());
+  }
+}
@@ -0,0 +1,135 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the edge index. These tests are purely in memory, and do not use the database */
+public class EdgeIndexTest {
+  private final Node first = new Node("first", "b", Node.Floor.L1, 0, 0); // First node
+  private final Node second = new Node("second", "b", Node.Floor.L1, 0, 10); // Second node
+  private final Node third = new Node("third", "b", Node.Floor.L1, 10, 0); // Third node
+
+  /** Tests that an edge is found in both directions, as it was added */
+  @Test
+  public void bothDirectionsTest() {
+    Edge edge = new Edge(first, second);
+    EdgeIndex index = new EdgeIndex(List.of(edge));
+
+    assertSame(edge, index.find(first, second));
+    assertSame(edge, index.find(second, first));
+    assertTrue(index.contains(second, first));
+    assertNull(index.find(first, third)); // No edge
+    assertNull(index.find(third, new Node("missing", "b", Node.Floor.L1, 5, 5))); // Never seen
+    assertEquals(1, index.size());
+
+    // An equal node that is a different object still finds it
+    assertSame(edge, index.find(new Node("second", "b", Node.Floor.L1, 0, 10), first));
+  }
+
+  /** Tests that adding the reverse of an edge replaces it, and that removal works either way */
+  @Test
+  public void replaceAndRemoveTest() {
+    EdgeIndex index = new EdgeIndex();
+    index.add(new Edge(first, second));
+    index.add(new Edge(second, third));
+
+    Edge reversed = new Edge(second, first);
+    index.add(reversed);
+    assertEquals(2, index.size());
+    assertSame(reversed, index.find(first, second));
+
+    index.remove(new Edge(first, second)); // Other direction
+    assertEquals(1, index.size());
+    assertNull(index.find(first, second));
+    assertNotNull(index.find(third, second));
+
+    index.remove(new Edge(first, third)); // Not there, does nothing
+    assertEquals(1, index.size());
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertNull(index.find(second, third));
+  }
+
+  /**
+   * Gets the same key for the edge between two nodes in either direction
+   *
+   * @param one one end
+   * @param two the other end
+   * @return the IDs of both ends, in order
+   */
+  private static String key(Node one, Node two) {
+    return one.getId().compareTo(two.getId()) < 0
+        ? one.getId() + "_" + two.getId()
+        : two.getId() + "_" + one.getId();
+  }
+
+  /** Tests many random adds and removes against a map of node ID pairs */
+  @Test
+  public void randomTest() {
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      nodes.add(new Node(Integer.toString(i), "b", Node.Floor.L1, i, 0));
+    }
+
+    EdgeIndex index = new EdgeIndex();
+    Map<String, Edge> expected = new HashMap<>(); // By the IDs of both ends
+    Random random = new Random(2023);
+
+    for (int step = 0; step < 20000; step++) {
+      Node one = nodes.get(random.nextInt(nodes.size()));
+      Node two = nodes.get(random.nextInt(nodes.size()));
+      Edge edge = new Edge(one, two);
+
+      // Grow mostly, but remove often enough that removals hit long runs
+      if (random.nextInt(3) == 0) {
+        index.remove(edge);
+        expected.remove(key(one, two));
+      } else {
+        index.add(edge);
+        expected.put(key(one, two), edge);
+      }
+    }
+
+    assertEquals(expected.size(), index.size());
+    for (Node one : nodes) {
+      for (Node two : nodes) {
+        assertSame(expected.get(key(one, two)), index.find(one, two));
+      }
+    }
+  }
+
+  /** Tests that the numbers of nodes with no edges left are reused, and lookups still work */
+  @Test
+  public void reuseNumbersTest() {
+    EdgeIndex index = new EdgeIndex();
+    Node fourth = new Node("fourth", "b", Node.Floor.L1, 10, 10); // Node added later
+
+    // Add and remove edges to new nodes, which would grow the numbers without reuse
+    for (int i = 0; i < 1000; i++) {
+      Node temporary = new Node("temporary" + i, "b", Node.Floor.L1, i, 5);
+      index.add(new Edge(first, temporary));
+      index.add(new Edge(temporary, temporary)); // Self loop, counted at both ends
+      index.remove(new Edge(temporary, first));
+      index.remove(new Edge(temporary, temporary));
+      assertNull(index.find(first, temporary));
+    }
+    assertEquals(0, index.size());
+
+    // Nodes given reused numbers are told apart correctly
+    Edge one = new Edge(first, second);
+    Edge two = new Edge(third, fourth);
+    index.add(one);
+    index.add(two);
+    index.remove(one);
+    index.add(new Edge(second, third));
+    assertNull(index.find(first, second));
+    assertSame(two, index.find(fourth, third));
+    assertNotNull(index.find(third, second));
+    assertEquals(2, index.size());
+  }
+}
@@ -0,0 +1,148 @@
+package edu.wpi.FlashyFrogs.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the move index. These tests are purely in memory, and do not use the database */
+public class MoveIndexTest {
+  private final Node first = new Node("first", "b", Node.Floor.L1, 0, 0); // First node
+  private final Node second = new Node("second", "b", Node.Floor.L1, 0, 10); // Second node
+  private final LocationName a = new LocationName("a", LocationName.LocationType.DEPT, "a");
+  private final LocationName b = new LocationName("b", LocationName.LocationType.DEPT, "b");
+  private final LocationName c = new LocationName("c", LocationName.LocationType.DEPT, "c");
+
+  /** Tests that a node holds its two most recent locations, and nothing before its first move */
+  @Test
+  public void twoMostRecentTest() {
+    MoveIndex index =
+        new MoveIndex(
+            List.of(
+                new Move(first, a, new Date(10)),
+                new Move(first, b, new Date(20)),
+                new Move(first, c, new Date(30))),
+            0);
+
+    assertEquals(List.of(), index.getCurrentLocation(first, new Date(9)));
+    assertEquals(List.of(a), index.getCurrentLocation(first, new Date(10))); // Moves count that day
+    assertEquals(List.of(b, a), index.getCurrentLocation(first, new Date(25)));
+    assertEquals(List.of(c, b), index.getCurrentLocation(first, new Date(30)));
+    assertEquals(List.of(), index.getCurrentLocation(second, new Date(30))); // Never moved to
+
+    // A location pushed out by two newer ones isn't anywhere
+    assertNull(index.getCurrentNode(a, new Date(30)));
+    assertEquals(first, index.getCurrentNode(a, new Date(29)));
+    assertNull(index.getCurrentNode(c, new Date(29))); // Not moved in yet
+  }
+
+  /** Tests that a location that moves on is only in its new node */
+  @Test
+  public void moveAwayTest() {
+    MoveIndex index =
+        new MoveIndex(
+            List.of(
+                new Move(first, a, new Date(10)),
+                new Move(first, b, new Date(10)),
+                new Move(second, a, new Date(20))),
+            0);
+
+    assertEquals(first, index.getCurrentNode(a, new Date(15)));
+    assertEquals(second, index.getCurrentNode(a, new Date(20)));
+    assertEquals(List.of(b), index.getCurrentLocation(first, new Date(20)));
+    assertEquals(List.of(a), index.getCurrentLocation(second, new Date(20)));
+  }
+
+  /** Tests that random moves give the same answers as looking through every move */
+  @Test
+  public void randomTest() {
+    Random random = new Random(3);
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<LocationName> locations = new ArrayList<>(); // The locations
+    for (int i = 0; i < 8; i++) {
+      nodes.add(new Node("n" + i, "b", Node.Floor.L1, i, i));
+      locations.add(new LocationName("l" + i, LocationName.LocationType.DEPT, "l"));
+    }
+
+    // Distinct dates, so which move is most recent is never a tie
+    List<Move> moves = new ArrayList<>(); // The moves
+    for (int i = 0; i < 60; i++) {
+      moves.add(
+          new Move(
+              nodes.get(random.nextInt(nodes.size())),
+              locations.get(random.nextInt(locations.size())),
+              new Date(i * 10L)));
+    }
+    MoveIndex index = new MoveIndex(moves, 0);
+
+    for (long time = -5; time < 610; time += 5) {
+      Date date = new Date(time);
+      for (LocationName location : locations) {
+        assertEquals(scanCurrentNode(moves, location, date), index.getCurrentNode(location, date));
+      }
+      for (Node node : nodes) {
+        List<LocationName> expected = new ArrayList<>(); // The locations held, most recent first
+        for (LocationName location : scanRecentLocations(moves, node, date)) {
+          if (node.equals(scanCurrentNode(moves, location, date))) {
+            expected.add(location);
+          }
+        }
+        assertEquals(expected, index.getCurrentLocation(node, date));
+      }
+    }
+  }
+
+  /**
+   * Finds the node a location is in by looking through every move, like the database query
+   *
+   * @param moves the moves
+   * @param location the location to look up
+   * @param date the date to look at
+   * @return the node the location is in, or null if it isn't in one
+   */
+  private static Node scanCurrentNode(List<Move> moves, LocationName location, Date date) {
+    Move latest = null; // Most recent move of the location
+    for (Move move : moves) {
+      if (move.getLocation().equals(location)
+          && !move.getMoveDate().after(date)
+          && (latest == null || move.getMoveDate().after(latest.getMoveDate()))) {
+        latest = move;
+      }
+    }
+
+    if (latest == null || !scanRecentLocations(moves, latest.getNode(), date).contains(location)) {
+      return null;
+    }
+    return latest.getNode();
+  }
+
+  /**
+   * Finds the two locations that most recently moved into a node by looking through every move
+   *
+   * @param moves the moves
+   * @param node the node to look up
+   * @param date the date to look at
+   * @return up to two locations, most recent first
+   */
+  private static List<LocationName> scanRecentLocations(List<Move> moves, Node node, Date date) {
+    List<Move> nodeMoves = new ArrayList<>(); // Moves into the node by the date
+    for (Move move : moves) {
+      if (move.getNode().equals(node) && !move.getMoveDate().after(date)) {
+        nodeMoves.add(move);
+      }
+    }
+    nodeMoves.sort((one, two) -> two.getMoveDate().compareTo(one.getMoveDate()));
+
+    List<LocationName> recent = new ArrayList<>(); // The most recent locations
+    for (int i = 0; i < Math.min(2, nodeMoves.size()); i++) {
+      recent.add(nodeMoves.get(i).getLocation());
+    }
+    return recent;
+  }
+}
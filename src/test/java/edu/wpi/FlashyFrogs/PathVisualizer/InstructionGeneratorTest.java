@@ -0,0 +1,283 @@
+package edu.wpi.FlashyFrogs.PathVisualizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.Map.MoveIndex;
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.*;
+import org.apache.commons.math3.util.MathUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the turn-by-turn instructions. These tests are purely in memory, and do not use the
+ * database
+ */
+public class InstructionGeneratorTest {
+  private final Date moveDate = new Date(1000); // Date every location moved in
+  private final Date date = new Date(2000); // Date the locations are resolved at
+
+  /**
+   * Creates a node on the first floor
+   *
+   * @param id the ID of the node
+   * @param x the x coordinate
+   * @param y the y coordinate
+   * @return the node
+   */
+  private static Node node(String id, int x, int y) {
+    return new Node(id, "b", Node.Floor.L1, x, y);
+  }
+
+  /**
+   * Gets the text of each instruction
+   *
+   * @param instructions the instructions
+   * @return the text of each, in order
+   */
+  private static List<String> text(
+      List<AbstractPathVisualizerController.Instruction> instructions) {
+    return instructions.stream()
+        .map(AbstractPathVisualizerController.Instruction::getInstruction)
+        .toList();
+  }
+
+  /**
+   * Creates a snapshot holding a path, with edges along it and the given moves
+   *
+   * @param path the path
+   * @param moves the moves
+   * @return the snapshot
+   */
+  private HospitalGraph graph(List<Node> path, List<Move> moves) {
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 1; i < path.size(); i++) {
+      edges.add(new Edge(path.get(i - 1), path.get(i)));
+    }
+    return new HospitalGraph(new LinkedHashSet<>(path), edges, moves, date);
+  }
+
+  /** Tests that a straight run is only announced once */
+  @Test
+  public void straightTest() {
+    List<Node> path =
+        List.of(node("a", 0, 0), node("b", 10, 0), node("c", 20, 0), node("d", 30, 0));
+
+    List<AbstractPathVisualizerController.Instruction> instructions =
+        InstructionGenerator.generate(path, graph(path, List.of()));
+
+    assertEquals(
+        List.of(
+            "Starting at floor " + Node.Floor.L1 + ":",
+            "\t↑ Continue",
+            "You have arrived at your destination!"),
+        text(instructions));
+    assertEquals(path.get(0), instructions.get(1).getNode());
+    assertEquals(path.get(3), instructions.get(2).getNode());
+  }
+
+  /** Tests that turns are announced at the node they happen at, named by its location */
+  @Test
+  public void turnTest() {
+    Node start = node("a", 0, 0);
+    Node corner = node("b", 10, 0);
+    LocationName lab = new LocationName("Lab", LocationName.LocationType.LABS, "LB");
+    List<Move> moves = List.of(new Move(corner, lab, moveDate));
+
+    // Y grows down the map, so going up is a left turn
+    List<Node> left = List.of(start, corner, node("c", 10, -10));
+    List<String> leftText = text(InstructionGenerator.generate(left, graph(left, moves)));
+    assertEquals("\t← Turn left at LB", leftText.get(2));
+
+    List<Node> right = List.of(start, corner, node("c", 10, 10));
+    List<String> rightText = text(InstructionGenerator.generate(right, graph(right, moves)));
+    assertEquals("\t→ Turn right at LB", rightText.get(2));
+
+    // Going straight again after a turn is announced again
+    List<Node> zigzag = List.of(start, corner, node("c", 10, 10), node("d", 10, 20));
+    assertEquals(
+        List.of(
+            "Starting at floor " + Node.Floor.L1 + ":",
+            "\t↑ Continue",
+            "\t→ Turn right at LB",
+            "\t↑ Continue",
+            "You have arrived at your destination!"),
+        text(InstructionGenerator.generate(zigzag, graph(zigzag, moves))));
+  }
+
+  /** Tests that changing floors by elevator is announced at the node on the new floor */
+  @Test
+  public void floorChangeTest() {
+    Node start = node("a", 0, 0);
+    Node elevatorDown = node("b", 10, 0);
+    Node elevatorUp = new Node("c", "b", Node.Floor.L2, 10, 0);
+    Node end = new Node("d", "b", Node.Floor.L2, 10, 10);
+    LocationName lower = new LocationName("Elevator A L1", LocationName.LocationType.ELEV, "EA1");
+    LocationName upper = new LocationName("Elevator A L2", LocationName.LocationType.ELEV, "EA2");
+    List<Move> moves =
+        List.of(new Move(elevatorDown, lower, moveDate), new Move(elevatorUp, upper, moveDate));
+    List<Node> path = List.of(start, elevatorDown, elevatorUp, end);
+
+    List<AbstractPathVisualizerController.Instruction> instructions =
+        InstructionGenerator.generate(path, graph(path, moves));
+
+    assertEquals(
+        List.of(
+            "Starting at floor " + Node.Floor.L1 + ":",
+            "\t↑ Continue",
+            "Going to floor " + Node.Floor.L2 + ":",
+            "\t→ Turn right at EA2",
+            "You have arrived at your destination!"),
+        text(instructions));
+    assertEquals(elevatorUp, instructions.get(2).getNode());
+  }
+
+  /** Tests that the move index overload names nodes by what they hold at the date */
+  @Test
+  public void moveIndexTest() {
+    Node start = node("a", 0, 0);
+    Node corner = node("b", 10, 0);
+    List<Node> path = List.of(start, corner, node("c", 10, -10));
+    LocationName lab = new LocationName("Lab", LocationName.LocationType.LABS, "LB");
+    LocationName office = new LocationName("Office", LocationName.LocationType.DEPT, "OF");
+    MoveIndex index =
+        new MoveIndex(
+            List.of(new Move(corner, lab, moveDate), new Move(corner, office, new Date(3000))),
+            0);
+
+    // The office hasn't moved in yet at the date
+    assertEquals(
+        "\t← Turn left at LB", text(InstructionGenerator.generate(path, index, date)).get(2));
+    assertEquals(
+        "\t← Turn left at OF",
+        text(InstructionGenerator.generate(path, index, new Date(4000))).get(2));
+
+    // Both overloads agree on locations that aren't hallways
+    HospitalGraph graph = graph(path, List.of(new Move(corner, lab, moveDate)));
+    assertEquals(
+        text(InstructionGenerator.generate(path, graph)),
+        text(InstructionGenerator.generate(path, index, date)));
+  }
+
+  /** Tests that the instructions are exactly what the old table drawing loop produced */
+  @Test
+  public void matchesOldLoopTest() {
+    Random random = new Random(2023);
+    List<LocationName> locations = new ArrayList<>(); // Locations to put in random nodes
+    for (int i = 0; i < 10; i++) {
+      locations.add(new LocationName("Location " + i, LocationName.LocationType.DEPT, "L" + i));
+    }
+
+    for (int run = 0; run < 2000; run++) {
+      // A random walk, turning and changing floors now and then
+      List<Node> path = new ArrayList<>();
+      List<Move> moves = new ArrayList<>();
+      int x = 0;
+      int y = 0;
+      Node.Floor floor = Node.Floor.L1;
+      for (int i = 0, length = 1 + random.nextInt(20); i < length; i++) {
+        if (random.nextInt(8) == 0) {
+          floor = Node.Floor.values()[random.nextInt(Node.Floor.values().length)];
+        } else {
+          x += random.nextInt(41) - 20;
+          y += random.nextInt(41) - 20;
+        }
+        Node node = new Node(run + "_" + i, "b", floor, x, y);
+        path.add(node);
+
+        if (random.nextInt(3) == 0) {
+          moves.add(new Move(node, locations.get(random.nextInt(locations.size())), moveDate));
+        }
+      }
+      MoveIndex index = new MoveIndex(moves, 0);
+
+      List<AbstractPathVisualizerController.Instruction> expected = oldLoop(path, index, date);
+      List<AbstractPathVisualizerController.Instruction> actual =
+          InstructionGenerator.generate(path, index, date);
+
+      assertEquals(text(expected), text(actual));
+      for (int i = 0; i < expected.size(); i++) {
+        assertSame(expected.get(i).getNode(), actual.get(i).getNode());
+      }
+    }
+  }
+
+  /**
+   * A copy of the loop the path visualizer used to draw its table with, before the instructions
+   * were generated separately
+   *
+   * @param currentPath the path
+   * @param moveIndex the moves to resolve the locations with
+   * @param date the date to resolve the locations at
+   * @return the instructions
+   */
+  private static List<AbstractPathVisualizerController.Instruction> oldLoop(
+      List<Node> currentPath, MoveIndex moveIndex, Date date) {
+    int continueCounter = 0;
+    List<AbstractPathVisualizerController.Instruction> instructions = new ArrayList<>();
+    double curAngle = 0;
+
+    for (int i = 0; i < currentPath.size() - 1; i++) { // For each line in the path
+      Node thisNode = currentPath.get(i);
+      Node nextNode = currentPath.get(i + 1);
+
+      double target =
+          Math.atan2(
+              (nextNode.getYCoord() - thisNode.getYCoord()),
+              (nextNode.getXCoord() - thisNode.getXCoord()));
+      double errorTheta = target - curAngle;
+      curAngle = target;
+
+      errorTheta = MathUtils.normalizeAngle(errorTheta, 0.0);
+
+      int errorDeg = (int) Math.toDegrees(errorTheta);
+
+      String nodeName =
+          moveIndex.getCurrentLocation(thisNode, date).stream()
+              .findFirst()
+              .orElse(new LocationName("", LocationName.LocationType.HALL, ""))
+              .getShortName();
+
+      if (i == 0) {
+        String newFloor = "Starting at floor " + currentPath.get(i).getFloor() + ":";
+        instructions.add(new AbstractPathVisualizerController.Instruction(newFloor, thisNode));
+      } else if (currentPath.get(i).getFloor() != currentPath.get(i - 1).getFloor()) {
+        String newFloor = "Going to floor " + currentPath.get(i).getFloor() + ":";
+        instructions.add(new AbstractPathVisualizerController.Instruction(newFloor, thisNode));
+      }
+
+      String at = nodeName.equals("") ? "" : " at " + nodeName; // Where the turn is
+      String turn; // The instruction for this node, if any
+      if (errorDeg < -70) {
+        turn = "\t← Turn left" + at;
+        continueCounter = 0;
+      } else if ((errorDeg > -70) && (errorDeg < -45)) {
+        turn = "\t↖ Take a slight left" + at;
+        continueCounter = 0;
+      } else if (errorDeg > 70) {
+        turn = "\t→ Turn right" + at;
+        continueCounter = 0;
+      } else if ((errorDeg > 45) && (errorDeg < 70)) {
+        turn = "\t↗ Take a slight right" + at;
+        continueCounter = 0;
+      } else if (continueCounter == 0) {
+        turn = "\t↑ Continue" + at;
+        continueCounter = continueCounter + 1;
+      } else {
+        turn = null;
+      }
+
+      if (turn != null) {
+        instructions.add(new AbstractPathVisualizerController.Instruction(turn, thisNode));
+      }
+    }
+
+    instructions.add(
+        new AbstractPathVisualizerController.Instruction(
+            "You have arrived at your destination!", currentPath.get(currentPath.size() - 1)));
+    return instructions;
+  }
+}
@@ -0,0 +1,146 @@
+package edu.wpi.FlashyFrogs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.Map.GraphChangeBus;
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.BreadthFirst;
+import edu.wpi.FlashyFrogs.PathFinding.EdgeCostModel;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import edu.wpi.FlashyFrogs.PathFinding.RouteCache;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the route cache. These tests are purely in memory, and do not use the database */
+public class RouteCacheTest {
+  private final Node a = new Node("a", "b", Node.Floor.L1, 0, 0); // First node
+  private final Node b = new Node("b", "b", Node.Floor.L1, 0, 10); // Second node
+  private final Node c = new Node("c", "b", Node.Floor.L1, 10, 10); // Third node
+  private final Node d = new Node("d", "b", Node.Floor.L1, 50, 50); // Disconnected node
+
+  private HospitalGraph graph; // Graph of the nodes
+
+  private int searches; // Number of times the algorithm was actually run
+
+  /** Breadth-first search, counting how many times it runs */
+  private class CountingSearch extends BreadthFirst {
+    @Override
+    public List<Node> findPath(Node start, Node end, EdgeCostModel model, HospitalGraph graph) {
+      searches++;
+      return super.findPath(start, end, model, graph);
+    }
+
+    @Override
+    public List<Node> findPath(Node start, Node end, Boolean accessible, Session session) {
+      throw new UnsupportedOperationException(); // Only the graph should be used
+    }
+  }
+
+  /**
+   * Finds a route through the cache, counting the searches
+   *
+   * @param start the start node
+   * @param end the end node
+   * @param accessible whether the route must be accessible
+   * @param graph the graph to search
+   * @return the route, or null if there is none
+   */
+  private List<Node> route(Node start, Node end, boolean accessible, HospitalGraph graph) {
+    return RouteCache.CACHE.findPath(
+        new CountingSearch(), start, end, EdgeCostModel.forAccessible(accessible), graph);
+  }
+
+  /** Empties the cache and creates the graph before each test */
+  @BeforeEach
+  public void setup() {
+    RouteCache.CACHE.clear();
+    graph =
+        new HospitalGraph(
+            List.of(a, b, c, d), List.of(new Edge(a, b), new Edge(b, c)), List.of(), new Date());
+    searches = 0;
+  }
+
+  /** Tests that repeated lookups are served from the cache, including lookups with no path */
+  @Test
+  public void hitTest() {
+    long hits = RouteCache.CACHE.getHits(); // Hits before the test
+    long misses = RouteCache.CACHE.getMisses(); // Misses before the test
+
+    assertEquals(List.of(a, b, c), route(a, c, false, graph));
+    assertEquals(List.of(a, b, c), route(a, c, false, graph));
+    assertNull(route(a, d, false, graph));
+    assertNull(route(a, d, false, graph));
+    assertEquals(2, searches); // Once for each route
+
+    // Accessible routes are cached separately
+    assertEquals(List.of(a, b, c), route(a, c, true, graph));
+    assertEquals(3, searches);
+
+    assertEquals(2, RouteCache.CACHE.getHits() - hits);
+    assertEquals(3, RouteCache.CACHE.getMisses() - misses);
+    assertEquals(3, RouteCache.CACHE.size());
+
+    // Changing a returned path doesn't change the cached one
+    route(a, c, false, graph).clear();
+    assertEquals(List.of(a, b, c), route(a, c, false, graph));
+  }
+
+  /** Tests that a graph change empties the cache, and stale snapshots don't share routes */
+  @Test
+  public void invalidationTest() {
+    route(a, c, false, graph);
+    GraphChangeBus.BUS.publishFullReload();
+    assertEquals(0, RouteCache.CACHE.size());
+
+    // The new snapshot has to search again
+    HospitalGraph newGraph =
+        new HospitalGraph(List.of(a, b, c, d), List.of(new Edge(a, b)), List.of(), new Date());
+    assertNull(route(a, c, false, newGraph));
+    assertEquals(2, searches);
+  }
+
+  /** Tests that different snapshots with the same date and version don't share routes */
+  @Test
+  public void sameDateTest() {
+    Date date = new Date(); // Date of both snapshots
+    HospitalGraph joined =
+        new HospitalGraph(
+            List.of(a, b, c, d), List.of(new Edge(a, b), new Edge(b, c)), List.of(), date);
+    HospitalGraph split =
+        new HospitalGraph(List.of(a, b, c, d), List.of(new Edge(a, b)), List.of(), date);
+
+    assertEquals(List.of(a, b, c), route(a, c, false, joined));
+    assertNull(route(a, c, false, split));
+    assertEquals(2, searches);
+  }
+
+  /** Tests that the least recently used routes are evicted once the cache is full */
+  @Test
+  public void evictionTest() {
+    long evictions = RouteCache.CACHE.getEvictions(); // Evictions before the test
+
+    // Make lots of graphs at different dates, so each route is different
+    List<HospitalGraph> graphs = new ArrayList<>(); // The graphs
+    for (int i = 0; i < 300; i++) {
+      graphs.add(
+          new HospitalGraph(
+              List.of(a, b, c, d), List.of(new Edge(a, b)), List.of(), new Date(i * 1000L)));
+      route(a, b, false, graphs.get(i));
+    }
+
+    assertEquals(256, RouteCache.CACHE.size());
+    assertEquals(300 - 256, RouteCache.CACHE.getEvictions() - evictions);
+
+    // The newest route is still there, the oldest was evicted
+    searches = 0;
+    route(a, b, false, graphs.get(299));
+    assertEquals(0, searches);
+    route(a, b, false, graphs.get(0));
+    assertEquals(1, searches);
+  }
+}
@@ -0,0 +1,343 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the routing table, and the all-pairs shortest path computation behind it */
+public class RoutingTableTest {
+  /**
+   * Creates a graph with a line of nodes long enough to span several tiles, where the last node
+   * loops back to the first with a short edge, and a single disconnected node at the end
+   *
+   * @param length the number of nodes in the line
+   * @return the graph
+   */
+  private static HospitalGraph loopGraph(int length) {
+    return loopGraph(length, List.of());
+  }
+
+  /**
+   * Creates a graph with a line of nodes long enough to span several tiles, where the last node
+   * loops back to the first with a short edge, and a single disconnected node at the end. Every
+   * node at one of the given indices holds a department
+   *
+   * @param length the number of nodes in the line
+   * @param departments the indices of the nodes that hold departments
+   * @return the graph
+   */
+  private static HospitalGraph loopGraph(int length, List<Integer> departments) {
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+
+    // Each node is 10 further along
+    for (int i = 0; i < length; i++) {
+      nodes.add(new Node(Integer.toString(i), "b", Node.Floor.L1, i * 10, 0));
+
+      if (i > 0) {
+        edges.add(new Edge(nodes.get(i - 1), nodes.get(i)));
+      }
+    }
+
+    // Move the last node right next to the first, and connect them
+    nodes.set(length - 1, new Node(Integer.toString(length - 1), "b", Node.Floor.L1, 0, 5));
+    edges.set(length - 2, new Edge(nodes.get(length - 2), nodes.get(length - 1)));
+    edges.add(new Edge(nodes.get(length - 1), nodes.get(0)));
+
+    nodes.add(new Node("disconnected", "b", Node.Floor.L1, 0, 100)); // Disconnected node
+
+    // Put a department on each of the given nodes
+    List<Move> moves = new ArrayList<>();
+    for (int department : departments) {
+      LocationName location =
+          new LocationName("dept" + department, LocationName.LocationType.DEPT, "d");
+      moves.add(new Move(nodes.get(department), location, new Date(0)));
+    }
+
+    return new HospitalGraph(nodes, edges, moves, new Date());
+  }
+
+  /**
+   * Checks that following the next hops from every node to every other node costs exactly the
+   * reported cost
+   *
+   * @param table the table to check
+   */
+  private static void assertNextHopsMatchCosts(RoutingTable table) {
+    HospitalGraph graph = table.getGraph();
+
+    for (int from = 0; from < graph.size(); from++) {
+      for (int to = 0; to < graph.size(); to++) {
+        if (!table.hasDestination(to)) {
+          continue; // Paths to here weren't computed
+        }
+
+        if (table.getCost(from, to) == Double.POSITIVE_INFINITY) {
+          assertEquals(-1, table.getNextHop(from, to)); // No path, no hop
+          continue;
+        }
+
+        // Walk the path, adding up the cost
+        double cost = 0;
+        for (int current = from; current != to; ) {
+          int next = table.getNextHop(current, to);
+          cost += graph.distance(current, next);
+          current = next;
+        }
+
+        assertEquals(table.getCost(from, to), cost, 1e-9);
+      }
+    }
+  }
+
+  /** Tests that Floyd-Warshall finds the shortcut around the loop across tile boundaries */
+  @Test
+  public void floydWarshallTest() {
+    HospitalGraph graph = loopGraph(BlockedFloydWarshall.TILE_SIZE * 2 + 5);
+    RoutingTable table = RoutingTable.floydWarshall(graph, () -> false);
+
+    assertNotNull(table);
+
+    Node first = graph.getNode(0);
+    Node second = graph.getNode(1);
+    Node last = graph.getNode(graph.size() - 2);
+    Node disconnected = graph.getNode(graph.size() - 1);
+
+    assertEquals(0, table.getCost(first, first));
+    assertEquals(5, table.getCost(first, last), 1e-9); // Direct edge
+    assertEquals(15, table.getCost(second, last), 1e-9); // Back through the first node
+    assertEquals(first, table.getNextHop(second, last));
+    assertEquals(Double.POSITIVE_INFINITY, table.getCost(first, disconnected));
+    assertNull(table.getNextHop(first, disconnected));
+    assertNull(table.getNextHop(first, new Node("missing", "b", Node.Floor.L1, 0, 0)));
+
+    assertNextHopsMatchCosts(table);
+  }
+
+  /** Tests that the parallel Floyd-Warshall produces exactly the same table as the serial one */
+  @Test
+  public void parallelFloydWarshallTest() {
+    HospitalGraph graph = loopGraph(BlockedFloydWarshall.TILE_SIZE * 4 + 7);
+    RoutingTable serial = RoutingTable.floydWarshall(graph, () -> false);
+    RoutingTable parallel =
+        RoutingTable.parallelFloydWarshall(graph, new ForkJoinPool(4), () -> false);
+
+    assertNotNull(parallel);
+
+    // Every entry should match
+    for (int from = 0; from < graph.size(); from++) {
+      for (int to = 0; to < graph.size(); to++) {
+        assertEquals(serial.getCost(from, to), parallel.getCost(from, to));
+        assertEquals(serial.getNextHop(from, to), parallel.getNextHop(from, to));
+      }
+    }
+  }
+
+  /** Tests that the Dijkstra table matches Floyd-Warshall for the destinations it computes */
+  @Test
+  public void dijkstraTest() {
+    int length = BlockedFloydWarshall.TILE_SIZE + 10; // Length of the loop
+    HospitalGraph graph = loopGraph(length, List.of(1, 20, length - 1, length));
+    RoutingTable floydWarshall = RoutingTable.floydWarshall(graph, () -> false);
+    RoutingTable dijkstra = RoutingTable.dijkstra(graph, new ForkJoinPool(2), () -> false);
+
+    assertNotNull(dijkstra);
+
+    for (int to = 0; to < graph.size(); to++) {
+      // Only the nodes with departments should be computed
+      assertEquals(graph.isNonHallwayHost(to), dijkstra.hasDestination(to));
+
+      if (!dijkstra.hasDestination(to)) {
+        assertEquals(-1, dijkstra.getNextHop(0, to)); // Nothing known
+        continue;
+      }
+
+      for (int from = 0; from < graph.size(); from++) {
+        assertEquals(floydWarshall.getCost(from, to), dijkstra.getCost(from, to), 1e-9);
+        assertEquals(floydWarshall.getCost(to, from), dijkstra.getCost(to, from), 1e-9);
+      }
+    }
+
+    assertNextHopsMatchCosts(dijkstra);
+  }
+
+  /**
+   * Creates a graph with a line of nodes, where each node at one of the given indices holds a
+   * department. The graph can also have a dead end branching off of the line, and a new node that
+   * bridges the line, which is also connected straight to the first node
+   *
+   * @param length the number of nodes in the line
+   * @param departments the indices of the nodes that hold departments
+   * @param branch whether to include the dead end branch
+   * @param bridge whether to include the new bridging node
+   * @return the graph
+   */
+  private static HospitalGraph editedGraph(
+      int length, List<Integer> departments, boolean branch, boolean bridge) {
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+
+    // Each node is 10 further along
+    for (int i = 0; i < length; i++) {
+      nodes.add(new Node(Integer.toString(i), "b", Node.Floor.L1, i * 10, 0));
+
+      if (i > 0) {
+        edges.add(new Edge(nodes.get(i - 1), nodes.get(i)));
+      }
+    }
+
+    // Put a department on each of the given nodes
+    List<Move> moves = new ArrayList<>();
+    for (int department : departments) {
+      LocationName location =
+          new LocationName("dept" + department, LocationName.LocationType.DEPT, "d");
+      moves.add(new Move(nodes.get(department), location, new Date(0)));
+    }
+
+    // Dead end off of the middle node
+    if (branch) {
+      Node dead = new Node("branch", "b", Node.Floor.L1, length * 5, 30);
+      edges.add(new Edge(nodes.get(length / 2), dead));
+      nodes.add(dead);
+    }
+
+    // Node right above the line that skips from the start to the middle
+    if (bridge) {
+      Node over = new Node("bridge", "b", Node.Floor.L1, length * 2, 10);
+      edges.add(new Edge(nodes.get(1), over));
+      edges.add(new Edge(over, nodes.get(length / 2)));
+      edges.add(new Edge(over, nodes.get(0)));
+      nodes.add(over);
+    }
+
+    return new HospitalGraph(nodes, edges, moves, new Date());
+  }
+
+  /**
+   * Checks that every destination a patched table computed matches a table computed from scratch
+   *
+   * @param expected the table computed from scratch
+   * @param patched the patched table
+   */
+  private static void assertPatchedMatches(RoutingTable expected, RoutingTable patched) {
+    assertNotNull(patched);
+    HospitalGraph graph = patched.getGraph();
+
+    for (int to = 0; to < graph.size(); to++) {
+      assertEquals(expected.hasDestination(to), patched.hasDestination(to));
+
+      if (patched.hasDestination(to)) {
+        for (int from = 0; from < graph.size(); from++) {
+          assertEquals(expected.getCost(from, to), patched.getCost(from, to), 1e-9);
+        }
+      }
+    }
+
+    assertNextHopsMatchCosts(patched);
+  }
+
+  /** Tests that patching a table after small edits matches computing it from scratch */
+  @Test
+  public void updateTest() {
+    int length = 40; // Length of the line
+    List<Integer> departments = List.of(0, 3, 5, 10, 20, 25, 30, 35, 39); // Departments
+    HospitalGraph before = editedGraph(length, departments, true, false);
+    HospitalGraph after = editedGraph(length, departments, false, true);
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    // Complete tables stay complete
+    RoutingTable complete = RoutingTable.floydWarshall(before, () -> false);
+    assertPatchedMatches(
+        RoutingTable.floydWarshall(after, () -> false),
+        RoutingTable.update(complete, after, pool, () -> false));
+
+    // Partial tables only patch the department columns, in both directions
+    RoutingTable partialBefore = RoutingTable.dijkstra(before, pool, () -> false);
+    RoutingTable partialAfter = RoutingTable.dijkstra(after, pool, () -> false);
+    assertPatchedMatches(
+        partialAfter, RoutingTable.update(partialBefore, after, pool, () -> false));
+    assertPatchedMatches(
+        partialBefore, RoutingTable.update(partialAfter, before, pool, () -> false));
+
+    // Replacing every node leaves nothing to reuse, so it isn't patched
+    Node other = new Node("other", "b", Node.Floor.L1, 0, 0);
+    RoutingTable unrelated =
+        RoutingTable.floydWarshall(
+            new HospitalGraph(List.of(other), List.of(), List.of(), new Date()), () -> false);
+    assertNull(RoutingTable.update(unrelated, after, pool, () -> false));
+  }
+
+  /** Tests that a saved table loads back the same, but only for the same graph */
+  @Test
+  public void fileTest() throws IOException {
+    int length = 40; // Length of the line
+    List<Integer> departments = List.of(0, 3, 5, 10, 20, 25, 30, 35, 39); // Departments
+    HospitalGraph graph = editedGraph(length, departments, true, false);
+    Path file = Files.createTempDirectory("routingTableTest").resolve("table.bin");
+
+    assertNull(RoutingTableFile.load(file, graph)); // Nothing saved yet
+
+    // Both complete and partial tables round trip
+    RoutingTable complete = RoutingTable.floydWarshall(graph, () -> false);
+    assertTrue(RoutingTableFile.save(file, complete));
+    assertPatchedMatches(complete, RoutingTableFile.load(file, graph));
+
+    RoutingTable partial = RoutingTable.dijkstra(graph, new ForkJoinPool(2), () -> false);
+    assertTrue(RoutingTableFile.save(file, partial)); // Replaces the complete one
+    RoutingTable loaded = RoutingTableFile.load(file, graph);
+    assertPatchedMatches(partial, loaded);
+    for (int from = 0; from < graph.size(); from++) {
+      for (int to = 0; to < graph.size(); to++) {
+        assertEquals(partial.getNextHop(from, to), loaded.getNextHop(from, to));
+      }
+    }
+
+    // Any other graph doesn't match, even with the same number of nodes
+    assertNull(RoutingTableFile.load(file, editedGraph(length, departments, false, false)));
+    assertNull(RoutingTableFile.load(file, editedGraph(length + 1, departments, false, false)));
+    assertNull(RoutingTableFile.load(file, editedGraph(length, List.of(), true, false)));
+  }
+
+  /** Tests that a terminated computation produces no table */
+  @Test
+  public void terminatedTest() {
+    assertNull(RoutingTable.floydWarshall(loopGraph(10), () -> true));
+    assertNull(RoutingTable.parallelFloydWarshall(loopGraph(10), new ForkJoinPool(2), () -> true));
+    assertNull(RoutingTable.dijkstra(loopGraph(10, List.of(1)), new ForkJoinPool(2), () -> true));
+  }
+
+  /** Tests that the configured backend is used, and that a bad name falls back to the default */
+  @Test
+  public void defaultBackendTest() {
+    String previous = System.getProperty("allPairsBackend"); // Property before the test
+    try {
+      System.setProperty("allPairsBackend", " dijkstra ");
+      assertEquals(AllPairsBackend.DIJKSTRA, AllPairsBackend.getDefault());
+
+      System.setProperty("allPairsBackend", "floyd");
+      AllPairsBackend fallback =
+          Runtime.getRuntime().availableProcessors() > 1
+              ? AllPairsBackend.PARALLEL_BLOCKED
+              : AllPairsBackend.BLOCKED;
+      assertEquals(fallback, AllPairsBackend.getDefault());
+    } finally {
+      if (previous == null) {
+        System.clearProperty("allPairsBackend");
+      } else {
+        System.setProperty("allPairsBackend", previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/** Tests for counting the routes through each node and edge */
+public class TrafficAccumulatorTest {
+  /**
+   * Creates a square grid of nodes, each connected to the ones next to it, with a single
+   * disconnected node at the end
+   *
+   * @param width the number of nodes along each side
+   * @return the graph
+   */
+  private static HospitalGraph gridGraph(int width) {
+    List<Node> nodes = new ArrayList<>(); // The nodes
+    List<Edge> edges = new ArrayList<>(); // The edges
+
+    for (int y = 0; y < width; y++) {
+      for (int x = 0; x < width; x++) {
+        Node node = new Node(x + "_" + y, "b", Node.Floor.L1, x * 10, y * 10 + x);
+        nodes.add(node);
+
+        if (x > 0) {
+          edges.add(new Edge(nodes.get(nodes.size() - 2), node)); // Left
+        }
+        if (y > 0) {
+          edges.add(new Edge(nodes.get(nodes.size() - 1 - width), node)); // Above
+        }
+      }
+    }
+
+    nodes.add(new Node("disconnected", "b", Node.Floor.L1, 0, 1000)); // Disconnected node
+
+    return new HospitalGraph(nodes, edges, List.of(), new Date());
+  }
+
+  /** Tests that a short line counts every node and edge on each route, ends included */
+  @Test
+  public void lineTest() {
+    List<Node> nodes = new ArrayList<>(); // A line of three nodes
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      nodes.add(new Node(Integer.toString(i), "b", Node.Floor.L1, i * 10, 0));
+      if (i > 0) {
+        edges.add(new Edge(nodes.get(i - 1), nodes.get(i)));
+      }
+    }
+    HospitalGraph graph = new HospitalGraph(nodes, edges, List.of(), new Date());
+    RoutingTable table = RoutingTable.floydWarshall(graph, () -> false);
+
+    int first = graph.indexOf(nodes.get(0));
+    int middle = graph.indexOf(nodes.get(1));
+    int last = graph.indexOf(nodes.get(2));
+
+    // Locations at both ends, the last one with two service requests
+    TrafficAccumulator.Counts counts =
+        TrafficAccumulator.accumulate(
+            table, new int[] {first, last}, new int[] {0, 2}, ForkJoinPool.commonPool());
+
+    // Both routes go through every node
+    assertEquals(2, counts.getNodeUses(first));
+    assertEquals(2, counts.getNodeUses(middle));
+    assertEquals(2, counts.getNodeUses(last));
+    assertEquals(2, counts.getNodeRequests(middle)); // Only the route to the last one has some
+
+    int low = Math.min(first, middle); // Lower index of the first edge
+    int high = Math.max(first, middle); // Higher index of the first edge
+    assertEquals(2, counts.getArcUses(graph.findArc(low, high)));
+    assertEquals(2, counts.getArcRequests(graph.findArc(low, high)));
+    assertEquals(0, counts.getArcUses(graph.findArc(high, low))); // Other direction isn't counted
+    assertEquals(-1, graph.findArc(first, last)); // Not adjacent
+  }
+
+  /**
+   * Tests that the parallel counts match walking every route one after another, no matter how many
+   * workers there are
+   */
+  @Test
+  public void matchesSequentialTest() {
+    HospitalGraph graph = gridGraph(8);
+    RoutingTable table = RoutingTable.floydWarshall(graph, () -> false);
+    Random random = new Random(2023);
+
+    // Random locations, some sharing nodes, one on the disconnected node
+    int[] locations = new int[TrafficAccumulator.SOURCES_PER_TASK * 5 + 3];
+    int[] requests = new int[locations.length];
+    for (int i = 0; i < locations.length; i++) {
+      locations[i] = random.nextInt(graph.size() - 1);
+      requests[i] = random.nextInt(4);
+    }
+    locations[locations.length - 1] = graph.size() - 1;
+
+    // Walk each route in order
+    long[] nodeUses = new long[graph.size()];
+    long[] nodeRequests = new long[graph.size()];
+    long[] arcUses = new long[graph.arcCount()];
+    for (int source = 0; source < locations.length; source++) {
+      for (int target = 0; target < locations.length; target++) {
+        int to = locations[target];
+        if (source == target || table.getNextHop(locations[source], to) == -1) {
+          continue;
+        }
+
+        for (int current = locations[source]; ; current = table.getNextHop(current, to)) {
+          nodeUses[current]++;
+          nodeRequests[current] += requests[target];
+          if (current == to) {
+            break;
+          }
+
+          int next = table.getNextHop(current, to);
+          arcUses[graph.findArc(Math.min(current, next), Math.max(current, next))]++;
+        }
+      }
+    }
+
+    for (int workers : new int[] {1, 4}) {
+      ForkJoinPool pool = new ForkJoinPool(workers);
+      TrafficAccumulator.Counts counts;
+      try {
+        counts = TrafficAccumulator.accumulate(table, locations, requests, pool);
+      } finally {
+        pool.shutdown();
+      }
+
+      for (int node = 0; node < graph.size(); node++) {
+        assertEquals(nodeUses[node], counts.getNodeUses(node));
+        assertEquals(nodeRequests[node], counts.getNodeRequests(node));
+      }
+      for (int arc = 0; arc < graph.arcCount(); arc++) {
+        assertEquals(arcUses[arc], counts.getArcUses(arc));
+      }
+    }
+
+    assertEquals(0, nodeUses[graph.size() - 1]); // The disconnected location is never reached
+  }
+
+  /**
+   * Tests that the counts are exactly the same whatever order the locations come in and however
+   * many workers there are, since the locations come out of a hash map in no set order
+   */
+  @Test
+  public void deterministicTest() {
+    // One pool for each number of workers, reused across the runs
+    List<ForkJoinPool> pools = new ArrayList<>();
+    for (int workers = 1; workers <= 4; workers++) {
+      pools.add(new ForkJoinPool(workers));
+    }
+
+    try {
+      HospitalGraph graph = gridGraph(6);
+      RoutingTable table = RoutingTable.parallelFloydWarshall(graph, pools.get(3), () -> false);
+      Random random = new Random(7);
+
+      int[] locations = new int[TrafficAccumulator.SOURCES_PER_TASK * 3 + 1];
+      int[] requests = new int[locations.length];
+      for (int i = 0; i < locations.length; i++) {
+        locations[i] = random.nextInt(graph.size());
+        requests[i] = random.nextInt(10);
+      }
+      TrafficAccumulator.Counts expected =
+          TrafficAccumulator.accumulate(table, locations, requests, pools.get(0));
+
+      for (int run = 0; run < 10; run++) {
+        // Shuffle the locations along with their requests
+        for (int i = locations.length - 1; i > 0; i--) {
+          int swap = random.nextInt(i + 1);
+          int location = locations[i];
+          locations[i] = locations[swap];
+          locations[swap] = location;
+          int request = requests[i];
+          requests[i] = requests[swap];
+          requests[swap] = request;
+        }
+
+        TrafficAccumulator.Counts counts =
+            TrafficAccumulator.accumulate(
+                table, locations, requests, pools.get(run % pools.size()));
+
+        for (int node = 0; node < graph.size(); node++) {
+          assertEquals(expected.getNodeUses(node), counts.getNodeUses(node));
+          assertEquals(expected.getNodeRequests(node), counts.getNodeRequests(node));
+        }
+        for (int arc = 0; arc < graph.arcCount(); arc++) {
+          assertEquals(expected.getArcUses(arc), counts.getArcUses(arc));
+          assertEquals(expected.getArcRequests(arc), counts.getArcRequests(arc));
+        }
+      }
+    } finally {
+      pools.forEach(ForkJoinPool::shutdown);
+    }
+  }
+
+  /** Tests that the pairs found for each node and edge are exactly the ones that were counted */
+  @Test
+  public void findPairsTest() {
+    HospitalGraph graph = gridGraph(5);
+    RoutingTable table = RoutingTable.floydWarshall(graph, () -> false);
+    int[] locations = {0, 4, 12, 12, 20, 24, graph.size() - 1}; // Corners, center, disconnected
+    int[] requests = new int[locations.length];
+
+    TrafficAccumulator.Counts counts =
+        TrafficAccumulator.accumulate(table, locations, requests, ForkJoinPool.commonPool());
+
+    for (int node = 0; node < graph.size(); node++) {
+      List<int[]> pairs = TrafficAccumulator.findPairs(table, locations, node, node);
+      assertEquals(counts.getNodeUses(node), pairs.size());
+    }
+
+    for (int from = 0; from < graph.size(); from++) {
+      for (int arc = graph.arcsStart(from); arc < graph.arcsEnd(from); arc++) {
+        int to = graph.arcTarget(arc);
+        if (from < to) {
+          // Either order of the ends finds the same pairs
+          long uses = counts.getArcUses(arc); // Routes along the edge
+          assertEquals(uses, TrafficAccumulator.findPairs(table, locations, from, to).size());
+          assertEquals(uses, TrafficAccumulator.findPairs(table, locations, to, from).size());
+        }
+      }
+    }
+
+    // The two locations sharing the center node route to each other, but none route to themselves
+    List<int[]> center = TrafficAccumulator.findPairs(table, locations, 12, 12);
+    assertTrue(center.stream().anyMatch((pair) -> pair[0] == 2 && pair[1] == 3));
+    assertTrue(center.stream().noneMatch((pair) -> pair[0] == pair[1]));
+  }
+
+  /** Tests that a location count that doesn't match the request count is rejected */
+  @Test
+  public void mismatchedTest() {
+    RoutingTable table = RoutingTable.floydWarshall(gridGraph(2), () -> false);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            TrafficAccumulator.accumulate(
+                table, new int[] {0, 1}, new int[] {0}, ForkJoinPool.commonPool()));
+  }
+}
@@ -0,0 +1,230 @@
+package edu.wpi.FlashyFrogs.TrafficAnalyzer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.FlashyFrogs.ORM.Edge;
+import edu.wpi.FlashyFrogs.ORM.LocationName;
+import edu.wpi.FlashyFrogs.ORM.Move;
+import edu.wpi.FlashyFrogs.ORM.Node;
+import edu.wpi.FlashyFrogs.PathFinding.HospitalGraph;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the traffic history. These tests are purely in memory, and do not use the database */
+public class TrafficHistoryTest {
+  private static final ZoneId ZONE = ZoneOffset.UTC; // Zone the days start in
+
+  private final List<Node> nodes = new ArrayList<>(); // A line of five nodes
+  private final RoutingTable table; // Routes along the line
+
+  private final LocationName first =
+      new LocationName("First", LocationName.LocationType.DEPT, "F"); // First location
+  private final LocationName second =
+      new LocationName("Second", LocationName.LocationType.DEPT, "S"); // Second location
+  private final LocationName third =
+      new LocationName("Third", LocationName.LocationType.DEPT, "T"); // Third location
+  private final LocationName hall =
+      new LocationName("Hall", LocationName.LocationType.HALL, "H"); // Hallway, never routed to
+
+  /** Creates the line and its routes */
+  public TrafficHistoryTest() {
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      nodes.add(new Node(Integer.toString(i), "b", Node.Floor.L1, i * 10, 0));
+      if (i > 0) {
+        edges.add(new Edge(nodes.get(i - 1), nodes.get(i)));
+      }
+    }
+
+    table =
+        RoutingTable.floydWarshall(
+            new HospitalGraph(nodes, edges, List.of(), new Date()), () -> false);
+  }
+
+  /**
+   * Gets the start of a day
+   *
+   * @param day the day
+   * @return the date at its start
+   */
+  private static Date at(LocalDate day) {
+    return Date.from(day.atStartOfDay(ZONE).toInstant());
+  }
+
+  /**
+   * Creates the moves used by the tests, with the third location arriving and the second one moving
+   * part way through the range
+   *
+   * @return the moves
+   */
+  private List<Move> moves() {
+    return List.of(
+        new Move(nodes.get(0), first, at(LocalDate.of(2022, 12, 1))),
+        new Move(nodes.get(2), second, at(LocalDate.of(2022, 12, 1))),
+        new Move(nodes.get(1), hall, at(LocalDate.of(2022, 12, 1))),
+        new Move(nodes.get(4), third, at(LocalDate.of(2023, 1, 10))),
+        new Move(nodes.get(3), second, at(LocalDate.of(2023, 2, 5))));
+  }
+
+  /** Tests that locations are placed from the moves strictly before a date */
+  @Test
+  public void placeLocationsTest() {
+    List<Move> moves = new ArrayList<>(moves());
+    moves.sort(Comparator.comparing(Move::getMoveDate).reversed());
+
+    Map<LocationName, Node> before =
+        TrafficHistory.placeLocations(moves, at(LocalDate.of(2023, 2, 5)));
+    assertEquals(nodes.get(2), before.get(second)); // The move that day hasn't happened yet
+    assertEquals(nodes.get(4), before.get(third));
+
+    Map<LocationName, Node> after =
+        TrafficHistory.placeLocations(moves, at(LocalDate.of(2023, 2, 6)));
+    assertEquals(nodes.get(3), after.get(second)); // Most recent move wins
+    assertEquals(4, after.size());
+
+    // A node only holds its two most recent locations
+    LocationName extra = new LocationName("Extra", LocationName.LocationType.DEPT, "E");
+    moves.add(0, new Move(nodes.get(0), extra, at(LocalDate.of(2023, 3, 1))));
+    moves.add(0, new Move(nodes.get(0), hall, at(LocalDate.of(2023, 3, 2))));
+    Map<LocationName, Node> crowded =
+        TrafficHistory.placeLocations(moves, at(LocalDate.of(2023, 3, 3)));
+    assertEquals(nodes.get(0), crowded.get(hall));
+    assertEquals(nodes.get(0), crowded.get(extra));
+    assertNull(crowded.get(first)); // Pushed out
+  }
+
+  /**
+   * Tests that the totals over ranges, including whole weeks and months, match walking every route
+   * of every day one at a time, and that the trend buckets add up to the totals
+   */
+  @Test
+  public void matchesDailyTest() {
+    LocalDate start = LocalDate.of(2022, 12, 20);
+    LocalDate end = LocalDate.of(2023, 3, 15);
+
+    // Random requests on some days, including at the hallway and at a location not placed yet
+    Random random = new Random(2023);
+    Map<LocalDate, Map<LocationName, Integer>> requests = new HashMap<>();
+    for (LocalDate day = start.minusDays(3); !day.isAfter(end); day = day.plusDays(1)) {
+      if (random.nextInt(3) == 0) {
+        Map<LocationName, Integer> dayRequests = new HashMap<>();
+        for (LocationName location : List.of(first, second, third, hall)) {
+          dayRequests.put(location, random.nextInt(3));
+        }
+        requests.put(day, dayRequests);
+      }
+    }
+
+    TrafficHistory history =
+        new TrafficHistory(table, moves(), requests, start, end, ZONE, new ForkJoinPool(2));
+    HospitalGraph graph = history.getGraph();
+
+    // Work out each day on its own
+    List<Move> sorted = new ArrayList<>(moves());
+    sorted.sort(Comparator.comparing(Move::getMoveDate).reversed());
+    Map<LocalDate, TrafficAccumulator.Counts> days = new HashMap<>();
+    for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+      List<Integer> locations = new ArrayList<>();
+      List<Integer> dayRequests = new ArrayList<>();
+      for (Map.Entry<LocationName, Node> entry :
+          TrafficHistory.placeLocations(sorted, at(day)).entrySet()) {
+        if (entry.getKey().getLocationType() != LocationName.LocationType.HALL) {
+          locations.add(graph.indexOf(entry.getValue()));
+          dayRequests.add(requests.getOrDefault(day, Map.of()).getOrDefault(entry.getKey(), 0));
+        }
+      }
+
+      days.put(
+          day,
+          TrafficAccumulator.accumulate(
+              table,
+              locations.stream().mapToInt(Integer::intValue).toArray(),
+              dayRequests.stream().mapToInt(Integer::intValue).toArray(),
+              ForkJoinPool.commonPool()));
+    }
+
+    // Ranges covering whole months, whole weeks, partial weeks, and single days
+    List<LocalDate[]> ranges =
+        List.of(
+            new LocalDate[] {start, end},
+            new LocalDate[] {LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 31)},
+            new LocalDate[] {LocalDate.of(2023, 1, 4), LocalDate.of(2023, 2, 22)},
+            new LocalDate[] {LocalDate.of(2023, 2, 5), LocalDate.of(2023, 2, 5)});
+    for (LocalDate[] range : ranges) {
+      TrafficAccumulator.Counts expected = new TrafficAccumulator.Counts(graph);
+      for (LocalDate day = range[0]; !day.isAfter(range[1]); day = day.plusDays(1)) {
+        expected.add(days.get(day));
+      }
+
+      assertSameCounts(graph, expected, history.total(range[0], range[1]));
+
+      // Every granularity of trend adds up to the total
+      for (TrafficHistory.Granularity granularity : TrafficHistory.Granularity.values()) {
+        TrafficAccumulator.Counts summed = new TrafficAccumulator.Counts(graph);
+        history.series(range[0], range[1], granularity).values().forEach(summed::add);
+        assertSameCounts(graph, expected, summed);
+      }
+    }
+
+    // The third location arriving adds traffic at the end of the line
+    assertEquals(0, history.total(start, LocalDate.of(2023, 1, 9)).getUses(graph, 4, 4));
+    assertNotEquals(0, history.total(LocalDate.of(2023, 1, 10), end).getUses(graph, 4, 4));
+    assertEquals(0, history.total(start, end).getUses(graph, 0, 4)); // Not joined
+  }
+
+  /** Tests that reversed ranges and ranges outside the history are rejected */
+  @Test
+  public void badRangeTest() {
+    LocalDate start = LocalDate.of(2023, 1, 1);
+    LocalDate end = LocalDate.of(2023, 1, 31);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new TrafficHistory(table, moves(), Map.of(), end, start, ZONE, new ForkJoinPool(1)));
+
+    TrafficHistory history =
+        new TrafficHistory(table, moves(), Map.of(), start, end, ZONE, new ForkJoinPool(1));
+    assertThrows(IllegalArgumentException.class, () -> history.total(end, start));
+    assertThrows(IllegalArgumentException.class, () -> history.total(start.minusDays(1), end));
+    assertThrows(IllegalArgumentException.class, () -> history.total(start, end.plusDays(1)));
+  }
+
+  /** Tests that the granularity picked for a range keeps the number of buckets readable */
+  @Test
+  public void granularityTest() {
+    LocalDate start = LocalDate.of(2023, 1, 1);
+
+    assertEquals(TrafficHistory.Granularity.DAY, TrafficHistory.Granularity.forRange(start, start));
+    assertEquals(
+        TrafficHistory.Granularity.WEEK,
+        TrafficHistory.Granularity.forRange(start, start.plusDays(60)));
+    assertEquals(
+        TrafficHistory.Granularity.MONTH,
+        TrafficHistory.Granularity.forRange(start, start.plusYears(1)));
+    assertEquals(
+        LocalDate.of(2022, 12, 26), TrafficHistory.Granularity.WEEK.start(start)); // A Monday
+  }
+
+  /**
+   * Checks that two sets of counts are the same
+   *
+   * @param graph the graph the counts are for
+   * @param expected the expected counts
+   * @param actual the actual counts
+   */
+  private static void assertSameCounts(
+      HospitalGraph graph, TrafficAccumulator.Counts expected, TrafficAccumulator.Counts actual) {
+    for (int node = 0; node < graph.size(); node++) {
+      assertEquals(expected.getNodeUses(node), actual.getNodeUses(node));
+      assertEquals(expected.getNodeRequests(node), actual.getNodeRequests(node));
+    }
+    for (int arc = 0; arc < graph.arcCount(); arc++) {
+      assertEquals(expected.getArcUses(arc), actual.getArcUses(arc));
+      assertEquals(expected.getArcRequests(arc), actual.getArcRequests(arc));
+    }
+  }
+}